@@ -41,3 +41,14 @@ tasks.withType<JavaExec>().configureEach {
     // Helps native loading on Windows when launched from IDE/Gradle.
     systemProperty("org.lwjgl.util.Debug", "false")
 }
+
+// Headless benchmarks (no window/GL). Usage: gradle bench -Pbench=ChunkStorageBenchmark
+tasks.register<JavaExec>("bench") {
+    group = "verification"
+    description = "Runs a headless benchmark from minecraftlike.bench"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("minecraftlike.bench." + (project.findProperty("bench") ?: "ChunkStorageBenchmark"))
+    jvmArgs("-Xmx2g")
+    // Optional program arguments: -Pargs="a b"
+    (project.findProperty("args") as String?)?.let { args(it.split(" ")) }
+}
@@ -109,6 +109,8 @@ public class Main {
         // 10 shadow softness
         // 11 shadow distance
         // 12 shadow resolution
+        // 13 shadow cascades
+        // 14 shadow split lambda
         // +6px separator
         // 11 post toggle
         // 12 fxaa toggle
@@ -123,6 +125,8 @@ public class Main {
         // 7 sh soft
         // 8 sh dist
         // 9 sh res (discrete)
+        // 25 sh cascades (discrete)
+        // 26 sh split lambda
         // post toggles (no slider index)
         // 10 aa level
         // 11 vignette
@@ -145,7 +149,7 @@ public class Main {
         // 23 mip bias
         // 24 wind
         // Total rendered rows (including intentional blank spacing rows via ty += rowH).
-        int rows = 40;
+        int rows = 42;
         float extra = 6f + 6f; // section separators (ty += rowH + 6f)
         float paddingBottom = 12f;
 
@@ -166,6 +170,9 @@ public class Main {
         return new MenuLayout(x, y, w, h, headerH, rowH, labelW);
     }
 
+    // Shadow resolution steps per cascade (discrete). CascadedShadowMap clamps further to its memory budget.
+    private static final int[] SHADOW_RES_STEPS = new int[] { 512, 1024, 1536, 2048 };
+
     // Godray sample steps (discrete).
     private static final int[] GODRAY_SAMPLE_STEPS = new int[] { 8, 12, 16, 24, 32, 48, 64, 96, 128 };
 
@@ -220,7 +227,8 @@ public class Main {
                 float shadowSoftness,
                 float shadowDistance,
                 int shadowRes,
-                int[] shadowResSteps,
+                int shadowCascades,
+                float shadowSplitLambda,
                 float texAnisoMax,
             int screenW,
             int screenH
@@ -247,7 +255,8 @@ public class Main {
                 bloomEnabled, bloomThreshold, bloomStrength,
                 godraysEnabled, godraysSamples, godraysStrength, godraysDensity, godraysWeight, godraysDecay, godraysEdgeFade,
                 texSmooth, texAniso, pixelSnap, windStrength,
-                shadowsEnabled, sunElevationDeg, shadowStrength, shadowSoftness, shadowDistance, shadowRes);
+                shadowsEnabled, sunElevationDeg, shadowStrength, shadowSoftness, shadowDistance, shadowRes,
+                shadowCascades, shadowSplitLambda);
         }
 
         // Row 0: Preset button (control area)
@@ -266,7 +275,9 @@ public class Main {
             shadowStrength = 0.80f;
             shadowSoftness = 2.04f;
             shadowDistance = 40.00f;
-            shadowRes = 4096;
+            shadowRes = 2048;
+            shadowCascades = 4;
+            shadowSplitLambda = 0.80f;
 
             postEnabled = true;
             fxaaEnabled = true;
@@ -313,7 +324,9 @@ public class Main {
             shadowStrength = 0.80f;
             shadowSoftness = 2.04f;
             shadowDistance = 40.0f;
-            shadowRes = 16384;
+            shadowRes = 2048;
+            shadowCascades = 3;
+            shadowSplitLambda = 0.75f;
 
             postEnabled = true;
             fxaaEnabled = true;
@@ -422,15 +435,28 @@ public class Main {
 
         // Shadow resolution slider index 9 (discrete steps)
         rowY += rowH;
-        int curShadowResIdx = shadowResToIndex(shadowRes, shadowResSteps);
-        activeSlider = sliderInput(mx, my, pressed, down, activeSlider, 9, controlX, rowY, controlW, (float) curShadowResIdx, 0f, (float) (shadowResSteps.length - 1));
+        int curShadowResIdx = shadowResToIndex(shadowRes, SHADOW_RES_STEPS);
+        activeSlider = sliderInput(mx, my, pressed, down, activeSlider, 9, controlX, rowY, controlW, (float) curShadowResIdx, 0f, (float) (SHADOW_RES_STEPS.length - 1));
         if (activeSlider == 9 && down) {
-            float idxF = sliderValue(mx, controlX, controlW, 0f, (float) (shadowResSteps.length - 1));
+            float idxF = sliderValue(mx, controlX, controlW, 0f, (float) (SHADOW_RES_STEPS.length - 1));
             int idx = Math.round(idxF);
-            idx = Math.max(0, Math.min(shadowResSteps.length - 1, idx));
-            shadowRes = shadowResSteps[idx];
+            idx = Math.max(0, Math.min(SHADOW_RES_STEPS.length - 1, idx));
+            shadowRes = SHADOW_RES_STEPS[idx];
+        }
+
+        // Shadow cascades slider index 25 (discrete, CascadedShadowMap.setCascadeCount)
+        rowY += rowH;
+        activeSlider = sliderInput(mx, my, pressed, down, activeSlider, 25, controlX, rowY, controlW, (float) shadowCascades, 1f, (float) CascadedShadowMap.MAX_CASCADES);
+        if (activeSlider == 25 && down) {
+            int n = Math.round(sliderValue(mx, controlX, controlW, 1f, (float) CascadedShadowMap.MAX_CASCADES));
+            shadowCascades = Math.max(1, Math.min(CascadedShadowMap.MAX_CASCADES, n));
         }
 
+        // Shadow split lambda slider index 26 (CascadedShadowMap.setSplitLambda: 0 uniform, 1 logarithmic)
+        rowY += rowH;
+        activeSlider = sliderInput(mx, my, pressed, down, activeSlider, 26, controlX, rowY, controlW, shadowSplitLambda, 0.00f, 1.00f);
+        if (activeSlider == 26 && down) shadowSplitLambda = sliderValue(mx, controlX, controlW, 0.00f, 1.00f);
+
         // Post toggle
         rowY += rowH + 6f;
         if (pressed && hit(mx, my, controlX, rowY, controlW, rowH - 2f)) {
@@ -560,7 +586,8 @@ public class Main {
             bloomEnabled, bloomThreshold, bloomStrength,
             godraysEnabled, godraysSamples, godraysStrength, godraysDensity, godraysWeight, godraysDecay, godraysEdgeFade,
             texSmooth, texAniso, pixelSnap, windStrength,
-            shadowsEnabled, sunElevationDeg, shadowStrength, shadowSoftness, shadowDistance, shadowRes);
+            shadowsEnabled, sunElevationDeg, shadowStrength, shadowSoftness, shadowDistance, shadowRes,
+            shadowCascades, shadowSplitLambda);
     }
 
     private static Vector3f computeSunLightDir(float sunElevationDeg) {
@@ -674,10 +701,8 @@ public class Main {
     }
 
     private static int findSurfaceY(World world, int x, int z) {
-        for (int y = Chunk.HEIGHT - 1; y >= 0; y--) {
-            if (world.getBlock(x, y, z) != BlockType.AIR) return y;
-        }
-        return 40;
+        int y = world.surfaceY(x, z);
+        return y >= 0 ? y : 40;
     }
 
     private static void markDirtyAround(ChunkRenderer r, int wx, int wz) {
@@ -689,6 +714,12 @@ public class Main {
         r.markDirtyChunk(cx - 1, cz);
         r.markDirtyChunk(cx, cz + 1);
         r.markDirtyChunk(cx, cz - 1);
+        // a corner column also shades the diagonal chunk's corner (vertex AO)
+        int lx = wx & (Chunk.SIZE - 1);
+        int lz = wz & (Chunk.SIZE - 1);
+        int dx = lx == 0 ? -1 : (lx == Chunk.SIZE - 1 ? 1 : 0);
+        int dz = lz == 0 ? -1 : (lz == Chunk.SIZE - 1 ? 1 : 0);
+        if (dx != 0 && dz != 0) r.markDirtyChunk(cx + dx, cz + dz);
     }
 
     private static boolean aabbIntersects(
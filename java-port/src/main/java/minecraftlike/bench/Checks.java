@@ -0,0 +1,42 @@
+package minecraftlike.bench;
+
+/**
+ * Pass/fail bookkeeping shared by the headless checks: expect(), expectTrue() and fail() print one line
+ * per check and count the failures, finish() prints the verdict and exits non-zero if anything failed.
+ */
+final class Checks {
+    private static int failures;
+
+    private Checks() {}
+
+    static void expect(String name, int actual, int expected) {
+        expect(name, "value", actual, expected);
+    }
+
+    // label names the measured quantity in the output line ("quads", "level", ...).
+    static void expect(String name, String label, int actual, int expected) {
+        boolean ok = actual == expected;
+        if (!ok) failures++;
+        System.out.printf("%-18s %s=%d expected=%d %s%n", name, label, actual, expected, ok ? "ok" : "FAIL");
+    }
+
+    // A yes/no check; prints holds=true/false.
+    static void expectTrue(String name, boolean holds) {
+        if (!holds) failures++;
+        System.out.printf("%-18s holds=%b %s%n", name, holds, holds ? "ok" : "FAIL");
+    }
+
+    // A failed check that does not fit expect(); prints the message followed by FAIL.
+    static void fail(String message) {
+        failures++;
+        System.out.println(message + " FAIL");
+    }
+
+    static void finish() {
+        if (failures > 0) {
+            System.out.println(failures + " check(s) FAILED");
+            System.exit(1);
+        }
+        System.out.println("all checks passed");
+    }
+}
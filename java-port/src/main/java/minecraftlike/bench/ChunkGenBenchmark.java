@@ -0,0 +1,60 @@
+package minecraftlike.bench;
+
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.ChunkGenScheduler;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless generation throughput: synchronous WorldGen on one thread vs. ChunkGenScheduler.
+ * Run with: gradle bench -Pbench=ChunkGenBenchmark [--args="radius threads"]
+ */
+public final class ChunkGenBenchmark {
+    private ChunkGenBenchmark() {}
+
+    public static void main(String[] args) {
+        int radius = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : ChunkGenScheduler.defaultThreadCount();
+        long seed = 1337L;
+
+        // Warm-up so both runs measure JIT-compiled code.
+        WorldGen warm = new WorldGen(seed + 1);
+        for (int i = 0; i < 32; i++) warm.generateChunk(new Chunk(i, -i));
+
+        int r2 = radius * radius;
+        int count = 0;
+        long t0 = System.nanoTime();
+        WorldGen gen = new WorldGen(seed);
+        World syncWorld = new World();
+        for (int cz = -radius; cz <= radius; cz++) {
+            for (int cx = -radius; cx <= radius; cx++) {
+                if (cx * cx + cz * cz > r2) continue;
+                gen.generateChunk(syncWorld.getOrCreateChunk(cx, cz));
+                count++;
+            }
+        }
+        long t1 = System.nanoTime();
+        report("sync (1 thread)", count, t1 - t0);
+
+        World world = new World();
+        try (ChunkGenScheduler scheduler = new ChunkGenScheduler(world, new WorldGen(seed), threads)) {
+            scheduler.setMaxIntegrationsPerFrame(Integer.MAX_VALUE);
+            long t2 = System.nanoTime();
+            scheduler.updateCenter(0.5f, 0.5f, radius, radius + 2);
+            // Main loop stand-in: integrate until everything requested has arrived.
+            while (scheduler.pendingCount() > 0) {
+                if (scheduler.integrate(null) == 0) LockSupport.parkNanos(200_000L);
+            }
+            long t3 = System.nanoTime();
+            report("scheduler (" + threads + " threads)", world.chunkCount(), t3 - t2);
+        }
+    }
+
+    private static void report(String label, int chunks, long nanos) {
+        double s = nanos / 1e9;
+        System.out.println(label + ": " + chunks + " chunks in " + String.format("%.1f", s * 1000.0) + " ms = "
+            + String.format("%.1f", chunks / s) + " chunks/s");
+    }
+}
@@ -0,0 +1,141 @@
+package minecraftlike.bench;
+
+import minecraftlike.voxel.BlockType;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.WorldGen;
+
+import java.util.Random;
+
+/**
+ * Headless micro-benchmark: palette/bitpacked Chunk storage vs. the old flat BlockType[] array.
+ * Run with: gradle bench -Pbench=ChunkStorageBenchmark
+ */
+public final class ChunkStorageBenchmark {
+    private static final int VOLUME = Chunk.SIZE * Chunk.HEIGHT * Chunk.SIZE;
+    private static final int CHUNKS = 16;
+    private static final int ROUNDS = 20;
+    // Types written by the set benchmark; after the first round they are all in the palette.
+    private static final BlockType[] SET_TYPES = { BlockType.STONE, BlockType.DIRT, BlockType.AIR, BlockType.GRASS };
+
+    private ChunkStorageBenchmark() {}
+
+    public static void main(String[] args) {
+        WorldGen gen = new WorldGen(1337L);
+        Chunk[] chunks = new Chunk[CHUNKS];
+        BlockType[][] arrays = new BlockType[CHUNKS][];
+        long paletteBytes = 0;
+        for (int i = 0; i < CHUNKS; i++) {
+            Chunk c = new Chunk(i % 4, i / 4);
+            gen.generateChunk(c);
+            chunks[i] = c;
+            arrays[i] = toArray(c);
+            paletteBytes += c.memoryBytes();
+            System.out.println(c.memoryReport());
+        }
+        // Flat array: one 4-byte reference per block (compressed oops) + array header.
+        long arrayBytes = CHUNKS * (16L + 4L * VOLUME);
+        System.out.println("memory: palette=" + paletteBytes / CHUNKS + " B/chunk, array=" + arrayBytes / CHUNKS
+            + " B/chunk (" + String.format("%.1fx", arrayBytes / (double) paletteBytes) + " smaller)");
+
+        int[] order = new int[VOLUME];
+        Random r = new Random(42L);
+        for (int i = 0; i < VOLUME; i++) order[i] = r.nextInt(VOLUME);
+
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean report = round == ROUNDS - 1;
+
+            long t0 = System.nanoTime();
+            for (Chunk c : chunks) sink += getAll(c);
+            long t1 = System.nanoTime();
+            for (BlockType[] a : arrays) sink += getAll(a);
+            long t2 = System.nanoTime();
+            for (Chunk c : chunks) sink += getRandom(c, order);
+            long t3 = System.nanoTime();
+            for (BlockType[] a : arrays) sink += getRandom(a, order);
+            long t4 = System.nanoTime();
+            for (Chunk c : chunks) setRandom(c, order);
+            long t5 = System.nanoTime();
+            for (BlockType[] a : arrays) setRandom(a, order);
+            long t6 = System.nanoTime();
+
+            if (report) {
+                double ops = (double) CHUNKS * VOLUME;
+                System.out.println("get sequential: palette=" + nsPerOp(t1 - t0, ops) + " ns/op, array=" + nsPerOp(t2 - t1, ops) + " ns/op");
+                System.out.println("get random:     palette=" + nsPerOp(t3 - t2, ops) + " ns/op, array=" + nsPerOp(t4 - t3, ops) + " ns/op");
+                System.out.println("set random:     palette=" + nsPerOp(t5 - t4, ops) + " ns/op, array=" + nsPerOp(t6 - t5, ops) + " ns/op");
+            }
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static BlockType[] toArray(Chunk c) {
+        BlockType[] out = new BlockType[VOLUME];
+        for (int y = 0; y < Chunk.HEIGHT; y++) {
+            for (int z = 0; z < Chunk.SIZE; z++) {
+                for (int x = 0; x < Chunk.SIZE; x++) {
+                    out[(y * Chunk.SIZE + z) * Chunk.SIZE + x] = c.get(x, y, z);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static long getAll(Chunk c) {
+        long sum = 0;
+        for (int y = 0; y < Chunk.HEIGHT; y++) {
+            for (int z = 0; z < Chunk.SIZE; z++) {
+                for (int x = 0; x < Chunk.SIZE; x++) {
+                    sum += c.get(x, y, z).ordinal();
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static long getAll(BlockType[] a) {
+        long sum = 0;
+        for (int y = 0; y < Chunk.HEIGHT; y++) {
+            for (int z = 0; z < Chunk.SIZE; z++) {
+                for (int x = 0; x < Chunk.SIZE; x++) {
+                    // Same bounds check the old Chunk.get did.
+                    if (x < 0 || x >= Chunk.SIZE || z < 0 || z >= Chunk.SIZE || y < 0 || y >= Chunk.HEIGHT) continue;
+                    sum += a[(y * Chunk.SIZE + z) * Chunk.SIZE + x].ordinal();
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static long getRandom(Chunk c, int[] order) {
+        long sum = 0;
+        for (int i : order) {
+            sum += c.get(i & 15, i >>> 8, (i >>> 4) & 15).ordinal();
+        }
+        return sum;
+    }
+
+    private static long getRandom(BlockType[] a, int[] order) {
+        long sum = 0;
+        for (int i : order) {
+            sum += a[i].ordinal();
+        }
+        return sum;
+    }
+
+    private static void setRandom(Chunk c, int[] order) {
+        for (int i : order) {
+            c.set(i & 15, i >>> 8, (i >>> 4) & 15, SET_TYPES[i & 3]);
+        }
+    }
+
+    private static void setRandom(BlockType[] a, int[] order) {
+        for (int i : order) {
+            a[i] = SET_TYPES[i & 3];
+        }
+    }
+
+    private static String nsPerOp(long nanos, double ops) {
+        return String.format("%.2f", nanos / ops);
+    }
+}
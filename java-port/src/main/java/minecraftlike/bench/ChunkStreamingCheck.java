@@ -0,0 +1,177 @@
+package minecraftlike.bench;
+
+import minecraftlike.voxel.BlockType;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.ChunkGenScheduler;
+import minecraftlike.voxel.ChunkStore;
+import minecraftlike.voxel.ChunkStreamer;
+import minecraftlike.voxel.LightEngine;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Headless check of ChunkStreamer (no renderer): a camera walks WALK chunks along +X and back. With a
+ * zero budget nothing outside the keep radius stays resident; with a budget the resident bytes stay
+ * under it and match the chunks' own count; everything inside the load radius is loaded at each step; an edit made at the start
+ * survives its chunk's eviction and comes back from the store. Moving away while the workers are busy and
+ * straight back leaves no holes, and eviction works without a store. Prints resident chunks and bytes along
+ * the walk. Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=ChunkStreamingCheck
+ */
+public final class ChunkStreamingCheck {
+    private static final int LOAD = 4;
+    private static final int RENDER = 3;
+    private static final int KEEP = 6;
+    private static final int WALK = 24;
+    private static final long BUDGET = 2L * 1024 * 1024;
+
+    private ChunkStreamingCheck() {}
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("streaming-check");
+        try {
+            run(dir);
+            awayAndBack();
+            withoutStore();
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+        Checks.finish();
+    }
+
+    private static void run(Path dir) {
+        WorldGen gen = new WorldGen(1337L);
+        for (long budget : new long[] { 0L, BUDGET }) {
+            System.out.printf("chunk budget %.0f MiB%n", budget / 1048576.0);
+            World world = new World();
+            LightEngine light = new LightEngine(world);
+            try (ChunkStore store = new ChunkStore(dir);
+                 ChunkGenScheduler scheduler = new ChunkGenScheduler(world, gen, store, 1)) {
+                ChunkStreamer streamer = new ChunkStreamer(world, scheduler, light, store, null);
+                streamer.setRadii(LOAD, RENDER, KEEP);
+                streamer.setBudgets(budget, 0L);
+
+                settle(streamer, scheduler, 0);
+                int y = Chunk.HEIGHT - 8;
+                if (budget == 0L) {
+                    world.setBlock(8, y, 8, BlockType.PLANKS);
+                    light.blockChanged(8, y, 8);
+                }
+                int missing = 0;
+                int beyondKeep = 0;
+                int overBudget = 0;
+                int miscounted = 0;
+                int maxResident = 0;
+                long maxBytes = 0;
+                for (int step = 1; step <= 2 * WALK; step++) {
+                    int cx = step <= WALK ? step : 2 * WALK - step;
+                    settle(streamer, scheduler, cx);
+                    missing += countMissing(world, cx);
+                    beyondKeep += countBeyond(world, cx, KEEP);
+                    if (budget > 0 && streamer.residentChunkBytes() > budget) overBudget++;
+                    if (streamer.residentChunkBytes() != totalBytes(world)) miscounted++;
+                    maxResident = Math.max(maxResident, streamer.residentChunks());
+                    maxBytes = Math.max(maxBytes, streamer.residentChunkBytes());
+                    if (step % 8 == 0) System.out.printf("  step %2d at chunk %2d: %s%n", step, cx, streamer.report());
+                    if (budget == 0L && step == WALK) Checks.expectTrue("evicted", world.getChunk(0, 0) == null);
+                }
+                Checks.expect("missing", missing, 0);
+                if (budget == 0L) {
+                    Checks.expect("beyond keep", beyondKeep, 0);
+                } else {
+                    Checks.expect("over budget", overBudget, 0);
+                }
+                Checks.expect("byte total", miscounted, 0);
+                Checks.expectTrue("edit kept", world.getBlock(8, y, 8) == BlockType.PLANKS);
+                System.out.printf("  max resident: %d chunks, %.1f MiB%n", maxResident, maxBytes / 1048576.0);
+                streamer.saveAll();
+            }
+        }
+    }
+
+    // Without a store evicted chunks are just dropped.
+    private static void withoutStore() {
+        System.out.println("no store");
+        World world = new World();
+        LightEngine light = new LightEngine(world);
+        try (ChunkGenScheduler scheduler = new ChunkGenScheduler(world, new WorldGen(1337L), 1)) {
+            ChunkStreamer streamer = new ChunkStreamer(world, scheduler, light, null, null);
+            streamer.setRadii(LOAD, RENDER, KEEP);
+            streamer.setBudgets(0L, 0L);
+            int beyondKeep = 0;
+            for (int cx = 0; cx <= WALK / 2; cx++) {
+                settle(streamer, scheduler, cx);
+                beyondKeep += countBeyond(world, cx, KEEP);
+            }
+            Checks.expect("beyond keep", beyondKeep, 0);
+            Checks.expect("saved", streamer.saveAll(), 0);
+        }
+    }
+
+    // Moving away while the workers are busy and straight back must not leave holes or stuck requests.
+    private static void awayAndBack() {
+        System.out.println("away and back mid-generation");
+        World world = new World();
+        try (ChunkGenScheduler scheduler = new ChunkGenScheduler(world, new WorldGen(1337L), 4)) {
+            float home = Chunk.SIZE * 0.5f;
+            float away = 100 * Chunk.SIZE + home;
+            scheduler.updateCenter(home, home, LOAD, LOAD);
+            LockSupport.parkNanos(20_000_000L); // let the workers start on the nearest chunks
+            scheduler.updateCenter(away, home, LOAD, LOAD);
+            scheduler.integrate(null);
+            scheduler.updateCenter(home, home, LOAD, LOAD);
+            long deadline = System.nanoTime() + 30_000_000_000L;
+            while (scheduler.pendingCount() > 0 && System.nanoTime() < deadline) {
+                scheduler.updateCenter(home, home, LOAD, LOAD);
+                if (scheduler.integrate(null) == 0) LockSupport.parkNanos(200_000L);
+            }
+            Checks.expect("missing", countMissing(world, 0), 0);
+            Checks.expect("stuck", scheduler.pendingCount(), 0);
+        }
+    }
+
+    // Updates with the camera in the middle of chunk (cx, 0) until everything requested has arrived.
+    private static void settle(ChunkStreamer streamer, ChunkGenScheduler scheduler, int cx) {
+        float x = cx * Chunk.SIZE + Chunk.SIZE * 0.5f;
+        float z = Chunk.SIZE * 0.5f;
+        streamer.update(x, z);
+        while (scheduler.pendingCount() > 0) {
+            if (streamer.update(x, z) == 0) LockSupport.parkNanos(200_000L);
+        }
+        streamer.update(x, z);
+    }
+
+    private static int countMissing(World world, int cx) {
+        int n = 0;
+        for (int dz = -LOAD; dz <= LOAD; dz++) {
+            for (int dx = -LOAD; dx <= LOAD; dx++) {
+                if (dx * dx + dz * dz <= LOAD * LOAD && world.getChunk(cx + dx, dz) == null) n++;
+            }
+        }
+        return n;
+    }
+
+    private static long totalBytes(World world) {
+        long[] n = new long[1];
+        world.forEachChunk(c -> n[0] += c.memoryBytes());
+        return n[0];
+    }
+
+    private static int countBeyond(World world, int cx, int radius) {
+        int[] n = new int[1];
+        world.forEachChunk(c -> {
+            long dx = c.cx - cx;
+            if (dx * dx + (long) c.cz * c.cz > (long) radius * radius) n[0]++;
+        });
+        return n[0];
+    }
+}
@@ -0,0 +1,213 @@
+package minecraftlike.bench;
+
+import minecraftlike.engine.Diagnostics;
+import minecraftlike.voxel.BlockType;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.ChunkStore;
+import minecraftlike.voxel.EditJournal;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Headless check of the edit journal: edits made through it survive a simulated crash (store and
+ * journal abandoned without saving or closing) by replay, also with a torn record at the end of the
+ * segment; a compaction saves the edited chunks and deletes the sealed segment, so only later edits are
+ * replayed; an unreadable region record is replayed onto a regenerated chunk; a failed segment switch
+ * stops the journal and sync() / record() report it instead of claiming durability. Prints group commit vs fsync-per-edit throughput. Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=EditJournalCheck
+ */
+public final class EditJournalCheck {
+    private static final int RADIUS = 2; // chunks -2..1
+    private static final int EDITS = 2000;
+    private static final int SYNCED_EDITS = 200;
+    private static final int GROUPED_EDITS = 200_000;
+
+    private EditJournalCheck() {}
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("journal-check");
+        try {
+            run(dir);
+            unreadable(Files.createDirectory(dir.resolve("unreadable")));
+            failed(Files.createDirectory(dir.resolve("failed")));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+        Checks.finish();
+    }
+
+    private static void run(Path dir) throws IOException {
+        WorldGen gen = new WorldGen(1337L);
+        World world = generate(gen);
+        Random r = new Random(3L);
+
+        // Edits journaled but never saved; then "crash" with a torn record at the end.
+        ChunkStore store = new ChunkStore(dir);
+        EditJournal journal = new EditJournal(store, gen);
+        for (int i = 0; i < EDITS; i++) randomEdit(journal, world, r);
+        journal.sync();
+        Checks.expect("nothing saved", store.pendingWrites() + regionFiles(dir), 0);
+        Files.write(segment(dir), new byte[16], StandardOpenOption.APPEND);
+
+        store = new ChunkStore(dir);
+        journal = new EditJournal(store, gen);
+        Checks.expect("replayed", journal.replayed(), EDITS);
+        Checks.expect("after replay", compareSaved(world, store), 0);
+        Checks.expect("old segments", segments(dir), 1);
+
+        // Compaction: edit, compact, edit a few more, crash; only the later ones are replayed.
+        journal.setCompactBytes(1024);
+        for (int i = 0; i < EDITS; i++) randomEdit(journal, world, r);
+        Checks.expect("compacting", journal.maintain(world) ? 1 : 0, 1);
+        for (int i = 0; i < 10; i++) randomEdit(journal, world, r);
+        journal.sync();
+        while (journal.isCompacting()) Thread.onSpinWait();
+        Checks.expect("sealed deleted", segments(dir), 1);
+
+        store = new ChunkStore(dir);
+        journal = new EditJournal(store, gen);
+        Checks.expect("replayed after", journal.replayed(), 10);
+        Checks.expect("after compact", compareSaved(world, store), 0);
+
+        throughput(journal, world, r);
+        journal.close();
+        store.close();
+    }
+
+    // A journaled edit to a chunk whose region record was damaged after the crash: the replay logs the
+    // bad record, regenerates the chunk and saves it with the edit.
+    private static void unreadable(Path dir) throws IOException {
+        WorldGen gen = new WorldGen(1337L);
+        World world = generate(gen);
+        ChunkStore store = new ChunkStore(dir);
+        store.save(world.getChunk(0, 0));
+        store.flush();
+        EditJournal journal = new EditJournal(store, gen);
+        int y = Chunk.HEIGHT - 8;
+        journal.setBlock(world, 8, y, 8, BlockType.PLANKS);
+        journal.sync();
+        // Chunk (0,0) is header entry 0 of r.0.0.region; break the compression byte of its record.
+        try (FileChannel ch = FileChannel.open(dir.resolve("r.0.0.region"), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            ch.read(header, 0);
+            long record = (long) (header.getInt(0) >>> 8) * 4096;
+            ch.write(ByteBuffer.wrap(new byte[] { 0 }), record + 4);
+        }
+
+        store = new ChunkStore(dir);
+        journal = new EditJournal(store, gen);
+        Checks.expect("replayed unreadable", journal.replayed(), 1);
+        Chunk c = store.load(0, 0);
+        Checks.expectTrue("edit regenerated", c != null && c.get(8, y, 8) == BlockType.PLANKS);
+        journal.close();
+        store.close();
+    }
+
+    // The next segment's file already exists, so the seal of a compaction cannot create it.
+    private static void failed(Path dir) throws IOException {
+        WorldGen gen = new WorldGen(1337L);
+        World world = generate(gen);
+        ChunkStore store = new ChunkStore(dir);
+        EditJournal journal = new EditJournal(store, gen);
+        Random r = new Random(5L);
+        randomEdit(journal, world, r);
+        Checks.expectTrue("synced", journal.sync());
+        Files.createFile(dir.resolve("edits.1.journal"));
+        Checks.expectTrue("compacting", journal.compact(world));
+        randomEdit(journal, world, r);
+        Checks.expectTrue("sync after failure", !journal.sync());
+        Checks.expectTrue("failure kept", journal.failure() != null);
+        Checks.expectTrue("record refused", !journal.record(0, 64, 0, BlockType.AIR, BlockType.STONE));
+        journal.close();
+        store.close();
+    }
+
+    private static void throughput(EditJournal journal, World world, Random r) {
+        journal.setCompactBytes(Long.MAX_VALUE);
+        long commits0 = Diagnostics.counters().getOrDefault("journal.commits", 0L);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < SYNCED_EDITS; i++) {
+            randomEdit(journal, world, r);
+            journal.sync();
+        }
+        long t1 = System.nanoTime();
+        long commits1 = Diagnostics.counters().getOrDefault("journal.commits", 0L);
+        for (int i = 0; i < GROUPED_EDITS; i++) randomEdit(journal, world, r);
+        journal.sync();
+        long t2 = System.nanoTime();
+        long commits2 = Diagnostics.counters().getOrDefault("journal.commits", 0L);
+        System.out.printf("fsync per edit: %8.0f edits/s (%d commits)%n", SYNCED_EDITS / ((t1 - t0) / 1e9), commits1 - commits0);
+        System.out.printf("group commit:   %8.0f edits/s (%d commits, %.0f edits/commit)%n",
+            GROUPED_EDITS / ((t2 - t1) / 1e9), commits2 - commits1, GROUPED_EDITS / (double) Math.max(1, commits2 - commits1));
+    }
+
+    private static World generate(WorldGen gen) {
+        World world = new World();
+        for (int cz = -RADIUS; cz < RADIUS; cz++) {
+            for (int cx = -RADIUS; cx < RADIUS; cx++) gen.generateChunk(world.getOrCreateChunk(cx, cz));
+        }
+        return world;
+    }
+
+    private static void randomEdit(EditJournal journal, World world, Random r) {
+        BlockType[] types = BlockType.values();
+        int span = 2 * RADIUS * Chunk.SIZE;
+        while (journal.setBlock(world, r.nextInt(span) - span / 2, 40 + r.nextInt(100), r.nextInt(span) - span / 2,
+            types[r.nextInt(types.length)]) == null) {
+            // same block: pick another
+        }
+    }
+
+    // Blocks that differ between the world and the store (a chunk missing from the store counts as one).
+    private static int compareSaved(World world, ChunkStore store) {
+        int n = 0;
+        for (int cz = -RADIUS; cz < RADIUS; cz++) {
+            for (int cx = -RADIUS; cx < RADIUS; cx++) {
+                Chunk a = world.getChunk(cx, cz);
+                Chunk b = store.load(cx, cz);
+                if (b == null) {
+                    n++;
+                    continue;
+                }
+                for (int y = 0; y < Chunk.HEIGHT; y++) {
+                    for (int z = 0; z < Chunk.SIZE; z++) {
+                        for (int x = 0; x < Chunk.SIZE; x++) {
+                            if (a.get(x, y, z) != b.get(x, y, z)) n++;
+                        }
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    private static Path segment(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".journal")).findFirst().orElseThrow();
+        }
+    }
+
+    private static int segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return (int) files.filter(p -> p.getFileName().toString().endsWith(".journal")).count();
+        }
+    }
+
+    private static int regionFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return (int) files.filter(p -> p.getFileName().toString().endsWith(".region")).count();
+        }
+    }
+}
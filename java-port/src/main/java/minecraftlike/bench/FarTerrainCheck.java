@@ -0,0 +1,141 @@
+package minecraftlike.bench;
+
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.FarTerrainTiles;
+import minecraftlike.voxel.WorldGen;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Headless check of the far-terrain tiles: the selected quadtree leaves cover every point between the
+ * near square and the view distance exactly once, tile vertices sit on WorldGen.terrainHeight with the
+ * generator's rock rule, and a moving camera only swaps a few tiles per step. Prints tile counts, build
+ * time and vertex memory against the chunks the same area would take. Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=FarTerrainCheck
+ */
+public final class FarTerrainCheck {
+    private static final float NEAR_RADIUS = 12 * Chunk.SIZE;
+    private static final float VIEW_DISTANCE = 3072.0f;
+    private static final int SAMPLE_STEP = 8;
+    private static final int WALK_STEPS = 64;
+    private static final int ROUNDS = 4; // builds of the whole selection, the first half warms up
+
+    private FarTerrainCheck() {}
+
+    public static void main(String[] args) {
+        WorldGen gen = new WorldGen(1337L);
+        FarTerrainTiles tiles = new FarTerrainTiles(gen);
+
+        // Coverage around an off-grid camera position.
+        float camX = 123.5f;
+        float camZ = -77.25f;
+        tiles.select(camX, camZ, NEAR_RADIUS, VIEW_DISTANCE);
+        int count = tiles.selectedCount();
+        long[] keys = tiles.selected().clone();
+        int gaps = 0;
+        int overlaps = 0;
+        int r = (int) VIEW_DISTANCE;
+        for (int dz = -r; dz <= r; dz += SAMPLE_STEP) {
+            for (int dx = -r; dx <= r; dx += SAMPLE_STEP) {
+                float px = camX + dx + 0.5f;
+                float pz = camZ + dz + 0.5f;
+                boolean near = Math.max(Math.abs(px - camX), Math.abs(pz - camZ)) < NEAR_RADIUS;
+                boolean inRange = (px - camX) * (px - camX) + (pz - camZ) * (pz - camZ) < VIEW_DISTANCE * VIEW_DISTANCE;
+                int hits = 0;
+                for (int i = 0; i < count; i++) {
+                    if (contains(keys[i], px, pz)) hits++;
+                }
+                if (hits > 1) overlaps++;
+                if (hits == 0 && inRange && !near) gaps++;
+            }
+        }
+        Checks.expect("gaps", gaps, 0);
+        Checks.expect("overlaps", overlaps, 0);
+        int[] perLevel = new int[FarTerrainTiles.LEVELS];
+        for (int i = 0; i < count; i++) perLevel[FarTerrainTiles.level(keys[i])]++;
+        StringBuilder levels = new StringBuilder();
+        for (int l = 0; l < perLevel.length; l++) levels.append(l == 0 ? "" : " ").append(perLevel[l]);
+        System.out.println("tiles " + count + " (per level " + levels + ")");
+
+        // Vertex heights and materials against the generator.
+        ByteBuffer out = ByteBuffer.allocateDirect(FarTerrainTiles.VERTICES * FarTerrainTiles.BYTES_PER_VERTEX)
+            .order(ByteOrder.nativeOrder());
+        int wrongHeight = 0;
+        int wrongMaterial = 0;
+        int wrongSkirt = 0;
+        for (int i = 0; i < count; i += 7) {
+            out.clear();
+            tiles.build(keys[i], out);
+            int depth = FarTerrainTiles.skirtDepth(FarTerrainTiles.level(keys[i]));
+            for (int v = 0; v < FarTerrainTiles.VERTICES; v++) {
+                int p = v * FarTerrainTiles.BYTES_PER_VERTEX;
+                int x = (int) out.getFloat(p);
+                int z = (int) out.getFloat(p + 8);
+                int h = gen.terrainHeight(x, z);
+                float y = out.getFloat(p + 4);
+                if (v < FarTerrainTiles.GRID_VERTICES) {
+                    if (y != h + 1) wrongHeight++;
+                    if ((out.get(p + 15) != 0) != gen.isRocky(x, z, h)) wrongMaterial++;
+                } else if (y != h + 1 - depth) {
+                    wrongSkirt++;
+                }
+            }
+        }
+        Checks.expect("heights", wrongHeight, 0);
+        Checks.expect("materials", wrongMaterial, 0);
+        Checks.expect("skirts", wrongSkirt, 0);
+
+        // Camera walking one chunk per step: tiles entering the selection per step.
+        Set<Long> previous = new HashSet<>();
+        for (int i = 0; i < count; i++) previous.add(keys[i]);
+        long entered = 0;
+        int maxEntered = 0;
+        for (int step = 1; step <= WALK_STEPS; step++) {
+            tiles.select(camX + step * Chunk.SIZE, camZ + step * 0.5f * Chunk.SIZE, NEAR_RADIUS, VIEW_DISTANCE);
+            Set<Long> now = new HashSet<>();
+            int fresh = 0;
+            for (int i = 0; i < tiles.selectedCount(); i++) {
+                long k = tiles.selected()[i];
+                now.add(k);
+                if (!previous.contains(k)) fresh++;
+            }
+            entered += fresh;
+            maxEntered = Math.max(maxEntered, fresh);
+            previous = now;
+        }
+        System.out.printf("walk: %.1f new tiles/chunk step (max %d)%n", entered / (double) WALK_STEPS, maxEntered);
+
+        // Build cost and memory.
+        tiles.select(camX, camZ, NEAR_RADIUS, VIEW_DISTANCE);
+        long nanos = 0;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                out.clear();
+                tiles.build(keys[i], out);
+                sink += out.getFloat(4 + FarTerrainTiles.BYTES_PER_VERTEX * (i % FarTerrainTiles.VERTICES)) > 0 ? 1 : 0;
+            }
+            if (round >= ROUNDS / 2) nanos += System.nanoTime() - t0;
+        }
+        long tileBytes = (long) FarTerrainTiles.VERTICES * FarTerrainTiles.BYTES_PER_VERTEX;
+        double area = Math.PI * VIEW_DISTANCE * VIEW_DISTANCE - 4.0 * NEAR_RADIUS * NEAR_RADIUS;
+        System.out.printf("build: %.2f ms/tile, %.1f KiB/tile, %.1f MiB total (+%d KiB shared indices)%n",
+            nanos / 1e6 / (count * (ROUNDS - ROUNDS / 2)), tileBytes / 1024.0, count * tileBytes / 1048576.0,
+            FarTerrainTiles.INDICES * 2 / 1024);
+        System.out.printf("same area as chunks: %.0f chunks%n", area / (Chunk.SIZE * Chunk.SIZE));
+        System.out.println("(sink " + sink + ")");
+
+        Checks.finish();
+    }
+
+    private static boolean contains(long key, float x, float z) {
+        int size = FarTerrainTiles.tileSize(FarTerrainTiles.level(key));
+        float x0 = FarTerrainTiles.tileX(key) * (float) size;
+        float z0 = FarTerrainTiles.tileZ(key) * (float) size;
+        return x >= x0 && x < x0 + size && z >= z0 && z < z0 + size;
+    }
+}
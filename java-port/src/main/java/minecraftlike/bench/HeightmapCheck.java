@@ -0,0 +1,92 @@
+package minecraftlike.bench;
+
+import minecraftlike.voxel.BlockType;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.LightEngine;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+import java.util.Random;
+
+/**
+ * Headless check of the per-chunk heightmaps: after generation and random block edits (digging,
+ * building, leaves, torches), World.surfaceY / skyBlockerY must match a top-down column scan for
+ * every column, and an unlit chunk's light must follow the sky heightmap. Prints the cost of the
+ * O(1) lookup against the column scan it replaces. Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=HeightmapCheck
+ */
+public final class HeightmapCheck {
+    private static final int RADIUS = 2;
+    private static final int EDITS = 20_000;
+    private static final int QUERIES = 2_000_000;
+
+    private HeightmapCheck() {}
+
+    public static void main(String[] args) {
+        WorldGen gen = new WorldGen(1337L);
+        World world = new World();
+        for (int cz = -RADIUS; cz <= RADIUS; cz++) {
+            for (int cx = -RADIUS; cx <= RADIUS; cx++) gen.generateChunk(world.getOrCreateChunk(cx, cz));
+        }
+        Checks.expect("generated", mismatches(world), 0);
+
+        Random rnd = new Random(11);
+        BlockType[] palette = { BlockType.AIR, BlockType.AIR, BlockType.STONE, BlockType.LEAVES, BlockType.TORCH, BlockType.TALL_GRASS };
+        int min = -RADIUS * Chunk.SIZE;
+        int span = (2 * RADIUS + 1) * Chunk.SIZE;
+        for (int i = 0; i < EDITS; i++) {
+            int x = min + rnd.nextInt(span);
+            int z = min + rnd.nextInt(span);
+            int y = Math.max(0, world.surfaceY(x, z) + rnd.nextInt(5) - 2);
+            world.setBlock(x, y, z, palette[rnd.nextInt(palette.length)]);
+        }
+        Checks.expect("after edits", mismatches(world), 0);
+
+        // Unlit chunk: sky light straight from the heightmap (15 above the blocker, 0 below).
+        Chunk c = world.getOrCreateChunk(RADIUS + 1, 0);
+        c.set(3, 60, 3, BlockType.STONE);
+        c.set(3, 40, 3, BlockType.LEAVES);
+        Checks.expect("above blocker", c.getSkyLight(3, 61, 3), LightEngine.MAX_LEVEL);
+        Checks.expect("below blocker", c.getSkyLight(3, 59, 3), 0);
+        c.set(3, 60, 3, BlockType.AIR);
+        Checks.expect("blocker removed", c.getSkyLight(3, 59, 3), LightEngine.MAX_LEVEL);
+        Checks.expect("under leaves", c.getSkyLight(3, 39, 3), 0);
+
+        long sum = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) sum += scanSurface(world, min + (i * 7) % span, min + (i * 13) % span);
+        long t1 = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) sum -= world.surfaceY(min + (i * 7) % span, min + (i * 13) % span);
+        long t2 = System.nanoTime();
+        Checks.expect("scan == lookup", (int) sum, 0);
+        System.out.printf("surface query: column scan %.1f ns, heightmap %.1f ns%n",
+            (t1 - t0) / (double) QUERIES, (t2 - t1) / (double) QUERIES);
+
+        Checks.finish();
+    }
+
+    private static int mismatches(World world) {
+        int n = 0;
+        for (int x = -RADIUS * Chunk.SIZE; x < (RADIUS + 1) * Chunk.SIZE; x++) {
+            for (int z = -RADIUS * Chunk.SIZE; z < (RADIUS + 1) * Chunk.SIZE; z++) {
+                if (world.surfaceY(x, z) != scanSurface(world, x, z)) n++;
+                if (world.skyBlockerY(x, z) != scanSkyBlocker(world, x, z)) n++;
+            }
+        }
+        return n;
+    }
+
+    private static int scanSurface(World world, int x, int z) {
+        for (int y = Chunk.HEIGHT - 1; y >= 0; y--) {
+            if (world.getBlock(x, y, z) != BlockType.AIR) return y;
+        }
+        return -1;
+    }
+
+    private static int scanSkyBlocker(World world, int x, int z) {
+        for (int y = Chunk.HEIGHT - 1; y >= 0; y--) {
+            if (LightEngine.opacity(world.getBlock(x, y, z)) > 0) return y;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,95 @@
+package minecraftlike.bench;
+
+import minecraftlike.engine.Camera;
+import minecraftlike.engine.LightClusters;
+import org.joml.Matrix4f;
+
+import java.util.Random;
+
+/**
+ * Headless check of the clustered light lists: for random points inside the view frustum, every
+ * light whose radius reaches the point must be listed in the point's cluster (found the same way
+ * voxel.frag does). Also prints how many lights a fragment evaluates on average and the build time.
+ * Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=LightClusterCheck
+ */
+public final class LightClusterCheck {
+    private static final int LIGHTS = 2000;
+    private static final int SAMPLES = 200_000;
+    private static final float FOV_Y = (float) Math.toRadians(70.0);
+    private static final float ASPECT = 16.0f / 9.0f;
+    private static final float NEAR = 0.05f;
+    private static final float FAR = 300.0f;
+
+    private LightClusterCheck() {}
+
+    public static void main(String[] args) {
+        Random rnd = new Random(42);
+        float[] x = new float[LIGHTS];
+        float[] y = new float[LIGHTS];
+        float[] z = new float[LIGHTS];
+        float[] r = new float[LIGHTS];
+        for (int i = 0; i < LIGHTS; i++) {
+            x[i] = rnd.nextFloat() * 240.0f - 120.0f;
+            y[i] = 30.0f + rnd.nextFloat() * 40.0f;
+            z[i] = rnd.nextFloat() * 240.0f - 120.0f;
+            r[i] = 4.0f + rnd.nextFloat() * 8.0f;
+        }
+
+        Camera camera = new Camera();
+        camera.position.set(3.0f, 52.0f, -7.0f);
+        camera.yaw = 35.0f;
+        camera.pitch = 12.0f;
+        Matrix4f view = camera.viewMatrix();
+        Matrix4f inv = new Matrix4f(view).invert();
+
+        LightClusters clusters = new LightClusters();
+        for (int b = 0; b < 20; b++) clusters.build(view, FOV_Y, ASPECT, NEAR, FAR, x, y, z, r, LIGHTS); // warm-up
+        long t0 = System.nanoTime();
+        int builds = 100;
+        for (int b = 0; b < builds; b++) clusters.build(view, FOV_Y, ASPECT, NEAR, FAR, x, y, z, r, LIGHTS);
+        long t1 = System.nanoTime();
+
+        float tanY = (float) Math.tan(FOV_Y * 0.5f);
+        float tanX = tanY * ASPECT;
+        int missing = 0;
+        long listed = 0;
+        long reaching = 0;
+        float[] p = new float[3];
+        for (int k = 0; k < SAMPLES; k++) {
+            // Random point in the frustum (view space), then back to world space.
+            float ndcX = rnd.nextFloat() * 2.0f - 1.0f;
+            float ndcY = rnd.nextFloat() * 2.0f - 1.0f;
+            float depth = NEAR + (float) Math.pow(rnd.nextFloat(), 2.0) * (120.0f - NEAR);
+            toWorld(inv, ndcX * tanX * depth, ndcY * tanY * depth, -depth, p);
+
+            int tx = Math.min(LightClusters.TILES_X - 1, (int) ((ndcX * 0.5f + 0.5f) * LightClusters.TILES_X));
+            int ty = Math.min(LightClusters.TILES_Y - 1, (int) ((ndcY * 0.5f + 0.5f) * LightClusters.TILES_Y));
+            int c = LightClusters.clusterIndex(tx, ty, clusters.slice(depth));
+            int off = clusters.offset(c);
+            int n = clusters.count(c);
+            listed += n;
+            for (int i = 0; i < LIGHTS; i++) {
+                float dx = x[i] - p[0], dy = y[i] - p[1], dz = z[i] - p[2];
+                if (dx * dx + dy * dy + dz * dz >= r[i] * r[i]) continue;
+                reaching++;
+                boolean found = false;
+                for (int j = 0; j < n && !found; j++) found = clusters.indices()[off + j] == i;
+                if (!found) missing++;
+            }
+        }
+
+        System.out.printf("%d lights, %d clusters: %.2f ms per build, %d list entries%n",
+            LIGHTS, LightClusters.CLUSTERS, (t1 - t0) / 1e6 / builds, clusters.indexCount());
+        System.out.printf("per fragment: %.2f lights evaluated (was min(count, 32) = 32), %.2f actually reach it%n",
+            listed / (double) SAMPLES, reaching / (double) SAMPLES);
+        Checks.expect("missing lights", missing, 0);
+        Checks.finish();
+    }
+
+    private static void toWorld(Matrix4f inv, float vx, float vy, float vz, float[] out) {
+        out[0] = inv.m00() * vx + inv.m10() * vy + inv.m20() * vz + inv.m30();
+        out[1] = inv.m01() * vx + inv.m11() * vy + inv.m21() * vz + inv.m31();
+        out[2] = inv.m02() * vx + inv.m12() * vy + inv.m22() * vz + inv.m32();
+    }
+}
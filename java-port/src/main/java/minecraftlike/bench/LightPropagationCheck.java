@@ -0,0 +1,171 @@
+package minecraftlike.bench;
+
+import minecraftlike.voxel.BlockType;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.LightEngine;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+import java.util.Random;
+
+/**
+ * Headless check of the flood-fill light engine: torch falloff (also across a chunk border), torch
+ * removal, skylight under an overhang, and random block edits on generated terrain whose incremental
+ * result must equal lighting the final world from scratch. Prints the lighting cost per chunk and per
+ * edit. Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=LightPropagationCheck
+ */
+public final class LightPropagationCheck {
+    private static final int FLOOR = 40;
+    private static final int RADIUS = 2;
+    private static final int EDITS = 5000;
+
+    private LightPropagationCheck() {}
+
+    public static void main(String[] args) {
+        // Flat stone floor over 2x1 chunks, open sky above.
+        World world = new World();
+        LightEngine light = new LightEngine(world);
+        for (int cx = 0; cx <= 1; cx++) {
+            Chunk c = world.getOrCreateChunk(cx, 0);
+            for (int y = 0; y <= FLOOR; y++) {
+                for (int z = 0; z < Chunk.SIZE; z++) {
+                    for (int x = 0; x < Chunk.SIZE; x++) c.set(x, y, z, BlockType.STONE);
+                }
+            }
+            light.lightChunk(cx, 0);
+        }
+        int y = FLOOR + 1;
+        Checks.expect("open sky", "level", sky(world, 5, y, 5), 15);
+        Checks.expect("in floor", "level", sky(world, 5, FLOOR, 5), 0);
+
+        // Torch next to the chunk border: one level less per block, in both chunks.
+        world.setBlock(14, y, 8, BlockType.TORCH);
+        light.blockChanged(14, y, 8);
+        Checks.expect("torch", "level", block(world, 14, y, 8), LightEngine.TORCH_LEVEL);
+        Checks.expect("3 blocks", "level", block(world, 11, y, 8), LightEngine.TORCH_LEVEL - 3);
+        Checks.expect("across border", "level", block(world, 17, y, 8), LightEngine.TORCH_LEVEL - 3);
+        Checks.expect("diagonal", "level", block(world, 16, y + 1, 6), LightEngine.TORCH_LEVEL - 5);
+        // A 3-high wall between torch and cell: the light has to go over it (9 steps).
+        for (int wy = y; wy < y + 3; wy++) {
+            for (int wz = 5; wz <= 11; wz++) {
+                world.setBlock(12, wy, wz, BlockType.STONE);
+                light.blockChanged(12, wy, wz);
+            }
+        }
+        Checks.expect("behind wall", "level", block(world, 11, y, 8), LightEngine.TORCH_LEVEL - 9);
+        world.setBlock(14, y, 8, BlockType.AIR);
+        light.blockChanged(14, y, 8);
+        Checks.expect("torch removed", "level", litCells(world, 0, 1), 0);
+
+        // 7x7 roof three blocks above the floor: sky light creeps in from the sides.
+        for (int z = 2; z <= 8; z++) {
+            for (int x = 2; x <= 8; x++) {
+                world.setBlock(x, y + 3, z, BlockType.STONE);
+                light.blockChanged(x, y + 3, z);
+            }
+        }
+        Checks.expect("under roof edge", "level", sky(world, 2, y, 5), 14);
+        Checks.expect("under roof centre", "level", sky(world, 5, y, 5), 11);
+        Checks.expect("beside roof", "level", sky(world, 1, y, 5), 15);
+        world.setBlock(5, y + 3, 5, BlockType.AIR);
+        light.blockChanged(5, y + 3, 5);
+        Checks.expect("roof hole", "level", sky(world, 5, y, 5), 15);
+
+        // Generated terrain, then random edits; compared against lighting the result from scratch.
+        WorldGen gen = new WorldGen(1337L);
+        world = new World();
+        light = new LightEngine(world);
+        int chunks = 0;
+        long chunkNanos = 0;
+        for (int cz = -RADIUS; cz <= RADIUS; cz++) {
+            for (int cx = -RADIUS; cx <= RADIUS; cx++) {
+                gen.generateChunk(world.getOrCreateChunk(cx, cz));
+                long c0 = System.nanoTime();
+                light.lightChunk(cx, cz);
+                chunkNanos += System.nanoTime() - c0;
+                chunks++;
+            }
+        }
+
+        Random rnd = new Random(7);
+        BlockType[] palette = { BlockType.AIR, BlockType.AIR, BlockType.STONE, BlockType.LEAVES, BlockType.TORCH };
+        int span = (2 * RADIUS + 1) * Chunk.SIZE;
+        long editNanos = 0;
+        for (int i = 0; i < EDITS; i++) {
+            int wx = -RADIUS * Chunk.SIZE + rnd.nextInt(span);
+            int wz = -RADIUS * Chunk.SIZE + rnd.nextInt(span);
+            int wy = surface(world, wx, wz) + rnd.nextInt(7) - 3;
+            world.setBlock(wx, wy, wz, palette[rnd.nextInt(palette.length)]);
+            long e0 = System.nanoTime();
+            light.blockChanged(wx, wy, wz);
+            editNanos += System.nanoTime() - e0;
+        }
+
+        World fresh = new World();
+        LightEngine freshLight = new LightEngine(fresh);
+        for (int cz = -RADIUS; cz <= RADIUS; cz++) {
+            for (int cx = -RADIUS; cx <= RADIUS; cx++) {
+                Chunk src = world.getChunk(cx, cz);
+                Chunk dst = fresh.getOrCreateChunk(cx, cz);
+                for (int by = 0; by < Chunk.HEIGHT; by++) {
+                    for (int z = 0; z < Chunk.SIZE; z++) {
+                        for (int x = 0; x < Chunk.SIZE; x++) dst.set(x, by, z, src.get(x, by, z));
+                    }
+                }
+                freshLight.lightChunk(cx, cz);
+            }
+        }
+        int mismatches = 0;
+        for (int cz = -RADIUS; cz <= RADIUS; cz++) {
+            for (int cx = -RADIUS; cx <= RADIUS; cx++) {
+                Chunk a = world.getChunk(cx, cz);
+                Chunk b = fresh.getChunk(cx, cz);
+                for (int by = 0; by < Chunk.HEIGHT; by++) {
+                    for (int z = 0; z < Chunk.SIZE; z++) {
+                        for (int x = 0; x < Chunk.SIZE; x++) {
+                            if (a.getLight(x, by, z) != b.getLight(x, by, z)) mismatches++;
+                        }
+                    }
+                }
+            }
+        }
+        Checks.expect("edits vs full", "level", mismatches, 0);
+
+        System.out.printf("terrain %d chunks: %.2f ms per chunk, %d edits: %.1f us per edit%n",
+            chunks, chunkNanos / 1e6 / chunks, EDITS, editNanos / 1e3 / EDITS);
+
+        Checks.finish();
+    }
+
+    private static int sky(World world, int x, int y, int z) {
+        return world.getChunk(x >> 4, z >> 4).getSkyLight(x & 15, y, z & 15);
+    }
+
+    private static int block(World world, int x, int y, int z) {
+        return world.getChunk(x >> 4, z >> 4).getBlockLight(x & 15, y, z & 15);
+    }
+
+    // Cells with any block light in chunks (cx0..cx1, 0).
+    private static int litCells(World world, int cx0, int cx1) {
+        int n = 0;
+        for (int cx = cx0; cx <= cx1; cx++) {
+            Chunk c = world.getChunk(cx, 0);
+            for (int y = 0; y < Chunk.HEIGHT; y++) {
+                for (int z = 0; z < Chunk.SIZE; z++) {
+                    for (int x = 0; x < Chunk.SIZE; x++) {
+                        if (c.getBlockLight(x, y, z) > 0) n++;
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    private static int surface(World world, int x, int z) {
+        for (int y = Chunk.HEIGHT - 1; y > 0; y--) {
+            if (world.getBlock(x, y, z) != BlockType.AIR) return y;
+        }
+        return 0;
+    }
+}
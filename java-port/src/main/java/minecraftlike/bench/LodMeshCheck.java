@@ -0,0 +1,162 @@
+package minecraftlike.bench;
+
+import minecraftlike.voxel.BlockTextures;
+import minecraftlike.voxel.BlockType;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.ChunkMeshData;
+import minecraftlike.voxel.ChunkMesher;
+import minecraftlike.voxel.LightEngine;
+import minecraftlike.voxel.LodMesher;
+import minecraftlike.voxel.TextureAtlas;
+import minecraftlike.voxel.UvRect;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Headless check of the LOD meshes: the majority vote of a single coarse cell (half solid is solid,
+ * ties go to the upper block type), then generated terrain at every level, where each block column
+ * must still be covered from above. Prints quads, vertex bytes, meshing time and the mean surface
+ * height error per level. Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=LodMeshCheck
+ */
+public final class LodMeshCheck {
+    private static final int Y0 = 32;
+    private static final int RADIUS = 2;
+    private static final int ROUNDS = 40; // the first half warms up, the second half is timed
+    private static final int BYTES_PER_VERTEX = 12; // packed layout, see ChunkVertexBuilder
+
+    private LodMeshCheck() {}
+
+    public static void main(String[] args) {
+        BlockTextures textures = new BlockTextures(TextureAtlas.defaultLayout());
+
+        // One coarse cell in the middle of the chunk (no skirts): half of its blocks make it a cube.
+        for (int level = 1; level < LodMesher.LEVELS; level++) {
+            int f = LodMesher.factor(level);
+            int cells = f * f * f;
+            Checks.expect("level " + level + " half", quads(cellWorld(f, cells / 2), textures, level), 6);
+            Checks.expect("level " + level + " < half", quads(cellWorld(f, cells / 2 - 1), textures, level), 0);
+        }
+        // 2x2x2: grass over dirt, 2 against 2 -> the top face shows grass.
+        World world = new World();
+        Chunk c = world.getOrCreateChunk(0, 0);
+        c.set(4, Y0 + 1, 4, BlockType.GRASS);
+        c.set(5, Y0 + 1, 4, BlockType.GRASS);
+        c.set(4, Y0, 4, BlockType.DIRT);
+        c.set(5, Y0, 4, BlockType.DIRT);
+        new LightEngine(world).lightChunk(0, 0);
+        ChunkMeshData data = LodMesher.buildMeshData(world, 0, 0, textures, 1);
+        UvRect grassTop = textures.uv(BlockType.GRASS, 2);
+        Checks.expect("tie -> upper", topTile(data), textures.atlas().tileIndexAt(grassTop.u0(), grassTop.v0()));
+        data.release();
+
+        // Generated terrain at every level.
+        WorldGen gen = new WorldGen(1337L);
+        world = new World();
+        LightEngine light = new LightEngine(world);
+        for (int cz = -RADIUS; cz <= RADIUS; cz++) {
+            for (int cx = -RADIUS; cx <= RADIUS; cx++) {
+                gen.generateChunk(world.getOrCreateChunk(cx, cz));
+                light.lightChunk(cx, cz);
+            }
+        }
+        int r = RADIUS - 1;
+        int chunks = (2 * r + 1) * (2 * r + 1);
+        for (int level = 0; level < LodMesher.LEVELS; level++) {
+            long quads = 0, bytes = 0, uncovered = 0, error = 0, nanos = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                boolean measure = round == ROUNDS - 1;
+                for (int cz = -r; cz <= r; cz++) {
+                    for (int cx = -r; cx <= r; cx++) {
+                        long t0 = System.nanoTime();
+                        ChunkMeshData m = level == 0
+                            ? ChunkMesher.buildMeshData(world, cx, cz, textures, true)
+                            : LodMesher.buildMeshData(world, cx, cz, textures, level);
+                        if (round >= ROUNDS / 2) nanos += System.nanoTime() - t0;
+                        if (measure) {
+                            quads += m.quadCount();
+                            bytes += m.byteSize();
+                            int[] top = topHeights(m);
+                            for (int z = 0; z < Chunk.SIZE; z++) {
+                                for (int x = 0; x < Chunk.SIZE; x++) {
+                                    int t = top[z * Chunk.SIZE + x];
+                                    if (t < 0) {
+                                        uncovered++;
+                                        continue;
+                                    }
+                                    error += Math.abs(t - (world.surfaceY(cx * Chunk.SIZE + x, cz * Chunk.SIZE + z) + 1));
+                                }
+                            }
+                        }
+                        m.release();
+                    }
+                }
+            }
+            Checks.expect("level " + level + " covered", (int) uncovered, 0);
+            System.out.printf("level %d (%dx): %7.0f quads/chunk %8.1f KiB/chunk %8.1f us/mesh, surface error %.2f blocks%n",
+                level, LodMesher.factor(level), quads / (double) chunks, bytes / 1024.0 / chunks,
+                nanos / 1000.0 / (chunks * (ROUNDS - ROUNDS / 2)), error / (double) (chunks * Chunk.SIZE * Chunk.SIZE));
+        }
+
+        Checks.finish();
+    }
+
+    // Chunk with the first `solid` blocks (bottom layer first) of the coarse cell at (4, Y0, 4) set to stone.
+    private static World cellWorld(int f, int solid) {
+        World world = new World();
+        Chunk c = world.getOrCreateChunk(0, 0);
+        int n = 0;
+        for (int y = 0; y < f && n < solid; y++) {
+            for (int z = 0; z < f && n < solid; z++) {
+                for (int x = 0; x < f && n < solid; x++, n++) c.set(4 + x, Y0 + y, 4 + z, BlockType.STONE);
+            }
+        }
+        new LightEngine(world).lightChunk(0, 0);
+        return world;
+    }
+
+    private static int quads(World world, BlockTextures textures, int level) {
+        ChunkMeshData data = LodMesher.buildMeshData(world, 0, 0, textures, level);
+        int quads = data.quadCount();
+        data.release();
+        return quads;
+    }
+
+    // Atlas tile of the first upward-facing vertex, -1 if there is none.
+    private static int topTile(ChunkMeshData data) {
+        ByteBuffer b = data.vertices();
+        for (int p = 0; p < data.vertexCount() * BYTES_PER_VERTEX; p += BYTES_PER_VERTEX) {
+            if ((b.get(p + 9) & 7) == 2) return b.get(p + 8) & 0xFF;
+        }
+        return -1;
+    }
+
+    // Per block column of the chunk, the height of the highest upward-facing quad over it (-1: none).
+    private static int[] topHeights(ChunkMeshData data) {
+        int[] top = new int[Chunk.SIZE * Chunk.SIZE];
+        Arrays.fill(top, -1);
+        ByteBuffer b = data.vertices();
+        for (int q = 0; q < data.quadCount(); q++) {
+            int p = q * 4 * BYTES_PER_VERTEX;
+            if ((b.get(p + 9) & 7) != 2) continue;
+            int x0 = Integer.MAX_VALUE, x1 = Integer.MIN_VALUE, z0 = Integer.MAX_VALUE, z1 = Integer.MIN_VALUE;
+            int y = (b.getShort(p + 2) & 0xFFFF) >> 8;
+            for (int i = 0; i < 4; i++) {
+                int v = p + i * BYTES_PER_VERTEX;
+                int x = (b.getShort(v) & 0xFFFF) >> 8;
+                int z = (b.getShort(v + 4) & 0xFFFF) >> 8;
+                x0 = Math.min(x0, x);
+                x1 = Math.max(x1, x);
+                z0 = Math.min(z0, z);
+                z1 = Math.max(z1, z);
+            }
+            for (int z = z0; z < z1; z++) {
+                for (int x = x0; x < x1; x++) top[z * Chunk.SIZE + x] = Math.max(top[z * Chunk.SIZE + x], y);
+            }
+        }
+        return top;
+    }
+}
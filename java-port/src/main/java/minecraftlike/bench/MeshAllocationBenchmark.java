@@ -0,0 +1,82 @@
+package minecraftlike.bench;
+
+import minecraftlike.engine.Diagnostics;
+import minecraftlike.voxel.BlockTextures;
+import minecraftlike.voxel.ChunkMeshData;
+import minecraftlike.voxel.ChunkMesher;
+import minecraftlike.voxel.TextureAtlas;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Headless benchmark for the CPU meshing stage: heap bytes allocated and time per remesh with the
+ * pooled off-heap vertex builder, compared with the old "heap array + toArray + copy into an upload
+ * buffer" hand-off (simulated by copying the finished vertices twice).
+ * Run with: gradle bench -Pbench=MeshAllocationBenchmark
+ */
+public final class MeshAllocationBenchmark {
+    private static final int RADIUS = 2;  // generated area; the inner (RADIUS-1) ring is remeshed
+    private static final int ROUNDS = 20;
+
+    private MeshAllocationBenchmark() {}
+
+    public static void main(String[] args) {
+        BlockTextures textures = new BlockTextures(TextureAtlas.defaultLayout());
+        WorldGen gen = new WorldGen(1337L);
+        World world = new World();
+        for (int cz = -RADIUS; cz <= RADIUS; cz++) {
+            for (int cx = -RADIUS; cx <= RADIUS; cx++) gen.generateChunk(world.getOrCreateChunk(cx, cz));
+        }
+
+        long sink = 0;
+        int r = RADIUS - 1;
+        int chunks = (2 * r + 1) * (2 * r + 1);
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean report = round == ROUNDS - 1;
+            for (int mode = 0; mode < 2; mode++) {
+                boolean copy = mode == 1;
+                long a0 = allocatedBytes();
+                long t0 = System.nanoTime();
+                long bytes = 0;
+                for (int cz = -r; cz <= r; cz++) {
+                    for (int cx = -r; cx <= r; cx++) {
+                        ChunkMeshData data = ChunkMesher.buildMeshData(world, cx, cz, textures, true);
+                        ByteBuffer v = data.vertices();
+                        if (copy) {
+                            byte[] heap = new byte[v.remaining()];
+                            v.get(v.position(), heap);
+                            ByteBuffer upload = ByteBuffer.allocateDirect(heap.length).order(ByteOrder.nativeOrder());
+                            upload.put(heap).flip();
+                            sink += upload.get(upload.limit() / 2);
+                        } else {
+                            if (v.hasRemaining()) sink += v.get(v.limit() / 2);
+                        }
+                        bytes += data.byteSize();
+                        data.release();
+                    }
+                }
+                long t1 = System.nanoTime();
+                long a1 = allocatedBytes();
+                if (report) {
+                    System.out.printf("%-22s %8.1f us/remesh %10.0f B/remesh (vertex data %.0f B/remesh)%n",
+                        copy ? "with copies (old):" : "pooled off-heap:",
+                        (t1 - t0) / 1000.0 / chunks, (a1 - a0) / (double) chunks, bytes / (double) chunks);
+                }
+            }
+        }
+        System.out.println("counters: " + Diagnostics.counters());
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static long allocatedBytes() {
+        var bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sun) {
+            return sun.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,143 @@
+package minecraftlike.bench;
+
+import minecraftlike.voxel.BlockTextures;
+import minecraftlike.voxel.BlockType;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.ChunkMeshData;
+import minecraftlike.voxel.ChunkMesher;
+import minecraftlike.voxel.LightEngine;
+import minecraftlike.voxel.TextureAtlas;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+/**
+ * Headless check of the mesher's hidden-face culling and greedy merging: known shapes must produce
+ * exactly the expected number of quads (per-face and greedy), then generated terrain is compared
+ * against the unculled face count, and greedy must stay at least MIN_GREEDY_RATIO (MIN_GREEDY_AO_RATIO
+ * with corner AO) times fewer quads than culled.
+ * Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=MeshCullingCheck
+ */
+public final class MeshCullingCheck {
+    private static final int Y0 = 32; // keep shapes away from the world bottom (those faces are dropped)
+    // 5x5 chunks of seed 1337 give 2.5x without AO and 1.4x with it (AO corners split merges).
+    private static final double MIN_GREEDY_RATIO = 2.0;
+    private static final double MIN_GREEDY_AO_RATIO = 1.3;
+
+    private MeshCullingCheck() {}
+
+    public static void main(String[] args) {
+        BlockTextures textures = new BlockTextures(TextureAtlas.defaultLayout());
+
+        // Solid 16^3 cube: only the outer shell is visible.
+        World world = new World();
+        box(world.getOrCreateChunk(0, 0), 0, Y0, 0, 16, 16, 16, BlockType.STONE);
+        light(world, 0, 0);
+        Checks.expect("solid cube", "quads", quads(world, textures, 0, 0, false), 6 * 16 * 16);
+        // Greedy merges per tile and light; every face of the lone cube sees one light level.
+        Checks.expect("  greedy", "quads", quads(world, textures, 0, 0, true), 6);
+
+        // Hollow 16^3 box: outer shell plus the inside walls of the 14^3 cavity.
+        world = new World();
+        Chunk c = world.getOrCreateChunk(0, 0);
+        box(c, 0, Y0, 0, 16, 16, 16, BlockType.STONE);
+        box(c, 1, Y0 + 1, 1, 14, 14, 14, BlockType.AIR);
+        light(world, 0, 0);
+        Checks.expect("hollow box", "quads", quads(world, textures, 0, 0, false), 6 * 16 * 16 + 6 * 14 * 14);
+        // Inside, the corner AO splits each wall into 4 corners, 4 edge strips and the open middle.
+        Checks.expect("  greedy", "quads", quads(world, textures, 0, 0, true), 6 + 6 * 9);
+
+        // 32x2x16 slab split across a chunk border: the shared wall must be culled on both sides.
+        world = new World();
+        box(world.getOrCreateChunk(0, 0), 0, Y0, 0, 16, 2, 16, BlockType.STONE);
+        box(world.getOrCreateChunk(1, 0), 0, Y0, 0, 16, 2, 16, BlockType.STONE);
+        light(world, 0, 1);
+        int slab = 2 * 32 * 16 + 2 * 2 * 16 + 2 * 2 * 32;
+        Checks.expect("chunk border", "quads", quads(world, textures, 0, 0, false) + quads(world, textures, 1, 0, false), slab);
+        // Greedy quads stop at the chunk edge: top, bottom and the 3 outer walls of each half.
+        Checks.expect("  greedy", "quads", quads(world, textures, 0, 0, true) + quads(world, textures, 1, 0, true), 2 * (2 + 3));
+
+        // Partial and cutout neighbours never hide a face; stone still hides the leaf face.
+        world = new World();
+        c = world.getOrCreateChunk(0, 0);
+        c.set(4, Y0, 4, BlockType.STONE);
+        c.set(4, Y0 + 1, 4, BlockType.TORCH);
+        c.set(8, Y0, 8, BlockType.STONE);
+        c.set(9, Y0, 8, BlockType.LEAVES);
+        c.set(10, Y0, 8, BlockType.LEAVES);
+        light(world, 0, 0);
+        Checks.expect("torch/leaves", "quads", quads(world, textures, 0, 0, false), 6 + 6 + 6 + 5 + 6);
+        Checks.expect("  greedy", "quads", quads(world, textures, 0, 0, true), 6 + 6 + 6 + 5 + 6);
+
+        // Generated terrain: culled vs. naive (6 faces per non-air block).
+        WorldGen gen = new WorldGen(1337L);
+        world = new World();
+        LightEngine terrainLight = new LightEngine(world);
+        int r = 2;
+        for (int cz = -r; cz <= r; cz++) {
+            for (int cx = -r; cx <= r; cx++) {
+                gen.generateChunk(world.getOrCreateChunk(cx, cz));
+                terrainLight.lightChunk(cx, cz);
+            }
+        }
+        long naive = 0, culled = 0, greedy = 0, greedyAo = 0, culledBytes = 0, greedyBytes = 0;
+        for (int cz = -r; cz <= r; cz++) {
+            for (int cx = -r; cx <= r; cx++) {
+                naive += 6L * nonAir(world.getChunk(cx, cz));
+                ChunkMeshData perFace = ChunkMesher.buildMeshData(world, cx, cz, textures, false, false);
+                ChunkMeshData merged = ChunkMesher.buildMeshData(world, cx, cz, textures, true, false);
+                ChunkMeshData mergedAo = ChunkMesher.buildMeshData(world, cx, cz, textures, true, true);
+                culled += perFace.quadCount();
+                greedy += merged.quadCount();
+                greedyAo += mergedAo.quadCount();
+                culledBytes += perFace.byteSize();
+                greedyBytes += merged.byteSize();
+                perFace.release();
+                merged.release();
+                mergedAo.release();
+            }
+        }
+        System.out.printf("terrain %dx%d chunks: naive=%d quads, culled=%d quads (%.1fx fewer)%n",
+            2 * r + 1, 2 * r + 1, naive, culled, naive / (double) Math.max(1, culled));
+        System.out.printf("  greedy=%d quads (%.1fx fewer than culled), vertex bytes %.1f MiB -> %.1f MiB%n",
+            greedy, culled / (double) Math.max(1, greedy), culledBytes / 1048576.0, greedyBytes / 1048576.0);
+        System.out.printf("  greedy with AO=%d quads (%.1fx fewer than culled)%n", greedyAo, culled / (double) Math.max(1, greedyAo));
+        Checks.expectTrue("greedy ratio", culled >= MIN_GREEDY_RATIO * greedy);
+        Checks.expectTrue("greedy AO ratio", culled >= MIN_GREEDY_AO_RATIO * greedyAo);
+
+        Checks.finish();
+    }
+
+    private static int quads(World world, BlockTextures textures, int cx, int cz, boolean greedy) {
+        ChunkMeshData data = ChunkMesher.buildMeshData(world, cx, cz, textures, greedy);
+        int quads = data.quadCount();
+        data.release();
+        return quads;
+    }
+
+    // Lights chunks (cx0..cx1, 0) once their blocks are in place.
+    private static void light(World world, int cx0, int cx1) {
+        LightEngine light = new LightEngine(world);
+        for (int cx = cx0; cx <= cx1; cx++) light.lightChunk(cx, 0);
+    }
+
+    private static void box(Chunk c, int x0, int y0, int z0, int sx, int sy, int sz, BlockType t) {
+        for (int y = y0; y < y0 + sy; y++) {
+            for (int z = z0; z < z0 + sz; z++) {
+                for (int x = x0; x < x0 + sx; x++) c.set(x, y, z, t);
+            }
+        }
+    }
+
+    private static long nonAir(Chunk c) {
+        long n = 0;
+        for (int y = 0; y < Chunk.HEIGHT; y++) {
+            for (int z = 0; z < Chunk.SIZE; z++) {
+                for (int x = 0; x < Chunk.SIZE; x++) {
+                    if (c.get(x, y, z) != BlockType.AIR) n++;
+                }
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,75 @@
+package minecraftlike.bench;
+
+import minecraftlike.engine.Diagnostics;
+import minecraftlike.engine.PointShadowScheduler;
+
+/**
+ * Headless check of the point-shadow face cache: torches get their six faces rendered once (within
+ * the per-frame budget), then only the faces that see a changed block are rendered again.
+ * Finishes with a walk past a row of torches and prints the face-render rate and cache hit rate.
+ * Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=PointShadowCheck
+ */
+public final class PointShadowCheck {
+    private static final int SLOTS = 8;
+    private static final int BUDGET = 6;
+    private static final int TORCHES = 24;
+
+    private PointShadowCheck() {}
+
+    public static void main(String[] args) {
+        float[] x = new float[TORCHES];
+        float[] y = new float[TORCHES];
+        float[] z = new float[TORCHES];
+        float[] r = new float[TORCHES];
+        for (int i = 0; i < TORCHES; i++) {
+            x[i] = i * 6.5f;
+            y[i] = 40.5f;
+            z[i] = (i % 2) * 5.5f;
+            r[i] = 8.0f;
+        }
+        int[] faces = new int[BUDGET];
+        PointShadowScheduler s = new PointShadowScheduler(SLOTS);
+
+        // Standing still: 8 lights x 6 faces arrive at BUDGET per frame, then nothing.
+        int frames = 0;
+        int rendered = 0;
+        for (int f = 0; f < 30; f++) {
+            s.assign(x, y, z, r, TORCHES, 0.0f, 41.0f, 0.0f);
+            int n = s.nextFaces(BUDGET, faces);
+            rendered += n;
+            if (n > 0) frames++;
+        }
+        Checks.expect("initial faces", rendered, SLOTS * 6);
+        Checks.expect("frames to fill", frames, SLOTS * 6 / BUDGET);
+        Checks.expect("nearest ready", s.readySlot(0) >= 0 ? 1 : 0, 1);
+        Checks.expect("far unassigned", s.readySlot(TORCHES - 1) >= 0 ? 1 : 0, 0);
+
+        // One block placed above torch 0: only the faces looking towards it go stale. For torch 0 at
+        // (0, 40.5, 0) that is +X, +Y, +Z; torch 1 at (6.5, 40.5, 5.5) is in range too: -X, +Y, -Z.
+        s.invalidateBox(0.0f, 42.0f, 0.0f, 1.0f, 43.0f, 1.0f);
+        s.assign(x, y, z, r, TORCHES, 0.0f, 41.0f, 0.0f);
+        int n = s.nextFaces(BUDGET, faces);
+        Checks.expect("block edit faces", n, 3 + 3);
+        n = s.nextFaces(BUDGET, faces);
+        Checks.expect("next frame", n, 0);
+
+        // Walk past the row: new torches come into range, each needs its six faces once.
+        Diagnostics.resetCounters();
+        rendered = 0;
+        frames = 60 * 30;
+        for (int f = 0; f < frames; f++) {
+            float camX = f * (TORCHES * 6.5f) / frames;
+            s.assign(x, y, z, r, TORCHES, camX, 41.0f, 2.0f);
+            rendered += s.nextFaces(BUDGET, faces);
+        }
+        System.out.printf("walk: %d faces rendered in %d frames (%.2f per frame, naive %d per frame), hit rate %.3f%n",
+            rendered, frames, rendered / (double) frames, SLOTS * 6, PointShadowScheduler.cacheHitRate());
+        System.out.println(s.describe(BUDGET));
+        if (rendered != (TORCHES - SLOTS) * 6) {
+            Checks.fail("walk faces=" + rendered + " expected=" + (TORCHES - SLOTS) * 6);
+        }
+
+        Checks.finish();
+    }
+}
@@ -0,0 +1,97 @@
+package minecraftlike.bench;
+
+import minecraftlike.engine.Diagnostics;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.ChunkStore;
+import minecraftlike.voxel.WorldGen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Headless benchmark of the memory-mapped region read path: saves a SIDE x SIDE chunk area (generated
+ * once, or reused from the directory given as first argument), then loads all of it through a fresh
+ * ChunkStore (cold: new mappings, page faults, unwarmed JIT) and again through the same store (warm).
+ * Reports compressed MB/s read from the mappings and chunks/s decoded.
+ *
+ * "Cold" only covers the mappings; the OS page cache still holds the freshly written files. For a cold
+ * page cache, keep the directory, drop the OS cache and run again with it as argument.
+ * Run with: gradle bench -Pbench=RegionReadBenchmark [-Pargs=<dir>]
+ */
+public final class RegionReadBenchmark {
+    private static final int SIDE = 64;
+    private static final int WARM_ROUNDS = 5;
+
+    private RegionReadBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        boolean keep = args.length > 0;
+        Path dir = keep ? Path.of(args[0]) : Files.createTempDirectory("region-read");
+        try {
+            if (isEmpty(dir)) write(dir);
+            read(dir);
+        } finally {
+            if (!keep) {
+                try (Stream<Path> files = Files.walk(dir)) {
+                    files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+                }
+            }
+        }
+    }
+
+    private static void write(Path dir) {
+        WorldGen gen = new WorldGen(1337L);
+        long t0 = System.nanoTime();
+        try (ChunkStore store = new ChunkStore(dir)) {
+            for (int cz = 0; cz < SIDE; cz++) {
+                for (int cx = 0; cx < SIDE; cx++) {
+                    Chunk c = new Chunk(cx - SIDE / 2, cz - SIDE / 2);
+                    gen.generateChunk(c);
+                    store.save(c);
+                }
+                if ((cz + 1) % 8 == 0) System.out.printf("generating: %d/%d rows%n", cz + 1, SIDE);
+            }
+        }
+        System.out.printf("generated and saved %d chunks in %.1f s%n", SIDE * SIDE, (System.nanoTime() - t0) / 1e9);
+    }
+
+    private static void read(Path dir) {
+        try (ChunkStore store = new ChunkStore(dir)) {
+            pass(store, "cold");
+            double best = Double.MAX_VALUE;
+            for (int round = 0; round < WARM_ROUNDS; round++) best = Math.min(best, pass(store, "warm"));
+            System.out.printf("best warm pass: %.1f us/chunk%n", best);
+        }
+    }
+
+    // One load of the whole area; returns microseconds per chunk.
+    private static double pass(ChunkStore store, String label) {
+        long bytes0 = Diagnostics.counters().getOrDefault("store.bytesRead", 0L);
+        long sink = 0;
+        int loaded = 0;
+        long t0 = System.nanoTime();
+        for (int cz = 0; cz < SIDE; cz++) {
+            for (int cx = 0; cx < SIDE; cx++) {
+                Chunk c = store.load(cx - SIDE / 2, cz - SIDE / 2);
+                if (c == null) continue;
+                sink += c.surfaceY(8, 8);
+                loaded++;
+            }
+        }
+        long nanos = System.nanoTime() - t0;
+        long bytes = Diagnostics.counters().getOrDefault("store.bytesRead", 0L) - bytes0;
+        System.out.printf("%s: %d chunks in %6.1f ms, %7.1f MB/s compressed, %8.0f chunks/s, %.1f KiB/chunk (sink %d)%n",
+            label, loaded, nanos / 1e6, bytes / (nanos / 1e9) / 1e6, loaded / (nanos / 1e9),
+            bytes / 1024.0 / Math.max(1, loaded), sink);
+        return nanos / 1000.0 / Math.max(1, loaded);
+    }
+
+    private static boolean isEmpty(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.findAny().isEmpty();
+        }
+    }
+}
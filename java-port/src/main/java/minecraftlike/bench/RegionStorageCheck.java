@@ -0,0 +1,177 @@
+package minecraftlike.bench;
+
+import minecraftlike.engine.Diagnostics;
+import minecraftlike.voxel.BlockType;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.ChunkStore;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Headless check of the region-file chunk store: generated and edited chunks across a region border
+ * survive save / close / reopen block for block (heightmaps included), a pending save is visible to
+ * load() before it is written, and records that grow move without damaging their neighbours while
+ * rewrites go to new sectors (copy-on-write). Prints compressed size and load vs generation speed. Exits
+ * non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=RegionStorageCheck
+ */
+public final class RegionStorageCheck {
+    private static final int RADIUS = 4; // chunks -4..3: two regions per axis
+    private static final int ROUNDS = 10; // the first half warms up, the second half is timed
+
+    private RegionStorageCheck() {}
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("region-check");
+        try {
+            run(dir);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+        Checks.finish();
+    }
+
+    private static void run(Path dir) throws IOException {
+        WorldGen gen = new WorldGen(1337L);
+        World world = new World();
+        for (int cz = -RADIUS; cz < RADIUS; cz++) {
+            for (int cx = -RADIUS; cx < RADIUS; cx++) gen.generateChunk(world.getOrCreateChunk(cx, cz));
+        }
+        // Player-style edits: a pillar above the terrain, a shaft down to bedrock level, a torch.
+        world.setBlock(3, 110, -5, BlockType.PLANKS);
+        for (int y = 1; y < Chunk.HEIGHT; y++) world.setBlock(-20, y, 17, BlockType.AIR);
+        world.setBlock(40, world.surfaceY(40, 40) + 1, 40, BlockType.TORCH);
+        int chunks = world.chunkCount();
+
+        try (ChunkStore store = new ChunkStore(dir)) {
+            Checks.expect("saved (dirty)", store.saveAll(world), chunks);
+            Checks.expect("saved again", store.saveAll(world), 0);
+        }
+        long recordBytes = Diagnostics.counters().getOrDefault("store.bytesWritten", 0L);
+        long fileBytes = directoryBytes(dir);
+
+        try (ChunkStore store = new ChunkStore(dir)) {
+            int mismatches = 0;
+            int dirty = 0;
+            for (int cz = -RADIUS; cz < RADIUS; cz++) {
+                for (int cx = -RADIUS; cx < RADIUS; cx++) {
+                    Chunk loaded = store.load(cx, cz);
+                    if (loaded == null) {
+                        mismatches++;
+                        continue;
+                    }
+                    if (loaded.isDirty()) dirty++;
+                    mismatches += compare(world.getChunk(cx, cz), loaded);
+                }
+            }
+            Checks.expect("round trip", mismatches, 0);
+            Checks.expect("loaded dirty", dirty, 0);
+            Checks.expectTrue("never saved", store.load(RADIUS + 40, 0) == null);
+
+            // Read-your-writes: the edit is visible whether or not the writer got to it yet.
+            Chunk c = world.getChunk(0, 0);
+            c.set(5, 120, 5, BlockType.LEAVES);
+            store.save(c);
+            Checks.expect("pending save", compare(c, store.load(0, 0)), 0);
+            store.flush();
+
+            // Grow a record (random blocks hardly compress), then rewrite it at the same size: the new copy
+            // goes to other sectors, so a crash mid-write leaves the old one intact.
+            Chunk noisy = world.getChunk(1, 1);
+            Random r = new Random(7L);
+            BlockType[] types = BlockType.values();
+            for (int y = 0; y < Chunk.HEIGHT; y++) {
+                for (int z = 0; z < Chunk.SIZE; z++) {
+                    for (int x = 0; x < Chunk.SIZE; x++) noisy.set(x, y, z, types[r.nextInt(types.length)]);
+                }
+            }
+            store.save(noisy);
+            store.flush();
+            int before = headerEntry(dir, 1, 1);
+            noisy.set(0, 0, 0, noisy.get(0, 0, 0) == BlockType.STONE ? BlockType.DIRT : BlockType.STONE);
+            store.save(noisy);
+            store.flush();
+            int after = headerEntry(dir, 1, 1);
+            Checks.expect("copy on write", (before >>> 8) != (after >>> 8) && (after & 0xFF) == (before & 0xFF) ? 1 : 0, 1);
+        }
+
+        try (ChunkStore store = new ChunkStore(dir)) {
+            int mismatches = 0;
+            for (int cz = -RADIUS; cz < RADIUS; cz++) {
+                for (int cx = -RADIUS; cx < RADIUS; cx++) mismatches += compare(world.getChunk(cx, cz), store.load(cx, cz));
+            }
+            Checks.expect("after moves", mismatches, 0);
+        }
+
+        // Load vs generation speed over the same chunks.
+        try (ChunkStore store = new ChunkStore(dir)) {
+            long loadNanos = 0;
+            long genNanos = 0;
+            long sink = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long t0 = System.nanoTime();
+                for (int cz = -RADIUS; cz < RADIUS; cz++) {
+                    for (int cx = -RADIUS; cx < RADIUS; cx++) sink += store.load(cx, cz).surfaceY(8, 8);
+                }
+                long t1 = System.nanoTime();
+                for (int cz = -RADIUS; cz < RADIUS; cz++) {
+                    for (int cx = -RADIUS; cx < RADIUS; cx++) {
+                        Chunk c = new Chunk(cx, cz);
+                        gen.generateChunk(c);
+                        sink += c.surfaceY(8, 8);
+                    }
+                }
+                long t2 = System.nanoTime();
+                if (round >= ROUNDS / 2) {
+                    loadNanos += t1 - t0;
+                    genNanos += t2 - t1;
+                }
+            }
+            double timed = chunks * (double) (ROUNDS - ROUNDS / 2);
+            System.out.printf("records: %.1f KiB/chunk compressed, files %d KiB for %d chunks%n",
+                recordBytes / 1024.0 / chunks, fileBytes / 1024, chunks);
+            System.out.printf("load:     %8.1f us/chunk %8.0f chunks/s%n", loadNanos / 1000.0 / timed, timed * 1e9 / loadNanos);
+            System.out.printf("generate: %8.1f us/chunk %8.0f chunks/s (%.1fx slower than load)%n",
+                genNanos / 1000.0 / timed, timed * 1e9 / genNanos, genNanos / (double) loadNanos);
+            System.out.println("(sink " + sink + ")");
+        }
+    }
+
+    // Blocks and heightmaps that differ (a missing chunk counts as one).
+    private static int compare(Chunk a, Chunk b) {
+        if (a == null || b == null) return 1;
+        int n = 0;
+        for (int z = 0; z < Chunk.SIZE; z++) {
+            for (int x = 0; x < Chunk.SIZE; x++) {
+                if (a.surfaceY(x, z) != b.surfaceY(x, z)) n++;
+                if (a.skyBlockerY(x, z) != b.skyBlockerY(x, z)) n++;
+                for (int y = 0; y < Chunk.HEIGHT; y++) {
+                    if (a.get(x, y, z) != b.get(x, y, z)) n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    // Header entry (first sector << 8 | sector count) of a chunk in region 0,0, read from the file.
+    private static int headerEntry(Path dir, int cx, int cz) throws IOException {
+        byte[] header = Files.readAllBytes(dir.resolve("r.0.0.region"));
+        return ByteBuffer.wrap(header).getInt(4 * (cz * 32 + cx));
+    }
+
+    private static long directoryBytes(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package minecraftlike.bench;
+
+import minecraftlike.engine.ShadowView;
+
+/**
+ * Headless check of the sun shadow map cache: a static scene must render the map once, and a
+ * walking camera under a slowly moving sun must re-render it only on cell crossings / sun steps.
+ * Prints how many of the simulated frames actually re-rendered the shadow map.
+ * Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=ShadowCacheCheck
+ */
+public final class ShadowCacheCheck {
+    private static final int FPS = 60;
+    private static final float DISTANCE = 40.0f;  // Main's default shadowDistance
+    private static final int RES = 4096;
+
+    private ShadowCacheCheck() {}
+
+    public static void main(String[] args) {
+        // Nothing moves: one render, then reuse.
+        ShadowView view = new ShadowView();
+        int renders = 0;
+        for (int f = 0; f < FPS * 10; f++) {
+            if (view.update(0.3f, 0.8f, 0.2f, 10.0f, 70.0f, -5.0f, DISTANCE, RES)) renders++;
+        }
+        Checks.expect("static scene", "renders", renders, 1);
+
+        // A caster changed: exactly one more render.
+        view.invalidate();
+        renders = 0;
+        for (int f = 0; f < FPS; f++) {
+            if (view.update(0.3f, 0.8f, 0.2f, 10.0f, 70.0f, -5.0f, DISTANCE, RES)) renders++;
+        }
+        Checks.expect("after invalidate", "renders", renders, 1);
+
+        // Resolution change: one render.
+        renders = 0;
+        if (view.update(0.3f, 0.8f, 0.2f, 10.0f, 70.0f, -5.0f, DISTANCE, RES * 2)) renders++;
+        if (view.update(0.3f, 0.8f, 0.2f, 10.0f, 70.0f, -5.0f, DISTANCE, RES * 2)) renders++;
+        Checks.expect("resolution change", "renders", renders, 1);
+
+        // Walking (4.3 blocks/s) for 2 minutes under a sun that turns once per 20 minute day.
+        view = new ShadowView();
+        renders = 0;
+        int frames = FPS * 120;
+        for (int f = 0; f < frames; f++) {
+            float t = f / (float) FPS;
+            double sun = Math.toRadians(30.0 + t * 360.0 / 1200.0);
+            float x = t * 4.3f;
+            float z = t * 1.1f;
+            if (view.update((float) Math.cos(sun), (float) Math.sin(sun), 0.25f, x, 70.0f, z, DISTANCE, RES)) renders++;
+        }
+        System.out.printf("walking + moving sun: %d of %d frames re-rendered the shadow map (%.1f%%)%n",
+            renders, frames, 100.0 * renders / frames);
+        if (renders == 0 || renders > frames / 10) {
+            Checks.fail("walking + moving sun: unexpected render count");
+        }
+
+        Checks.finish();
+    }
+}
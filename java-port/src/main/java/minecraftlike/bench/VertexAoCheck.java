@@ -0,0 +1,164 @@
+package minecraftlike.bench;
+
+import minecraftlike.voxel.BlockTextures;
+import minecraftlike.voxel.BlockType;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.ChunkMeshData;
+import minecraftlike.voxel.ChunkMesher;
+import minecraftlike.voxel.LightEngine;
+import minecraftlike.voxel.TextureAtlas;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Headless check of the per-vertex ambient occlusion baked by ChunkMesher: corner levels next to known
+ * shapes (also across a chunk's outer corner), the quad-flip rule (every quad's split diagonal runs
+ * through its darker corner pair), greedy quads carrying the same corner AO as the single faces, and AO
+ * off writing unoccluded vertices. Then prints the meshing cost of AO on generated terrain (on vs off).
+ * Exits non-zero on a mismatch.
+ * Run with: gradle bench -Pbench=VertexAoCheck
+ */
+public final class VertexAoCheck {
+    private static final int Y0 = 32;
+    private static final int RADIUS = 2;
+    private static final int ROUNDS = 20;
+    private static final int BYTES_PER_VERTEX = 12; // packed layout, see ChunkVertexBuilder
+
+    private VertexAoCheck() {}
+
+    public static void main(String[] args) {
+        BlockTextures textures = new BlockTextures(TextureAtlas.defaultLayout());
+
+        // Stone floor with a lone block at (4,4) and two diagonal blocks at (8,8) and (9,9) on top: the
+        // floor corner between the diagonal pair has both sides blocked.
+        World world = new World();
+        Chunk c = world.getOrCreateChunk(0, 0);
+        for (int z = 0; z < Chunk.SIZE; z++) {
+            for (int x = 0; x < Chunk.SIZE; x++) c.set(x, Y0, z, BlockType.STONE);
+        }
+        c.set(4, Y0 + 1, 4, BlockType.STONE);
+        c.set(8, Y0 + 1, 8, BlockType.STONE);
+        c.set(9, Y0 + 1, 9, BlockType.STONE);
+        // A block in the diagonal neighbour chunk, next to the floor's outer corner at (0,0).
+        world.getOrCreateChunk(-1, -1).set(Chunk.SIZE - 1, Y0 + 1, Chunk.SIZE - 1, BlockType.STONE);
+        new LightEngine(world).lightChunk(0, 0);
+        int top = Y0 + 1;
+        ChunkMeshData faces = ChunkMesher.buildMeshData(world, 0, 0, textures, false);
+        Map<Long, Integer> ao = cornerAo(faces);
+        Checks.expect("open floor", "ao", ao.getOrDefault(key(2, 13, top, 2), -1), 3);
+        Checks.expect("one side", "ao", ao.getOrDefault(key(2, 5, top, 4), -1), 2);
+        Checks.expect("two sides", "ao", ao.getOrDefault(key(2, 9, top, 9), -1), 0);
+        Checks.expect("chunk corner", "ao", ao.getOrDefault(key(2, 0, top, 0), -1), 2);
+        // Foot of the lone block's +X wall: floor below (side) and the floor diagonal.
+        Checks.expect("wall foot", "ao", ao.getOrDefault(key(0, 5, top, 4), -1), 1);
+        Checks.expect("flip rule", "ao", flipViolations(faces), 0);
+        faces.release();
+
+        ChunkMeshData off = ChunkMesher.buildMeshData(world, 0, 0, textures, false, false);
+        int occluded = 0;
+        for (int v : cornerAo(off).values()) {
+            if (v != 3) occluded++;
+        }
+        Checks.expect("AO off", "ao", occluded, 0);
+        off.release();
+
+        // Generated terrain: greedy corners must match the single faces, and the flip rule holds.
+        WorldGen gen = new WorldGen(1337L);
+        world = new World();
+        LightEngine light = new LightEngine(world);
+        for (int cz = -RADIUS; cz <= RADIUS; cz++) {
+            for (int cx = -RADIUS; cx <= RADIUS; cx++) {
+                gen.generateChunk(world.getOrCreateChunk(cx, cz));
+                light.lightChunk(cx, cz);
+            }
+        }
+        int r = RADIUS - 1;
+        int mismatches = 0;
+        int flips = 0;
+        for (int cz = -r; cz <= r; cz++) {
+            for (int cx = -r; cx <= r; cx++) {
+                ChunkMeshData perFace = ChunkMesher.buildMeshData(world, cx, cz, textures, false);
+                ChunkMeshData merged = ChunkMesher.buildMeshData(world, cx, cz, textures, true);
+                Map<Long, Integer> expected = cornerAo(perFace);
+                for (Map.Entry<Long, Integer> e : cornerAo(merged).entrySet()) {
+                    if (!e.getValue().equals(expected.get(e.getKey()))) mismatches++;
+                }
+                flips += flipViolations(merged);
+                perFace.release();
+                merged.release();
+            }
+        }
+        Checks.expect("greedy corners", "ao", mismatches, 0);
+        Checks.expect("terrain flips", "ao", flips, 0);
+
+        // Meshing cost, AO on vs off (greedy, as the renderer meshes).
+        int chunks = (2 * r + 1) * (2 * r + 1);
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean report = round == ROUNDS - 1;
+            for (int mode = 0; mode < 2; mode++) {
+                boolean withAo = mode == 0;
+                long quads = 0;
+                long t0 = System.nanoTime();
+                for (int cz = -r; cz <= r; cz++) {
+                    for (int cx = -r; cx <= r; cx++) {
+                        ChunkMeshData data = ChunkMesher.buildMeshData(world, cx, cz, textures, true, withAo);
+                        quads += data.quadCount();
+                        sink += data.byteSize();
+                        data.release();
+                    }
+                }
+                long t1 = System.nanoTime();
+                if (report) {
+                    System.out.printf("AO %-3s %8.1f us/remesh %8.0f quads/chunk%n",
+                        withAo ? "on:" : "off:", (t1 - t0) / 1000.0 / chunks, quads / (double) chunks);
+                }
+            }
+        }
+        System.out.println("(sink " + sink + ")");
+
+        Checks.finish();
+    }
+
+    // AO level per (face, chunk-relative corner position); -2 where two vertices at one corner disagree.
+    private static Map<Long, Integer> cornerAo(ChunkMeshData data) {
+        Map<Long, Integer> out = new HashMap<>();
+        ByteBuffer b = data.vertices();
+        for (int p = 0; p < data.vertexCount() * BYTES_PER_VERTEX; p += BYTES_PER_VERTEX) {
+            int flags = b.get(p + 9) & 0xFF;
+            if ((flags & 8) != 0) continue; // plants
+            long k = key(flags & 7, pos(b, p), pos(b, p + 2), pos(b, p + 4));
+            int ao = (flags >> 4) & 3;
+            Integer prev = out.putIfAbsent(k, ao);
+            if (prev != null && prev != ao) out.put(k, -2);
+        }
+        return out;
+    }
+
+    // Quads whose (v0, v2) diagonal is brighter than (v1, v3): the index buffer splits along v0-v2.
+    private static int flipViolations(ChunkMeshData data) {
+        ByteBuffer b = data.vertices();
+        int n = 0;
+        for (int q = 0; q < data.quadCount(); q++) {
+            int p = q * 4 * BYTES_PER_VERTEX;
+            int[] a = new int[4];
+            for (int i = 0; i < 4; i++) a[i] = (b.get(p + i * BYTES_PER_VERTEX + 9) >> 4) & 3;
+            if (a[0] + a[2] > a[1] + a[3]) n++;
+        }
+        return n;
+    }
+
+    // Whole-block position of a packed u16 coordinate (1/256 block), -1 when not on a block corner.
+    private static int pos(ByteBuffer b, int p) {
+        int q = b.getShort(p) & 0xFFFF;
+        return (q & 255) == 0 ? q >> 8 : -1;
+    }
+
+    private static long key(int face, int x, int y, int z) {
+        return ((long) face << 48) | ((long) (x & 0xFFFF) << 32) | ((long) (y & 0xFFFF) << 16) | (z & 0xFFFF);
+    }
+}
@@ -0,0 +1,137 @@
+package minecraftlike.bench;
+
+import minecraftlike.voxel.BlockType;
+import minecraftlike.voxel.Chunk;
+import minecraftlike.voxel.World;
+import minecraftlike.voxel.WorldGen;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Headless micro-benchmark for World.getBlock: the old HashMap<Long, Chunk> lookup vs. the
+ * primitive LongObjectMap + last-chunk cache. Reports ns/op and heap bytes allocated per op.
+ * Run with: gradle bench -Pbench=WorldAccessBenchmark
+ */
+public final class WorldAccessBenchmark {
+    private static final int RADIUS = 6;
+    private static final int ROUNDS = 15;
+
+    private WorldAccessBenchmark() {}
+
+    public static void main(String[] args) {
+        WorldGen gen = new WorldGen(1337L);
+        World world = new World();
+        HashMapWorld legacy = new HashMapWorld();
+        for (int cz = -RADIUS; cz <= RADIUS; cz++) {
+            for (int cx = -RADIUS; cx <= RADIUS; cx++) {
+                Chunk c = world.getOrCreateChunk(cx, cz);
+                gen.generateChunk(c);
+                legacy.chunks.put(World.key(cx, cz), c);
+            }
+        }
+        System.out.println("chunks: " + world.chunkCount());
+
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean report = round == ROUNDS - 1;
+
+            long a0 = allocatedBytes();
+            long t0 = System.nanoTime();
+            sink += collisionPattern(legacy, null);
+            long t1 = System.nanoTime();
+            long a1 = allocatedBytes();
+            sink += collisionPattern(null, world);
+            long t2 = System.nanoTime();
+            long a2 = allocatedBytes();
+            sink += columnPattern(legacy, null);
+            long t3 = System.nanoTime();
+            long a3 = allocatedBytes();
+            sink += columnPattern(null, world);
+            long t4 = System.nanoTime();
+            long a4 = allocatedBytes();
+
+            if (report) {
+                double collisionOps = collisionOps();
+                double columnOps = columnOps();
+                System.out.println("collision (local boxes): before=" + fmt(t1 - t0, collisionOps) + " ns/op " + fmt(a1 - a0, collisionOps) + " B/op"
+                    + ", after=" + fmt(t2 - t1, collisionOps) + " ns/op " + fmt(a2 - a1, collisionOps) + " B/op");
+                System.out.println("column scan (sky test):  before=" + fmt(t3 - t2, columnOps) + " ns/op " + fmt(a3 - a2, columnOps) + " B/op"
+                    + ", after=" + fmt(t4 - t3, columnOps) + " ns/op " + fmt(a4 - a3, columnOps) + " B/op");
+            }
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    // Small 3x3x3 boxes at many positions, like the player collision code.
+    private static long collisionPattern(HashMapWorld legacy, World world) {
+        long sum = 0;
+        int span = RADIUS * Chunk.SIZE;
+        for (int px = -span; px < span; px += 3) {
+            for (int pz = -span; pz < span; pz += 3) {
+                for (int x = px; x < px + 3; x++) {
+                    for (int y = 60; y < 63; y++) {
+                        for (int z = pz; z < pz + 3; z++) {
+                            BlockType t = legacy != null ? legacy.getBlock(x, y, z) : world.getBlock(x, y, z);
+                            sum += t.ordinal();
+                        }
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static double collisionOps() {
+        int span = RADIUS * Chunk.SIZE;
+        int steps = (2 * span + 2) / 3;
+        return (double) steps * steps * 27;
+    }
+
+    // Full-height columns just outside a chunk border, like the mesher's out-of-chunk sky scan.
+    private static long columnPattern(HashMapWorld legacy, World world) {
+        long sum = 0;
+        int span = RADIUS * Chunk.SIZE;
+        for (int x = -span; x < span; x += Chunk.SIZE) {
+            for (int z = -span; z < span; z++) {
+                for (int y = Chunk.HEIGHT - 1; y >= 0; y--) {
+                    BlockType t = legacy != null ? legacy.getBlock(x - 1, y, z) : world.getBlock(x - 1, y, z);
+                    sum += t.ordinal();
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static double columnOps() {
+        int span = RADIUS * Chunk.SIZE;
+        return (double) (2 * span / Chunk.SIZE) * (2 * span) * Chunk.HEIGHT;
+    }
+
+    private static long allocatedBytes() {
+        var bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sun) {
+            return sun.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0L;
+    }
+
+    private static String fmt(long v, double ops) {
+        return String.format("%.2f", v / ops);
+    }
+
+    // The previous World lookup path, kept here as the baseline.
+    private static final class HashMapWorld {
+        final Map<Long, Chunk> chunks = new HashMap<>();
+
+        BlockType getBlock(int wx, int wy, int wz) {
+            if (wy < 0 || wy >= Chunk.HEIGHT) return BlockType.AIR;
+            int cx = Math.floorDiv(wx, Chunk.SIZE);
+            int cz = Math.floorDiv(wz, Chunk.SIZE);
+            Chunk c = chunks.get(World.key(cx, cz));
+            if (c == null) return BlockType.AIR;
+            return c.get(wx - cx * Chunk.SIZE, wy, wz - cz * Chunk.SIZE);
+        }
+    }
+}
@@ -9,10 +9,15 @@ public final class Camera {
     public float pitch = 0.0f;
 
     public Matrix4f viewMatrix() {
-        Matrix4f view = new Matrix4f();
-        view.rotateX((float) Math.toRadians(pitch));
-        view.rotateY((float) Math.toRadians(yaw));
-        view.translate(-position.x, -position.y, -position.z);
-        return view;
+        return viewMatrix(new Matrix4f());
+    }
+
+    // Allocation-free variant: writes the view matrix into dest and returns it.
+    public Matrix4f viewMatrix(Matrix4f dest) {
+        dest.identity();
+        dest.rotateX((float) Math.toRadians(pitch));
+        dest.rotateY((float) Math.toRadians(yaw));
+        dest.translate(-position.x, -position.y, -position.z);
+        return dest;
     }
 }
@@ -0,0 +1,223 @@
+package minecraftlike.engine;
+
+import org.joml.Matrix4f;
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Sun shadows as 1-4 cascades in one depth texture array (sampler2DArrayShadow uShadowCascades in
+ * voxel.frag). Cascade i covers everything within splitDistance(i) of the camera; splits blend a
+ * logarithmic and a uniform distribution over shadowDistance (splitLambda 1 = fully logarithmic) and
+ * are rounded to whole blocks. Every cascade is a texel-snapped, cached ShadowView, so only cascades
+ * whose box moved (the near ones, mostly) are re-rendered. Only cascadeCount layers are allocated, and
+ * the per-cascade size is clamped so the array stays within GL_MAX_TEXTURE_SIZE and MAX_BYTES.
+ *
+ * Per frame:
+ * <pre>
+ *  for (int i = 0; i < csm.cascadeCount(); i++) {
+ *      if (!csm.update(i, toSun, camera, shadowDistance) && !chunks.shadowCastersChanged(i)) continue;
+ *      csm.begin(i);  shadowShader.setUniformMat4("uLightVP", csm.lightViewProj(i));
+ *      chunks.drawShadowCasters(shadowShader, csm.lightViewProj(i), i);
+ *  }
+ *  csm.end();  csm.bindDepthTexture(unit);  csm.applyUniforms(voxelShader);
+ *  csm.describe();   // debug overlay line, after update(): the split distances in use
+ * </pre>
+ */
+public final class CascadedShadowMap implements AutoCloseable {
+    public static final int MAX_CASCADES = 4;
+    // Cap on the whole depth array (4 bytes per texel): 4 cascades of 4096^2, or 1 of 8192^2.
+    public static final long MAX_BYTES = 256L * 1024 * 1024;
+
+    private static final String[] VP_NAMES = new String[MAX_CASCADES];
+    static {
+        for (int i = 0; i < MAX_CASCADES; i++) VP_NAMES[i] = "uCascadeVP[" + i + "]";
+    }
+
+    private final ShadowView[] views = new ShadowView[MAX_CASCADES];
+    private final float[] splits = new float[MAX_CASCADES];
+
+    private int fbo;
+    private int depthArray;
+    private int size;
+    private int requestedSize;
+    private int layers; // in the allocated array (= cascadeCount)
+    private int cascadeCount;
+    private float splitLambda = 0.75f;
+    private float splitsFor = -1.0f; // shadowDistance the splits were computed for
+
+    public CascadedShadowMap(int cascadeCount, int size) {
+        for (int i = 0; i < MAX_CASCADES; i++) views[i] = new ShadowView();
+        setCascadeCount(cascadeCount);
+        setSize(size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cascadeCount() {
+        return cascadeCount;
+    }
+
+    public void setCascadeCount(int count) {
+        int c = Math.max(1, Math.min(MAX_CASCADES, count));
+        if (c == cascadeCount) return;
+        cascadeCount = c;
+        splitsFor = -1.0f;
+        // Only the used layers are allocated: a new count needs a new array (at most the budget allows).
+        if (depthArray != 0) ensureStorage(requestedSize, c);
+        invalidate();
+    }
+
+    public float splitLambda() {
+        return splitLambda;
+    }
+
+    // 0 = uniform splits, 1 = logarithmic (more resolution close to the camera).
+    public void setSplitLambda(float lambda) {
+        float l = Math.max(0.0f, Math.min(1.0f, lambda));
+        if (l == splitLambda) return;
+        splitLambda = l;
+        splitsFor = -1.0f;
+    }
+
+    // Radius (blocks) covered by cascade i, valid after update().
+    public float splitDistance(int cascade) {
+        return splits[cascade];
+    }
+
+    // Texture resolution per cascade, clamped to GL_MAX_TEXTURE_SIZE and to MAX_BYTES for the cascade
+    // count (size() returns the result); reallocates the array (and re-renders everything) on a change.
+    public void setSize(int desiredSize) {
+        requestedSize = desiredSize;
+        ensureStorage(desiredSize, cascadeCount);
+    }
+
+    // Largest size the GPU and MAX_BYTES allow for the given number of layers.
+    public static int maxSize(int layers) {
+        int byBudget = (int) Math.sqrt(MAX_BYTES / (4.0 * Math.max(1, layers)));
+        return Math.max(1, Math.min(glGetInteger(GL_MAX_TEXTURE_SIZE), byBudget));
+    }
+
+    public Matrix4f lightViewProj(int cascade) {
+        return views[cascade].lightViewProj();
+    }
+
+    public void invalidate() {
+        for (ShadowView v : views) v.invalidate();
+    }
+
+    public void invalidate(int cascade) {
+        views[cascade].invalidate();
+    }
+
+    /**
+     * Fits cascade i around the focus for the current sun direction (pointing towards the sun).
+     * Returns true if the cascade must be re-rendered (begin(i), draw casters with lightViewProj(i)).
+     */
+    public boolean update(int cascade, float toSunX, float toSunY, float toSunZ,
+                          float focusX, float focusY, float focusZ, float shadowDistance) {
+        if (shadowDistance != splitsFor) computeSplits(shadowDistance);
+        return views[cascade].update(toSunX, toSunY, toSunZ, focusX, focusY, focusZ, splits[cascade], size);
+    }
+
+    public void begin(int cascade) {
+        glBindFramebuffer(GL_FRAMEBUFFER, fbo);
+        glFramebufferTextureLayer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, depthArray, 0, cascade);
+        glViewport(0, 0, size, size);
+        glClear(GL_DEPTH_BUFFER_BIT);
+    }
+
+    public void end() {
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+    }
+
+    public void bindDepthTexture(int textureUnit) {
+        glActiveTexture(GL_TEXTURE0 + textureUnit);
+        glBindTexture(GL_TEXTURE_2D_ARRAY, depthArray);
+    }
+
+    // Cascade matrices and count for voxel.frag (bind the texture separately).
+    public void applyUniforms(ShaderProgram shader) {
+        shader.setUniform1i("uCascadeCount", cascadeCount);
+        for (int i = 0; i < cascadeCount; i++) shader.setUniformMat4(VP_NAMES[i], views[i].lightViewProj());
+    }
+
+    private void computeSplits(float shadowDistance) {
+        float far = Math.max(1.0f, shadowDistance);
+        float near = Math.min(1.0f, far);
+        float prev = 0.0f;
+        for (int i = 0; i < cascadeCount; i++) {
+            float f = (i + 1) / (float) cascadeCount;
+            float log = near * (float) Math.pow(far / near, f);
+            float uni = far * f;
+            // Whole blocks keep the (texel-snapped) cascades stable while the distance slider moves.
+            float d = Math.round(splitLambda * log + (1.0f - splitLambda) * uni);
+            splits[i] = Math.max(prev + 1.0f, d);
+            prev = splits[i];
+        }
+        splits[cascadeCount - 1] = Math.max(prev, Math.round(far));
+        splitsFor = shadowDistance;
+        Diagnostics.log(Diagnostics.Level.INFO, "shadow", this::describe);
+    }
+
+    // One line for the debug overlay: cascade count x size, split lambda and the split distances.
+    public String describe() {
+        StringBuilder sb = new StringBuilder(String.format("CSM %dx%d  LAMBDA %.2f  SPLITS", cascadeCount, size, splitLambda));
+        for (int i = 0; i < cascadeCount; i++) sb.append(i == 0 ? " " : "/").append(Math.round(splitDistance(i)));
+        return sb.toString();
+    }
+
+    private void ensureStorage(int desiredSize, int layerCount) {
+        int s = Math.max(1, Math.min(desiredSize, maxSize(layerCount)));
+        if (s == size && layerCount == layers && depthArray != 0) return;
+
+        size = s;
+        layers = layerCount;
+
+        if (depthArray == 0) depthArray = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D_ARRAY, depthArray);
+        glTexImage3D(GL_TEXTURE_2D_ARRAY, 0, GL_DEPTH_COMPONENT24, size, size, layers, 0,
+            GL_DEPTH_COMPONENT, GL_FLOAT, 0L);
+
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_BORDER);
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_BORDER);
+
+        // Outside a cascade should be considered fully lit.
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer border = stack.mallocFloat(4);
+            border.put(1f).put(1f).put(1f).put(1f).flip();
+            glTexParameterfv(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_BORDER_COLOR, border);
+        }
+
+        // Hardware depth comparison for sampler2DArrayShadow.
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_COMPARE_MODE, GL_COMPARE_REF_TO_TEXTURE);
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_COMPARE_FUNC, GL_LEQUAL);
+
+        glBindTexture(GL_TEXTURE_2D_ARRAY, 0);
+
+        if (fbo == 0) fbo = glGenFramebuffers();
+        glBindFramebuffer(GL_FRAMEBUFFER, fbo);
+        glFramebufferTextureLayer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, depthArray, 0, 0);
+        glDrawBuffer(GL_NONE);
+        glReadBuffer(GL_NONE);
+
+        int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        if (status != GL_FRAMEBUFFER_COMPLETE) {
+            throw new IllegalStateException("Cascaded shadow framebuffer incomplete: 0x" + Integer.toHexString(status));
+        }
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        invalidate();
+    }
+
+    @Override
+    public void close() {
+        if (depthArray != 0) glDeleteTextures(depthArray);
+        if (fbo != 0) glDeleteFramebuffers(fbo);
+    }
+}
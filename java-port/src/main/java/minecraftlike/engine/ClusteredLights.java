@@ -0,0 +1,145 @@
+package minecraftlike.engine;
+
+import org.joml.Matrix4f;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * GPU side of clustered point lighting for voxel.frag: builds LightClusters every frame and uploads
+ * them as three buffer textures (GL 3.3 has no SSBOs):
+ * - uClusterTable   RG32UI   per cluster: offset into uClusterLights, light count
+ * - uClusterLights  R32UI    concatenated light indices
+ * - uLightData      RGBA32F  2 texels per light: (x, y, z, radius), (strength, shadow slot or -1, 0, 0)
+ * There is no fixed light limit; upload buffers only grow. Render thread only.
+ */
+public final class ClusteredLights implements AutoCloseable {
+    private final LightClusters clusters = new LightClusters();
+
+    private final int tableBuf;
+    private final int indexBuf;
+    private final int lightBuf;
+    private final int tableTex;
+    private final int indexTex;
+    private final int lightTex;
+
+    private IntBuffer table = MemoryUtil.memAllocInt(LightClusters.CLUSTERS * 2);
+    private IntBuffer indices = MemoryUtil.memAllocInt(1024);
+    private FloatBuffer lights = MemoryUtil.memAllocFloat(8 * 64);
+    private int lightCount;
+
+    public ClusteredLights() {
+        tableBuf = glGenBuffers();
+        indexBuf = glGenBuffers();
+        lightBuf = glGenBuffers();
+        tableTex = bufferTexture(tableBuf, GL_RG32UI);
+        indexTex = bufferTexture(indexBuf, GL_R32UI);
+        lightTex = bufferTexture(lightBuf, GL_RGBA32F);
+    }
+
+    public LightClusters clusters() {
+        return clusters;
+    }
+
+    public int lightCount() {
+        return lightCount;
+    }
+
+    /**
+     * Rebuilds the clusters for this frame's camera and lights and uploads them. shadowSlot may be
+     * null (no point shadows), otherwise shadowSlot[i] is light i's PointShadowAtlas slot or -1.
+     */
+    public void update(Matrix4f view, float fovY, float aspect, float zNear, float zFar,
+                       float[] x, float[] y, float[] z, float[] radius, float[] strength, int[] shadowSlot,
+                       int count) {
+        clusters.build(view, fovY, aspect, zNear, zFar, x, y, z, radius, count);
+        lightCount = count;
+
+        table.clear();
+        for (int c = 0; c < LightClusters.CLUSTERS; c++) {
+            table.put(clusters.offset(c)).put(clusters.count(c));
+        }
+        table.flip();
+        upload(tableBuf, table);
+
+        int n = clusters.indexCount();
+        if (indices.capacity() < Math.max(1, n)) {
+            MemoryUtil.memFree(indices);
+            indices = MemoryUtil.memAllocInt(Math.max(n, indices.capacity() * 2));
+        }
+        indices.clear();
+        indices.put(clusters.indices(), 0, n);
+        if (n == 0) indices.put(0); // keep the buffer texture non-empty
+        indices.flip();
+        upload(indexBuf, indices);
+
+        if (lights.capacity() < 8 * Math.max(1, count)) {
+            MemoryUtil.memFree(lights);
+            lights = MemoryUtil.memAllocFloat(8 * Math.max(count, lights.capacity() / 4));
+        }
+        lights.clear();
+        for (int i = 0; i < count; i++) {
+            lights.put(x[i]).put(y[i]).put(z[i]).put(radius[i]);
+            lights.put(strength[i]).put(shadowSlot != null ? shadowSlot[i] : -1).put(0.0f).put(0.0f);
+        }
+        if (count == 0) {
+            for (int k = 0; k < 8; k++) lights.put(0.0f);
+        }
+        lights.flip();
+        glBindBuffer(GL_TEXTURE_BUFFER, lightBuf);
+        glBufferData(GL_TEXTURE_BUFFER, lights, GL_STREAM_DRAW);
+        glBindBuffer(GL_TEXTURE_BUFFER, 0);
+    }
+
+    // Binds the three buffer textures to units firstUnit..firstUnit+2 and sets the cluster uniforms.
+    public void apply(ShaderProgram shader, int firstUnit, int viewportWidth, int viewportHeight) {
+        bindTexture(firstUnit, tableTex);
+        bindTexture(firstUnit + 1, indexTex);
+        bindTexture(firstUnit + 2, lightTex);
+        shader.setUniform1i("uClusterTable", firstUnit);
+        shader.setUniform1i("uClusterLights", firstUnit + 1);
+        shader.setUniform1i("uLightData", firstUnit + 2);
+        shader.setUniform3f("uClusterGrid", LightClusters.TILES_X, LightClusters.TILES_Y, LightClusters.SLICES);
+        shader.setUniform2f("uClusterDepth", clusters.sliceScale(), clusters.sliceBias());
+        shader.setUniform2f("uViewportSize", Math.max(1, viewportWidth), Math.max(1, viewportHeight));
+        shader.setUniform1i("uPointLightCount", lightCount);
+    }
+
+    private static int bufferTexture(int buffer, int format) {
+        glBindBuffer(GL_TEXTURE_BUFFER, buffer);
+        glBufferData(GL_TEXTURE_BUFFER, 16L, GL_STREAM_DRAW);
+        glBindBuffer(GL_TEXTURE_BUFFER, 0);
+        int tex = glGenTextures();
+        glBindTexture(GL_TEXTURE_BUFFER, tex);
+        glTexBuffer(GL_TEXTURE_BUFFER, format, buffer);
+        glBindTexture(GL_TEXTURE_BUFFER, 0);
+        return tex;
+    }
+
+    private static void upload(int buffer, IntBuffer data) {
+        glBindBuffer(GL_TEXTURE_BUFFER, buffer);
+        glBufferData(GL_TEXTURE_BUFFER, data, GL_STREAM_DRAW);
+        glBindBuffer(GL_TEXTURE_BUFFER, 0);
+    }
+
+    private static void bindTexture(int unit, int tex) {
+        glActiveTexture(GL_TEXTURE0 + unit);
+        glBindTexture(GL_TEXTURE_BUFFER, tex);
+    }
+
+    @Override
+    public void close() {
+        glDeleteTextures(tableTex);
+        glDeleteTextures(indexTex);
+        glDeleteTextures(lightTex);
+        glDeleteBuffers(tableBuf);
+        glDeleteBuffers(indexBuf);
+        glDeleteBuffers(lightBuf);
+        MemoryUtil.memFree(table);
+        MemoryUtil.memFree(indices);
+        MemoryUtil.memFree(lights);
+    }
+}
@@ -0,0 +1,154 @@
+package minecraftlike.engine;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Low-overhead diagnostics for hot paths (meshing, uploads, ...), instead of System.out.
+ * - Messages are level-gated and formatted lazily: a disabled message costs one volatile read.
+ * - sampled(...) logs only every n-th enabled call per channel (for per-mesh / per-face traces).
+ * - Counters are LongAdders (cheap from many threads), queryable at runtime and dumpable to a file
+ *   together with the most recent messages.
+ * Default level is WARN; start with -Dminecraftlike.diag=debug (or trace) for more, or call setLevel().
+ */
+public final class Diagnostics {
+    public enum Level { OFF, ERROR, WARN, INFO, DEBUG, TRACE }
+
+    private static final int RECENT_LINES = 256;
+
+    private static volatile Level level = parseLevel(System.getProperty("minecraftlike.diag"), Level.WARN);
+    private static volatile boolean echo = true;
+
+    private static final ConcurrentHashMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, AtomicLong> SAMPLES = new ConcurrentHashMap<>();
+
+    // Ring buffer of recent messages (kept for dump()).
+    private static final String[] recent = new String[RECENT_LINES];
+    private static int recentNext;
+
+    private Diagnostics() {}
+
+    public static Level level() {
+        return level;
+    }
+
+    public static void setLevel(Level l) {
+        level = l;
+    }
+
+    // Whether enabled messages are also printed to stdout (they are always kept for dump()).
+    public static void setEcho(boolean enabled) {
+        echo = enabled;
+    }
+
+    public static boolean isEnabled(Level l) {
+        Level cur = level;
+        return l != Level.OFF && cur != Level.OFF && l.ordinal() <= cur.ordinal();
+    }
+
+    public static void log(Level l, String channel, Supplier<String> message) {
+        if (!isEnabled(l)) return;
+        emit(l, channel, message.get());
+    }
+
+    // Logs every n-th enabled call on this channel (the first call is always logged).
+    public static void sampled(Level l, String channel, int every, Supplier<String> message) {
+        if (!isEnabled(l)) return;
+        long n = SAMPLES.computeIfAbsent(channel, k -> new AtomicLong()).getAndIncrement();
+        if (every > 1 && n % every != 0) return;
+        emit(l, channel, message.get() + " (1/" + Math.max(1, every) + ", #" + n + ")");
+    }
+
+    // Returns the named counter, creating it on first use. Keep the reference in a static field on hot paths.
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    // Current value of every counter, sorted by name.
+    public static Map<String, Long> counters() {
+        TreeMap<String, Long> out = new TreeMap<>();
+        for (Counter c : COUNTERS.values()) out.put(c.name, c.get());
+        return out;
+    }
+
+    public static void resetCounters() {
+        for (Counter c : COUNTERS.values()) c.reset();
+    }
+
+    // Writes all counters and the recent messages to a text file.
+    public static void dump(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            w.println("# diagnostics " + LocalDateTime.now() + " level=" + level);
+            w.println("[counters]");
+            for (Map.Entry<String, Long> e : counters().entrySet()) {
+                w.println(e.getKey() + " = " + e.getValue());
+            }
+            w.println("[recent]");
+            synchronized (recent) {
+                for (int i = 0; i < RECENT_LINES; i++) {
+                    String line = recent[(recentNext + i) % RECENT_LINES];
+                    if (line != null) w.println(line);
+                }
+            }
+        }
+    }
+
+    private static void emit(Level l, String channel, String message) {
+        String line = "[" + l + "] " + channel + ": " + message;
+        synchronized (recent) {
+            recent[recentNext] = line;
+            recentNext = (recentNext + 1) % RECENT_LINES;
+        }
+        if (echo) System.out.println(line);
+    }
+
+    private static Level parseLevel(String s, Level fallback) {
+        if (s == null || s.isBlank()) return fallback;
+        try {
+            return Level.valueOf(s.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    public static final class Counter {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long n) {
+            value.add(n);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        void reset() {
+            value.reset();
+        }
+    }
+}
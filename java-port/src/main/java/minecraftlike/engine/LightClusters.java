@@ -0,0 +1,156 @@
+package minecraftlike.engine;
+
+import org.joml.Matrix4f;
+
+import java.util.Arrays;
+
+/**
+ * CPU side of clustered forward lighting: splits the view frustum into TILES_X x TILES_Y screen tiles
+ * x SLICES depth slices (exponential in view depth) and lists, per cluster, the point lights whose
+ * sphere can reach it. voxel.frag finds its cluster from gl_FragCoord and the view depth and only
+ * loops over that list (see ClusteredLights for the GPU upload).
+ * Light spheres are tested against each cluster with the screen-space bounds of the sphere's view-space
+ * box over the slice's depth range: conservative, so a light is never missing where it reaches.
+ * No GL state (headless-testable); arrays are reused and only grow.
+ */
+public final class LightClusters {
+    public static final int TILES_X = 16;
+    public static final int TILES_Y = 9;
+    public static final int SLICES = 24;
+    public static final int CLUSTERS = TILES_X * TILES_Y * SLICES;
+
+    private final int[] offsets = new int[CLUSTERS];
+    private final int[] counts = new int[CLUSTERS];
+    private int[] indices = new int[1024];
+    private int indexCount;
+
+    // Projection parameters of the last build().
+    private float tanX;
+    private float tanY;
+    private float near;
+    private float far;
+    private float sliceScale; // slice = log(depth) * sliceScale + sliceBias
+    private float sliceBias;
+    private final float[] sliceStart = new float[SLICES + 1];
+
+    // Per-light view-space centre, kept between the counting and the filling pass.
+    private float[] viewX = new float[64];
+    private float[] viewY = new float[64];
+    private float[] viewDepth = new float[64];
+
+    /**
+     * Assigns lights (world position + radius, parallel arrays) to clusters for a camera with the
+     * given view matrix and perspective (vertical fov in radians, aspect = width / height).
+     */
+    public void build(Matrix4f view, float fovY, float aspect, float zNear, float zFar,
+                      float[] x, float[] y, float[] z, float[] radius, int count) {
+        near = Math.max(1e-3f, zNear);
+        far = Math.max(near * 1.001f, zFar);
+        tanY = (float) Math.tan(fovY * 0.5f);
+        tanX = tanY * aspect;
+        float logRange = (float) Math.log(far / near);
+        sliceScale = SLICES / logRange;
+        sliceBias = -SLICES * (float) Math.log(near) / logRange;
+        for (int s = 0; s <= SLICES; s++) sliceStart[s] = near * (float) Math.pow(far / near, s / (float) SLICES);
+
+        if (viewX.length < count) {
+            int n = Math.max(count, viewX.length * 2);
+            viewX = new float[n];
+            viewY = new float[n];
+            viewDepth = new float[n];
+        }
+        for (int i = 0; i < count; i++) {
+            viewX[i] = view.m00() * x[i] + view.m10() * y[i] + view.m20() * z[i] + view.m30();
+            viewY[i] = view.m01() * x[i] + view.m11() * y[i] + view.m21() * z[i] + view.m31();
+            viewDepth[i] = -(view.m02() * x[i] + view.m12() * y[i] + view.m22() * z[i] + view.m32());
+        }
+
+        // Pass 1: count per cluster. Pass 2: prefix sums, then fill.
+        Arrays.fill(counts, 0);
+        int total = 0;
+        for (int i = 0; i < count; i++) total += visit(i, radius[i], false);
+        if (indices.length < total) indices = new int[Math.max(total, indices.length * 2)];
+        int sum = 0;
+        for (int c = 0; c < CLUSTERS; c++) {
+            offsets[c] = sum;
+            sum += counts[c];
+            counts[c] = 0;
+        }
+        for (int i = 0; i < count; i++) visit(i, radius[i], true);
+        indexCount = total;
+    }
+
+    // Walks the clusters light i can reach; counts them, or (fill) appends i to their lists.
+    private int visit(int i, float r, boolean fill) {
+        float cx = viewX[i], cy = viewY[i], d = viewDepth[i];
+        if (r <= 0.0f || d + r < near || d - r > far) return 0;
+        int s0 = slice(Math.max(near, d - r));
+        int s1 = slice(Math.min(far, d + r));
+        int n = 0;
+        for (int s = s0; s <= s1; s++) {
+            // Depth range of the sphere inside this slice (slice bounds widened a little for rounding).
+            float za = Math.max(Math.max(near, d - r), sliceStart[s] * 0.999f);
+            float zb = Math.min(Math.min(far, d + r), sliceStart[s + 1] * 1.001f);
+            if (za > zb) continue;
+            // x / z over the box is extreme at one of the two depths.
+            float minX = Math.min((cx - r) / za, (cx - r) / zb) / tanX;
+            float maxX = Math.max((cx + r) / za, (cx + r) / zb) / tanX;
+            float minY = Math.min((cy - r) / za, (cy - r) / zb) / tanY;
+            float maxY = Math.max((cy + r) / za, (cy + r) / zb) / tanY;
+            if (maxX < -1.0f || minX > 1.0f || maxY < -1.0f || minY > 1.0f) continue;
+            int tx0 = tile(minX, TILES_X), tx1 = tile(maxX, TILES_X);
+            int ty0 = tile(minY, TILES_Y), ty1 = tile(maxY, TILES_Y);
+            for (int ty = ty0; ty <= ty1; ty++) {
+                for (int tx = tx0; tx <= tx1; tx++) {
+                    int c = clusterIndex(tx, ty, s);
+                    if (fill) indices[offsets[c] + counts[c]] = i;
+                    counts[c]++;
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    private static int tile(float ndc, int tiles) {
+        int t = (int) Math.floor((ndc * 0.5f + 0.5f) * tiles);
+        return t < 0 ? 0 : (t >= tiles ? tiles - 1 : t);
+    }
+
+    // Slice of a view depth (same formula as voxel.frag).
+    public int slice(float depth) {
+        int s = (int) Math.floor(Math.log(Math.max(depth, 1e-6f)) * sliceScale + sliceBias);
+        return s < 0 ? 0 : (s >= SLICES ? SLICES - 1 : s);
+    }
+
+    // Cluster of a screen tile (x from the left, y from the bottom, like gl_FragCoord) and slice.
+    public static int clusterIndex(int tileX, int tileY, int slice) {
+        return (slice * TILES_Y + tileY) * TILES_X + tileX;
+    }
+
+    public int offset(int cluster) {
+        return offsets[cluster];
+    }
+
+    public int count(int cluster) {
+        return counts[cluster];
+    }
+
+    // Concatenated light lists (light indices into the arrays given to build()), indexCount() long.
+    public int[] indices() {
+        return indices;
+    }
+
+    public int indexCount() {
+        return indexCount;
+    }
+
+    // uClusterDepth for voxel.frag: slice = int(log(depth) * x + y).
+    public float sliceScale() {
+        return sliceScale;
+    }
+
+    public float sliceBias() {
+        return sliceBias;
+    }
+}
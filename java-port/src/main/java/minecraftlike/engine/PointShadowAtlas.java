@@ -0,0 +1,174 @@
+package minecraftlike.engine;
+
+import org.joml.Matrix4f;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Point-light (torch) shadows for several lights at once: slots x 6 cube faces stored as layers of
+ * one depth texture array (layer = slot * 6 + face), sampled as sampler2DArray uPointShadowAtlas in
+ * voxel.frag with a manual cube-face lookup (GL 3.3 has no cube map arrays). Each layer holds linear
+ * distance / radius, written by point_shadow.frag.
+ * Which light owns a slot and which faces need rendering is decided by scheduler() (see
+ * PointShadowScheduler): faces are cached until geometry near the light changes, and at most
+ * faceBudget faces are rendered per frame. Only slots x 6 layers are allocated, and the face size is
+ * clamped so the array stays within GL_MAX_TEXTURE_SIZE and MAX_BYTES.
+ *
+ * Per frame:
+ * <pre>
+ *  atlas.scheduler().assign(lightX, lightY, lightZ, lightRadius, count, camX, camY, camZ);
+ *  int n = atlas.scheduler().nextFaces(atlas.faceBudget(), faces);
+ *  for (int k = 0; k < n; k++) {
+ *      int slot = faces[k] / 6, face = faces[k] % 6;
+ *      atlas.beginFace(slot, face);
+ *      shader: uLightVP = atlas.faceViewProj(slot, face, m), uLightPos, uFar = scheduler().radius(slot)
+ *      chunks.drawInFrustum(shader, m);
+ *  }
+ *  atlas.end();  atlas.bindDepthTexture(unit);  atlas.applyUniforms(voxelShader);
+ *  // per light: shadowSlot[i] = atlas.scheduler().readySlot(i), passed to ClusteredLights.update(...)
+ * </pre>
+ */
+public final class PointShadowAtlas implements AutoCloseable {
+    public static final int MAX_SLOTS = 8;
+    public static final int DEFAULT_FACE_BUDGET = 6;
+    // Cap on the whole depth array (4 bytes per texel): 8 slots (48 faces) of 1024^2 take 192 MiB.
+    public static final long MAX_BYTES = 64L * 1024 * 1024;
+
+    // View direction and up vector per face, in cube map order (+X, -X, +Y, -Y, +Z, -Z).
+    private static final float[][] FACE_DIR = {
+        {1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}
+    };
+    private static final float[][] FACE_UP = {
+        {0, -1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}, {0, -1, 0}, {0, -1, 0}
+    };
+
+    private static final String[] POS_NAMES = new String[MAX_SLOTS];
+    private static final String[] FAR_NAMES = new String[MAX_SLOTS];
+    static {
+        for (int i = 0; i < MAX_SLOTS; i++) {
+            POS_NAMES[i] = "uPointShadowPos[" + i + "]";
+            FAR_NAMES[i] = "uPointShadowFar[" + i + "]";
+        }
+    }
+
+    private final PointShadowScheduler scheduler;
+    private final Matrix4f faceView = new Matrix4f();
+
+    private int fbo;
+    private int depthArray;
+    private int size;
+    private int faceBudget = DEFAULT_FACE_BUDGET;
+
+    public PointShadowAtlas(int slots, int faceSize) {
+        this.scheduler = new PointShadowScheduler(Math.max(1, Math.min(MAX_SLOTS, slots)));
+        ensureSize(faceSize);
+    }
+
+    public PointShadowScheduler scheduler() {
+        return scheduler;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int faceBudget() {
+        return faceBudget;
+    }
+
+    // Maximum cube faces rendered per frame (6 = one full light).
+    public void setFaceBudget(int faces) {
+        faceBudget = Math.max(1, faces);
+    }
+
+    // Face resolution, clamped by maxSize for the slot count (size() returns the result); reallocates
+    // the atlas and re-renders every face when it changes.
+    public void setSize(int faceSize) {
+        ensureSize(faceSize);
+    }
+
+    // Largest face size the GPU and MAX_BYTES allow for the given number of slots.
+    public static int maxSize(int slots) {
+        int byBudget = (int) Math.sqrt(MAX_BYTES / (4.0 * PointShadowScheduler.FACES * Math.max(1, slots)));
+        return Math.max(1, Math.min(glGetInteger(GL_MAX_TEXTURE_SIZE), byBudget));
+    }
+
+    // 90 degree perspective from the slot's light through one face, far plane = light radius.
+    public Matrix4f faceViewProj(int slot, int face, Matrix4f dest) {
+        float x = scheduler.lightX(slot), y = scheduler.lightY(slot), z = scheduler.lightZ(slot);
+        float[] d = FACE_DIR[face];
+        float[] u = FACE_UP[face];
+        faceView.setLookAt(x, y, z, x + d[0], y + d[1], z + d[2], u[0], u[1], u[2]);
+        dest.setPerspective((float) Math.toRadians(90.0), 1.0f, 0.05f, Math.max(0.1f, scheduler.radius(slot)));
+        return dest.mul(faceView);
+    }
+
+    public void beginFace(int slot, int face) {
+        glBindFramebuffer(GL_FRAMEBUFFER, fbo);
+        glFramebufferTextureLayer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, depthArray, 0,
+            slot * PointShadowScheduler.FACES + face);
+        glViewport(0, 0, size, size);
+        glClear(GL_DEPTH_BUFFER_BIT);
+    }
+
+    public void end() {
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+    }
+
+    public void bindDepthTexture(int textureUnit) {
+        glActiveTexture(GL_TEXTURE0 + textureUnit);
+        glBindTexture(GL_TEXTURE_2D_ARRAY, depthArray);
+    }
+
+    // Light position and far plane of every used slot (which light uses which slot goes through
+    // ClusteredLights' light data).
+    public void applyUniforms(ShaderProgram shader) {
+        for (int s = 0; s < scheduler.slots(); s++) {
+            if (!scheduler.isUsed(s)) continue;
+            shader.setUniform3f(POS_NAMES[s], scheduler.lightX(s), scheduler.lightY(s), scheduler.lightZ(s));
+            shader.setUniform1f(FAR_NAMES[s], scheduler.radius(s));
+        }
+    }
+
+    private void ensureSize(int desiredSize) {
+        int s = Math.max(1, Math.min(desiredSize, maxSize(scheduler.slots())));
+        if (s == size && fbo != 0 && depthArray != 0) return;
+
+        size = s;
+
+        if (depthArray == 0) depthArray = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D_ARRAY, depthArray);
+        glTexImage3D(GL_TEXTURE_2D_ARRAY, 0, GL_DEPTH_COMPONENT24, size, size,
+            scheduler.slots() * PointShadowScheduler.FACES, 0, GL_DEPTH_COMPONENT, GL_FLOAT, 0L);
+
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+
+        // IMPORTANT: we want to sample raw depth values in the voxel shader.
+        glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_COMPARE_MODE, GL_NONE);
+
+        glBindTexture(GL_TEXTURE_2D_ARRAY, 0);
+
+        if (fbo == 0) fbo = glGenFramebuffers();
+        glBindFramebuffer(GL_FRAMEBUFFER, fbo);
+        glFramebufferTextureLayer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, depthArray, 0, 0);
+        glDrawBuffer(GL_NONE);
+        glReadBuffer(GL_NONE);
+
+        int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        if (status != GL_FRAMEBUFFER_COMPLETE) {
+            throw new IllegalStateException("Point shadow framebuffer incomplete: 0x" + Integer.toHexString(status));
+        }
+
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        scheduler.reset();
+    }
+
+    @Override
+    public void close() {
+        if (depthArray != 0) glDeleteTextures(depthArray);
+        if (fbo != 0) glDeleteFramebuffers(fbo);
+    }
+}
@@ -0,0 +1,248 @@
+package minecraftlike.engine;
+
+/**
+ * Decides which point lights own a slot of the PointShadowAtlas and which cube faces to re-render.
+ * - assign(...) gives the slots to the lights nearest the camera; a light keeps its slot (and its
+ *   rendered faces) for as long as it stays among the nearest.
+ * - A face is rendered once, then only again after invalidateBox(...) hits it (geometry inside the
+ *   light's radius, on that face's side of the light, changed) or the slot gets a new light.
+ * - nextFaces(budget, ...) hands out at most budget stale faces per frame, nearest lights first;
+ *   the rest wait for the next frame. A slot is only sampled once all six faces were rendered.
+ * No GL state (headless-testable); render thread only.
+ */
+public final class PointShadowScheduler {
+    public static final int FACES = 6;
+    private static final int ALL_FACES = (1 << FACES) - 1;
+
+    private static final Diagnostics.Counter FACES_RENDERED = Diagnostics.counter("pointshadow.faces.rendered");
+    private static final Diagnostics.Counter FACES_CACHED = Diagnostics.counter("pointshadow.faces.cached");
+    private static final Diagnostics.Counter FACES_DEFERRED = Diagnostics.counter("pointshadow.faces.deferred");
+
+    private final int slots;
+    // Per slot: light position/radius, stale-face bits, whether all faces were rendered once.
+    private final float[] slotX;
+    private final float[] slotY;
+    private final float[] slotZ;
+    private final float[] slotRadius;
+    private final boolean[] slotUsed;
+    private final boolean[] slotReady;
+    private final int[] stale;
+    private final float[] slotDist2;
+
+    // Light index -> slot (or -1) for the last assign(), and scratch for picking the nearest.
+    private int[] lightSlot = new int[32];
+    private final int[] nearest;
+    private final boolean[] keep;
+
+    private int lastRendered;
+    private int lastDeferred;
+    private int lastCached;
+
+    public PointShadowScheduler(int slots) {
+        this.slots = Math.max(1, slots);
+        this.slotX = new float[this.slots];
+        this.slotY = new float[this.slots];
+        this.slotZ = new float[this.slots];
+        this.slotRadius = new float[this.slots];
+        this.slotUsed = new boolean[this.slots];
+        this.slotReady = new boolean[this.slots];
+        this.stale = new int[this.slots];
+        this.slotDist2 = new float[this.slots];
+        this.nearest = new int[this.slots];
+        this.keep = new boolean[this.slots];
+    }
+
+    public int slots() {
+        return slots;
+    }
+
+    /**
+     * Assigns slots to the (up to slots()) lights nearest to the camera. Lights are given as parallel
+     * arrays (position and radius, the radius is the shadow far plane). Allocation-free once
+     * lightSlot has grown to the light count.
+     */
+    public void assign(float[] x, float[] y, float[] z, float[] radius, int count,
+                       float camX, float camY, float camZ) {
+        if (lightSlot.length < count) lightSlot = new int[Math.max(count, lightSlot.length * 2)];
+        for (int i = 0; i < count; i++) lightSlot[i] = -1;
+
+        // Partial selection of the nearest lights: O(count * slots). count is every light the clusters
+        // take (no cap since LightClusters); what keeps this cheap is slots, a handful of cubemaps.
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            float dx = x[i] - camX, dy = y[i] - camY, dz = z[i] - camZ;
+            float d2 = dx * dx + dy * dy + dz * dz;
+            if (n < slots) {
+                nearest[n] = i;
+                slotDist2[n++] = d2;
+            } else {
+                int far = 0;
+                for (int k = 1; k < n; k++) if (slotDist2[k] > slotDist2[far]) far = k;
+                if (d2 >= slotDist2[far]) continue;
+                nearest[far] = i;
+                slotDist2[far] = d2;
+            }
+        }
+
+        // Lights that already own a slot keep it.
+        for (int s = 0; s < slots; s++) keep[s] = false;
+        for (int k = 0; k < n; k++) {
+            int i = nearest[k];
+            for (int s = 0; s < slots; s++) {
+                if (slotUsed[s] && !keep[s] && slotX[s] == x[i] && slotY[s] == y[i] && slotZ[s] == z[i]
+                        && slotRadius[s] == radius[i]) {
+                    keep[s] = true;
+                    lightSlot[i] = s;
+                    break;
+                }
+            }
+        }
+        // New lights take over the remaining slots and need all six faces.
+        int free = 0;
+        for (int k = 0; k < n; k++) {
+            int i = nearest[k];
+            if (lightSlot[i] >= 0) continue;
+            while (keep[free]) free++;
+            keep[free] = true;
+            slotUsed[free] = true;
+            slotReady[free] = false;
+            slotX[free] = x[i];
+            slotY[free] = y[i];
+            slotZ[free] = z[i];
+            slotRadius[free] = radius[i];
+            stale[free] = ALL_FACES;
+            lightSlot[i] = free;
+        }
+        for (int s = 0; s < slots; s++) {
+            if (!keep[s]) {
+                slotUsed[s] = false;
+                slotReady[s] = false;
+            }
+        }
+        // Priority for nextFaces(): distance of each slot's light to the camera.
+        for (int s = 0; s < slots; s++) {
+            float dx = slotX[s] - camX, dy = slotY[s] - camY, dz = slotZ[s] - camZ;
+            slotDist2[s] = slotUsed[s] ? dx * dx + dy * dy + dz * dz : Float.MAX_VALUE;
+        }
+    }
+
+    // Slot of light i from the last assign(), or -1 if it has none or its faces aren't all rendered yet.
+    public int readySlot(int light) {
+        if (light < 0 || light >= lightSlot.length) return -1;
+        int s = lightSlot[light];
+        return s >= 0 && slotReady[s] ? s : -1;
+    }
+
+    public boolean isUsed(int slot) {
+        return slotUsed[slot];
+    }
+
+    public float lightX(int slot) {
+        return slotX[slot];
+    }
+
+    public float lightY(int slot) {
+        return slotY[slot];
+    }
+
+    public float lightZ(int slot) {
+        return slotZ[slot];
+    }
+
+    public float radius(int slot) {
+        return slotRadius[slot];
+    }
+
+    // Geometry inside the box changed: marks every face that can see part of it stale.
+    public void invalidateBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for (int s = 0; s < slots; s++) {
+            if (!slotUsed[s]) continue;
+            float lx = slotX[s], ly = slotY[s], lz = slotZ[s], r = slotRadius[s];
+            // Sphere vs box.
+            float cx = Math.max(minX, Math.min(lx, maxX)) - lx;
+            float cy = Math.max(minY, Math.min(ly, maxY)) - ly;
+            float cz = Math.max(minZ, Math.min(lz, maxZ)) - lz;
+            if (cx * cx + cy * cy + cz * cz > r * r) continue;
+            // Face 0..5 = +X, -X, +Y, -Y, +Z, -Z: only faces whose half-space the box reaches.
+            int faces = 0;
+            if (maxX > lx) faces |= 1;
+            if (minX < lx) faces |= 1 << 1;
+            if (maxY > ly) faces |= 1 << 2;
+            if (minY < ly) faces |= 1 << 3;
+            if (maxZ > lz) faces |= 1 << 4;
+            if (minZ < lz) faces |= 1 << 5;
+            stale[s] |= faces;
+        }
+    }
+
+    public void invalidateAll() {
+        for (int s = 0; s < slots; s++) if (slotUsed[s]) stale[s] = ALL_FACES;
+    }
+
+    // Like invalidateAll(), but the old faces are unusable (e.g. the atlas was reallocated):
+    // lights are unshadowed until all their faces are rendered again.
+    public void reset() {
+        invalidateAll();
+        for (int s = 0; s < slots; s++) slotReady[s] = false;
+    }
+
+    /**
+     * Picks at most budget stale faces (nearest lights first) and writes them to out as
+     * slot * 6 + face. They count as rendered from now on: the caller must render all of them
+     * this frame. Returns the number written.
+     */
+    public int nextFaces(int budget, int[] out) {
+        int limit = Math.min(Math.max(0, budget), out.length);
+        int written = 0;
+        int staleFaces = 0;
+        int usedFaces = 0;
+        for (int s = 0; s < slots; s++) {
+            if (!slotUsed[s]) continue;
+            usedFaces += FACES;
+            staleFaces += Integer.bitCount(stale[s]);
+        }
+        while (written < limit) {
+            int best = -1;
+            for (int s = 0; s < slots; s++) {
+                if (slotUsed[s] && stale[s] != 0 && (best < 0 || slotDist2[s] < slotDist2[best])) best = s;
+            }
+            if (best < 0) break;
+            while (written < limit && stale[best] != 0) {
+                int face = Integer.numberOfTrailingZeros(stale[best]);
+                stale[best] &= ~(1 << face);
+                out[written++] = best * FACES + face;
+            }
+            if (stale[best] == 0) slotReady[best] = true;
+        }
+        lastRendered = written;
+        lastDeferred = staleFaces - written;
+        lastCached = usedFaces - staleFaces;
+        FACES_RENDERED.add(lastRendered);
+        FACES_DEFERRED.add(lastDeferred);
+        FACES_CACHED.add(lastCached);
+        return written;
+    }
+
+    public int renderedLastFrame() {
+        return lastRendered;
+    }
+
+    public int deferredLastFrame() {
+        return lastDeferred;
+    }
+
+    // Fraction of the in-use faces that were reused without rendering (since startup / resetCounters).
+    public static double cacheHitRate() {
+        long cached = FACES_CACHED.get();
+        long total = cached + FACES_RENDERED.get() + FACES_DEFERRED.get();
+        return total == 0 ? 1.0 : cached / (double) total;
+    }
+
+    // One line for the debug overlay.
+    public String describe(int budget) {
+        int used = 0;
+        for (int s = 0; s < slots; s++) if (slotUsed[s]) used++;
+        return String.format("PT SHADOWS %d/%d  FACES %d/%d (+%d WAIT)  HIT %.2f",
+            used, slots, lastRendered, budget, lastDeferred, cacheHitRate());
+    }
+}
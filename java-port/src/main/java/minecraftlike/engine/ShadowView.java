@@ -0,0 +1,127 @@
+package minecraftlike.engine;
+
+import org.joml.Matrix4f;
+
+/**
+ * Light-space matrix for the sun shadow map, plus the decision whether the map has to be re-rendered.
+ * The orthographic box is centred on the focus (usually the camera) snapped to a coarse grid in light
+ * space, so it only moves in whole-texel steps and stays put while the focus wanders inside one cell.
+ * The map is re-rendered when:
+ * - the sun direction moved by more than the angle threshold,
+ * - the focus crossed into another snapped cell (or moved a cell along the sun direction),
+ * - the distance or resolution changed, or invalidate() was called (e.g. a caster inside it changed).
+ * The box covers shadowDistance plus one cell, so everything within shadowDistance of the focus is
+ * always inside the cached map. No GL state; CascadedShadowMap keeps one per cascade.
+ */
+public final class ShadowView {
+    // Casters this far above/below the focus along the sun direction are kept (covers the world height).
+    private static final float DEPTH_RANGE = 256.0f;
+    private static final Diagnostics.Counter RENDERS = Diagnostics.counter("shadow.renders");
+    private static final Diagnostics.Counter REUSED = Diagnostics.counter("shadow.reused");
+
+    private final Matrix4f lightView = new Matrix4f();
+    private final Matrix4f lightProj = new Matrix4f();
+    private final Matrix4f lightViewProj = new Matrix4f();
+
+    // Cell size as a fraction of the shadow distance, and the sun movement that forces a re-render.
+    private float cellFraction = 0.125f;
+    private float sunCosThreshold = (float) Math.cos(Math.toRadians(0.25));
+
+    // Light basis (towards the sun = -forward) and the state the current map was rendered with.
+    private float sunX, sunY, sunZ;
+    private float rightX, rightY, rightZ;
+    private float upX, upY, upZ;
+    private float cellX, cellY, cellDepth;
+    private float distance = -1.0f;
+    private int size;
+    private boolean valid;
+
+    public Matrix4f lightViewProj() {
+        return lightViewProj;
+    }
+
+    public void setCellFraction(float fraction) {
+        cellFraction = Math.max(0.01f, Math.min(0.5f, fraction));
+        valid = false;
+    }
+
+    public void setSunAngleThresholdDegrees(float degrees) {
+        sunCosThreshold = (float) Math.cos(Math.toRadians(Math.max(0.0f, degrees)));
+    }
+
+    // Forces a re-render on the next update() (caster geometry inside the map changed).
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Fits the light box for a sun direction (pointing towards the sun), focus point, shadow distance
+     * and map resolution. Returns true if the shadow map must be re-rendered with lightViewProj();
+     * false if the previously rendered map is still valid (lightViewProj() is then unchanged).
+     */
+    public boolean update(float toSunX, float toSunY, float toSunZ,
+                          float focusX, float focusY, float focusZ,
+                          float shadowDistance, int mapSize) {
+        float len = (float) Math.sqrt(toSunX * toSunX + toSunY * toSunY + toSunZ * toSunZ);
+        if (len < 1e-6f) {
+            toSunX = 0.0f; toSunY = 1.0f; toSunZ = 0.0f;
+        } else {
+            toSunX /= len; toSunY /= len; toSunZ /= len;
+        }
+        float dist = Math.max(1.0f, shadowDistance);
+        int res = Math.max(1, mapSize);
+
+        boolean sunMoved = !valid || toSunX * sunX + toSunY * sunY + toSunZ * sunZ < sunCosThreshold;
+        boolean stale = sunMoved || dist != distance || res != size;
+        if (sunMoved) setBasis(toSunX, toSunY, toSunZ);
+
+        // Cell size is a whole number of texels so the snapped box never shifts by a fraction of one.
+        float half = dist * (1.0f + cellFraction);
+        float texel = 2.0f * half / res;
+        float cell = Math.max(1.0f, Math.round(dist * cellFraction / texel)) * texel;
+        float lx = rightX * focusX + rightY * focusY + rightZ * focusZ;
+        float ly = upX * focusX + upY * focusY + upZ * focusZ;
+        float cx = (float) Math.floor(lx / cell + 0.5f) * cell;
+        float cy = (float) Math.floor(ly / cell + 0.5f) * cell;
+        // Distance of the focus along the view direction (-sun); the depth range only needs to follow it coarsely.
+        float depth = -(sunX * focusX + sunY * focusY + sunZ * focusZ);
+        if (!stale && cx == cellX && cy == cellY && Math.abs(depth - cellDepth) <= cell) {
+            REUSED.increment();
+            return false;
+        }
+
+        // View from the origin looking along -sun.
+        lightView.setLookAt(0.0f, 0.0f, 0.0f, -sunX, -sunY, -sunZ, upX, upY, upZ);
+        lightProj.setOrtho(cx - half, cx + half, cy - half, cy + half, depth - DEPTH_RANGE, depth + DEPTH_RANGE);
+        lightProj.mul(lightView, lightViewProj);
+
+        cellX = cx;
+        cellY = cy;
+        cellDepth = depth;
+        distance = dist;
+        size = res;
+        valid = true;
+        RENDERS.increment();
+        return true;
+    }
+
+    private void setBasis(float x, float y, float z) {
+        sunX = x; sunY = y; sunZ = z;
+        // Reference up: world +Y, or +Z when the sun is (nearly) straight overhead.
+        float refX = 0.0f, refY = 1.0f, refZ = 0.0f;
+        if (Math.abs(y) > 0.99f) {
+            refY = 0.0f;
+            refZ = 1.0f;
+        }
+        // right = forward x ref with forward = -sun, up = right x forward (matches Matrix4f.setLookAt).
+        float fx = -x, fy = -y, fz = -z;
+        float rx = fy * refZ - fz * refY;
+        float ry = fz * refX - fx * refZ;
+        float rz = fx * refY - fy * refX;
+        float rl = (float) Math.sqrt(rx * rx + ry * ry + rz * rz);
+        rightX = rx / rl; rightY = ry / rl; rightZ = rz / rl;
+        upX = rightY * fz - rightZ * fy;
+        upY = rightZ * fx - rightX * fz;
+        upZ = rightX * fy - rightY * fx;
+    }
+}
@@ -0,0 +1,199 @@
+package minecraftlike.voxel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Palette + bit-packed block storage.
+ * Each cell stores a small index into a per-storage palette of BlockTypes. The index width grows
+ * 0 -> 1 -> 2 -> 4 -> 8 bits as new block types are placed, so typical terrain needs 1..4 bits per block.
+ * Entries never straddle a long (widths are powers of two), which keeps get/set to a shift and a mask.
+ */
+final class BlockStorage {
+    private static final BlockType[] TYPES = BlockType.values();
+
+    private final int size;
+
+    private BlockType[] palette;
+    private int paletteSize;
+    // BlockType.ordinal() -> palette index, or -1 if the type is not in the palette.
+    private final byte[] paletteIndex = new byte[TYPES.length];
+
+    private int bits;          // 0, 1, 2, 4 or 8
+    private int bitsShift;     // log2(bits)
+    private int perLongShift;  // log2(64 / bits)
+    private int perLongMask;
+    private long mask;
+    private long[] data;
+
+    BlockStorage(int size, BlockType fill) {
+        this.size = size;
+        fill(fill);
+    }
+
+    private BlockStorage(BlockStorage src) {
+        this.size = src.size;
+        this.palette = src.palette.clone();
+        this.paletteSize = src.paletteSize;
+        System.arraycopy(src.paletteIndex, 0, paletteIndex, 0, paletteIndex.length);
+        this.bits = src.bits;
+        this.bitsShift = src.bitsShift;
+        this.perLongShift = src.perLongShift;
+        this.perLongMask = src.perLongMask;
+        this.mask = src.mask;
+        this.data = src.data != null ? src.data.clone() : null;
+    }
+
+    // Reads the form written by write(); the packed longs go straight into the new storage's array.
+    static BlockStorage read(int size, ByteBuffer in) throws IOException {
+        int count = in.get() & 0xFF;
+        if (count == 0 || count > TYPES.length) throw new IOException("bad palette size " + count);
+        BlockStorage s = new BlockStorage(size, typeAt(in.get()));
+        for (int p = 1; p < count; p++) {
+            BlockType t = typeAt(in.get());
+            if (s.paletteIndex[t.ordinal()] >= 0) throw new IOException("duplicate palette entry " + t);
+            s.appendToPalette(t);
+        }
+        if (count == 1) return s;
+        int bits = 1;
+        while ((1 << bits) < count) bits <<= 1;
+        s.resize(bits); // from 0 bits: allocates the array without converting anything
+        in.asLongBuffer().get(s.data);
+        in.position(in.position() + 8 * s.data.length);
+        return s;
+    }
+
+    private static BlockType typeAt(byte ordinal) throws IOException {
+        int i = ordinal & 0xFF;
+        if (i >= TYPES.length) throw new IOException("unknown block type " + i);
+        return TYPES[i];
+    }
+
+    // Serialized form (ChunkCodec): palette size, the palette as BlockType ordinals, then the packed
+    // longs. The index width follows from the palette size, so it is not stored.
+    void write(ByteBuffer out) {
+        out.put((byte) paletteSize);
+        for (int p = 0; p < paletteSize; p++) out.put((byte) palette[p].ordinal());
+        if (data != null) {
+            out.asLongBuffer().put(data);
+            out.position(out.position() + 8 * data.length);
+        }
+    }
+
+    BlockStorage copy() {
+        return new BlockStorage(this);
+    }
+
+    BlockType get(int i) {
+        if (bits == 0) return palette[0];
+        long word = data[i >>> perLongShift];
+        int shift = (i & perLongMask) << bitsShift;
+        return palette[(int) ((word >>> shift) & mask)];
+    }
+
+    void set(int i, BlockType t) {
+        int p = paletteIndex[t.ordinal()];
+        if (p < 0) p = addToPalette(t);
+        if (bits == 0) return;
+        int w = i >>> perLongShift;
+        int shift = (i & perLongMask) << bitsShift;
+        data[w] = (data[w] & ~(mask << shift)) | ((long) p << shift);
+    }
+
+    // Resets every cell to t and drops the packed data (0 bits per entry).
+    void fill(BlockType t) {
+        Arrays.fill(paletteIndex, (byte) -1);
+        palette = new BlockType[2];
+        palette[0] = t;
+        paletteIndex[t.ordinal()] = 0;
+        paletteSize = 1;
+        resize(0);
+    }
+
+    // Returns the single type stored in every cell, or null if the storage is mixed.
+    BlockType uniformType() {
+        if (bits == 0) return palette[0];
+        long first = data[0] & mask;
+        long pattern = 0L;
+        for (int s = 0; s < 64; s += bits) pattern |= first << s;
+        int full = size >>> perLongShift;
+        for (int w = 0; w < full; w++) {
+            if (data[w] != pattern) return null;
+        }
+        for (int i = full << perLongShift; i < size; i++) {
+            if (((data[i >>> perLongShift] >>> ((i & perLongMask) << bitsShift)) & mask) != first) return null;
+        }
+        return palette[(int) first];
+    }
+
+    int bitsPerEntry() {
+        return bits;
+    }
+
+    int paletteSize() {
+        return paletteSize;
+    }
+
+    // Approximate heap footprint in bytes (64-bit JVM, compressed oops, 16-byte array headers).
+    long memoryBytes() {
+        long bytes = 32; // this object
+        bytes += 16 + 4L * palette.length;
+        bytes += 16 + paletteIndex.length;
+        if (data != null) bytes += 16 + 8L * data.length;
+        return bytes;
+    }
+
+    private int addToPalette(BlockType t) {
+        int p = appendToPalette(t);
+        int needed = bits == 0 ? 1 : bits;
+        while ((1 << needed) < paletteSize) needed <<= 1;
+        if (needed != bits) resize(needed);
+        return p;
+    }
+
+    private int appendToPalette(BlockType t) {
+        if (paletteSize == palette.length) {
+            BlockType[] n = new BlockType[palette.length * 2];
+            System.arraycopy(palette, 0, n, 0, paletteSize);
+            palette = n;
+        }
+        int p = paletteSize++;
+        palette[p] = t;
+        paletteIndex[t.ordinal()] = (byte) p;
+        return p;
+    }
+
+    private void resize(int newBits) {
+        int oldBits = bits;
+        int oldShift = bitsShift;
+        int oldPerLongShift = perLongShift;
+        int oldPerLongMask = perLongMask;
+        long oldMask = mask;
+        long[] old = data;
+
+        bits = newBits;
+        if (newBits == 0) {
+            bitsShift = 0;
+            perLongShift = 0;
+            perLongMask = 0;
+            mask = 0L;
+            data = null;
+            return;
+        }
+        bitsShift = Integer.numberOfTrailingZeros(newBits);
+        perLongShift = 6 - bitsShift;
+        perLongMask = (1 << perLongShift) - 1;
+        mask = (1L << newBits) - 1L;
+        data = new long[(size + perLongMask) >>> perLongShift];
+
+        if (oldBits == 0) return; // all zero == palette[0]
+        for (int i = 0; i < size; i++) {
+            long word = old[i >>> oldPerLongShift];
+            long p = (word >>> ((i & oldPerLongMask) << oldShift)) & oldMask;
+            if (p == 0) continue;
+            int w = i >>> perLongShift;
+            data[w] |= p << ((i & perLongMask) << bitsShift);
+        }
+    }
+}
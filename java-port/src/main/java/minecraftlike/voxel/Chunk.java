@@ -1,28 +1,272 @@
 package minecraftlike.voxel;
 
+import java.util.Arrays;
+
 public final class Chunk {
     public static final int SIZE = 16;
     public static final int HEIGHT = 128;
+    public static final int SECTIONS = HEIGHT / SIZE;
 
     public final int cx;
     public final int cz;
 
-    // Simple storage for now (MVP). Later: palettes/bitpacking.
-    private final BlockType[] blocks = new BlockType[SIZE * HEIGHT * SIZE];
+    // Vertical 16^3 sections, bottom to top. null == all air.
+    // Each section uses palette + bitpacked storage (see BlockStorage).
+    private final ChunkSection[] sections = new ChunkSection[SECTIONS];
+
+    // Per-column heightmaps, kept up to date by set() / fillSection(), stored as y + 1 (0 = none):
+    // the highest non-air block and the highest block that stops direct skylight (LightEngine.opacity > 0).
+    private final byte[] surface = new byte[SIZE * SIZE];
+    private final byte[] skyBlocker = new byte[SIZE * SIZE];
+
+    // Packed light per section (see SectionLight, LightEngine). null == every cell holds lightFill[sy].
+    // Until LightEngine.lightChunk() runs, getLight() falls back to the heightmap: 15 above skyBlockerY, 0 below.
+    private final SectionLight[] light = new SectionLight[SECTIONS];
+    private final byte[] lightFill = new byte[SECTIONS];
+    // Set by LightEngine.lightChunk(); until then the engine treats the chunk as not loaded.
+    boolean lit;
+    // Blocks changed since the chunk was last saved or loaded (ChunkStore). New chunks start dirty.
+    private boolean dirty = true;
 
     public Chunk(int cx, int cz) {
         this.cx = cx;
         this.cz = cz;
-        for (int i = 0; i < blocks.length; i++) blocks[i] = BlockType.AIR;
+        Arrays.fill(lightFill, (byte) LightEngine.OPEN_SKY);
     }
 
     public BlockType get(int x, int y, int z) {
         if (x < 0 || x >= SIZE || z < 0 || z >= SIZE || y < 0 || y >= HEIGHT) return BlockType.AIR;
-        return blocks[(y * SIZE + z) * SIZE + x];
+        ChunkSection s = sections[y >> 4];
+        if (s == null) return BlockType.AIR;
+        return s.get(x, y & 15, z);
     }
 
     public void set(int x, int y, int z, BlockType t) {
         if (x < 0 || x >= SIZE || z < 0 || z >= SIZE || y < 0 || y >= HEIGHT) return;
-        blocks[(y * SIZE + z) * SIZE + x] = t;
+        int sy = y >> 4;
+        ChunkSection s = sections[sy];
+        if (s == null) {
+            if (t == BlockType.AIR) return;
+            s = new ChunkSection(BlockType.AIR);
+            sections[sy] = s;
+        } else if (s.shared) {
+            // Copy-on-write: a snapshot still references this section.
+            if (s.get(x, y & 15, z) == t) return;
+            s = s.copy();
+            sections[sy] = s;
+        }
+        s.set(x, y & 15, z, t);
+        if (s.isEmpty()) sections[sy] = null;
+        updateHeights(x, y, z, t);
+        dirty = true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    void markSaved() {
+        dirty = false;
+    }
+
+    // Installs decoded sections (ChunkCodec) and rebuilds the heightmaps from them. The chunk counts as saved.
+    void loadSections(ChunkSection[] src) {
+        System.arraycopy(src, 0, sections, 0, SECTIONS);
+        for (int z = 0; z < SIZE; z++) {
+            for (int x = 0; x < SIZE; x++) {
+                int top = highestBelow(x, HEIGHT, z, false);
+                // The sky blocker is at or below the surface; usually the surface block itself.
+                int blocker = top >= 0 && LightEngine.opacity(get(x, top, z)) > 0 ? top : highestBelow(x, top, z, true);
+                surface[z * SIZE + x] = (byte) (top + 1);
+                skyBlocker[z * SIZE + x] = (byte) (blocker + 1);
+            }
+        }
+        dirty = false;
+    }
+
+    // y of the highest non-air block in the column, -1 if it is empty. O(1).
+    public int surfaceY(int x, int z) {
+        return (surface[z * SIZE + x] & 0xFF) - 1;
+    }
+
+    // y of the highest block that keeps direct skylight from the cells below it, -1 if none. O(1).
+    public int skyBlockerY(int x, int z) {
+        return (skyBlocker[z * SIZE + x] & 0xFF) - 1;
+    }
+
+    private void updateHeights(int x, int y, int z, BlockType t) {
+        int col = z * SIZE + x;
+        int top = (surface[col] & 0xFF) - 1;
+        if (t != BlockType.AIR) {
+            if (y > top) surface[col] = (byte) (y + 1);
+        } else if (y == top) {
+            surface[col] = (byte) (highestBelow(x, y, z, false) + 1);
+        }
+        top = (skyBlocker[col] & 0xFF) - 1;
+        if (LightEngine.opacity(t) > 0) {
+            if (y > top) skyBlocker[col] = (byte) (y + 1);
+        } else if (y == top) {
+            skyBlocker[col] = (byte) (highestBelow(x, y, z, true) + 1);
+        }
+    }
+
+    // Highest y below fromY holding a non-air (or, with blocksSky, a light-blocking) block; -1 if none.
+    private int highestBelow(int x, int fromY, int z, boolean blocksSky) {
+        for (int y = fromY - 1; y >= 0; y--) {
+            ChunkSection s = sections[y >> 4];
+            if (s == null) {
+                y &= ~15; // skip the rest of an empty section
+                continue;
+            }
+            BlockType t = s.get(x, y & 15, z);
+            if (blocksSky ? LightEngine.opacity(t) > 0 : t != BlockType.AIR) return y;
+        }
+        return -1;
+    }
+
+    // Heightmap update after a whole section was set to t.
+    private void updateHeights(int sy, BlockType t) {
+        int y0 = sy * SIZE;
+        int y1 = y0 + SIZE - 1;
+        boolean solid = t != BlockType.AIR;
+        boolean blocksSky = LightEngine.opacity(t) > 0;
+        for (int z = 0; z < SIZE; z++) {
+            for (int x = 0; x < SIZE; x++) {
+                int col = z * SIZE + x;
+                int top = (surface[col] & 0xFF) - 1;
+                if (solid ? top < y1 : top >= y0 && top <= y1) {
+                    surface[col] = (byte) ((solid ? y1 : highestBelow(x, y0, z, false)) + 1);
+                }
+                top = (skyBlocker[col] & 0xFF) - 1;
+                if (blocksSky ? top < y1 : top >= y0 && top <= y1) {
+                    skyBlocker[col] = (byte) ((blocksSky ? y1 : highestBelow(x, y0, z, true)) + 1);
+                }
+            }
+        }
+    }
+
+    public boolean isSectionEmpty(int sy) {
+        return sy < 0 || sy >= SECTIONS || sections[sy] == null;
+    }
+
+    // The type filling the whole section (AIR for empty sections), or null if it is mixed.
+    public BlockType sectionUniformType(int sy) {
+        if (isSectionEmpty(sy)) return BlockType.AIR;
+        return sections[sy].uniformType();
+    }
+
+    // Sets a whole section to one type without touching individual cells.
+    public void fillSection(int sy, BlockType t) {
+        if (sy < 0 || sy >= SECTIONS) return;
+        sections[sy] = (t == BlockType.AIR) ? null : new ChunkSection(t);
+        updateHeights(sy, t);
+        dirty = true;
+    }
+
+    // Collapses sections that ended up uniform back to the 0-bit representation.
+    // Call after bulk edits such as generation.
+    public void trimSections() {
+        for (int sy = 0; sy < SECTIONS; sy++) {
+            ChunkSection s = sections[sy];
+            if (s == null) continue;
+            if (s.isEmpty()) {
+                sections[sy] = null;
+            } else {
+                s.trim();
+            }
+        }
+    }
+
+    // Packed light of a cell: sky level << 4 | block level. Above the world is open sky, below it is dark.
+    public int getLight(int x, int y, int z) {
+        if (y >= HEIGHT) return LightEngine.OPEN_SKY;
+        if (x < 0 || x >= SIZE || z < 0 || z >= SIZE || y < 0) return 0;
+        if (!lit) return y >= (skyBlocker[z * SIZE + x] & 0xFF) ? LightEngine.OPEN_SKY : 0;
+        SectionLight l = light[y >> 4];
+        return l != null ? l.get(ChunkSection.index(x, y & 15, z)) : lightFill[y >> 4] & 0xFF;
+    }
+
+    public int getSkyLight(int x, int y, int z) {
+        return getLight(x, y, z) >> 4;
+    }
+
+    public int getBlockLight(int x, int y, int z) {
+        return getLight(x, y, z) & 15;
+    }
+
+    // Coordinates must be inside the chunk (LightEngine checks them).
+    void setLight(int x, int y, int z, int packed) {
+        int sy = y >> 4;
+        int i = ChunkSection.index(x, y & 15, z);
+        SectionLight l = light[sy];
+        if (l == null) {
+            if ((lightFill[sy] & 0xFF) == packed) return;
+            l = new SectionLight(lightFill[sy] & 0xFF);
+            light[sy] = l;
+        } else if (l.shared) {
+            if (l.get(i) == packed) return;
+            l = l.copy();
+            light[sy] = l;
+        }
+        l.set(i, packed);
+    }
+
+    // Sets every cell of a section to one packed light value.
+    void fillLight(int sy, int packed) {
+        light[sy] = null;
+        lightFill[sy] = (byte) packed;
+    }
+
+    // Drops per-cell light arrays that ended up uniform. Call after bulk lighting.
+    void trimLight() {
+        for (int sy = 0; sy < SECTIONS; sy++) {
+            SectionLight l = light[sy];
+            if (l == null || l.shared) continue;
+            int u = l.uniformValue();
+            if (u >= 0) fillLight(sy, u);
+        }
+    }
+
+    // Immutable view of the current blocks and light for worker threads. Sections are shared, not
+    // copied; the next write to a shared section copies it first.
+    public ChunkSnapshot snapshot() {
+        ChunkSection[] copy = new ChunkSection[SECTIONS];
+        SectionLight[] lightCopy = new SectionLight[SECTIONS];
+        for (int sy = 0; sy < SECTIONS; sy++) {
+            ChunkSection s = sections[sy];
+            if (s != null) s.shared = true;
+            copy[sy] = s;
+            SectionLight l = light[sy];
+            if (l != null) l.shared = true;
+            lightCopy[sy] = l;
+        }
+        return new ChunkSnapshot(cx, cz, copy, lit ? lightCopy : null, lightFill.clone(), skyBlocker.clone());
+    }
+
+    // Approximate resident heap size of this chunk's block and light data.
+    public long memoryBytes() {
+        long bytes = 32 + 5 * 16 + 9L * SECTIONS + 2L * SIZE * SIZE;
+        for (ChunkSection s : sections) {
+            if (s != null) bytes += s.memoryBytes();
+        }
+        for (SectionLight l : light) {
+            if (l != null) bytes += l.memoryBytes();
+        }
+        return bytes;
+    }
+
+    public String memoryReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("chunk(").append(cx).append(',').append(cz).append(") bytes=").append(memoryBytes()).append(" sections=");
+        for (int sy = 0; sy < SECTIONS; sy++) {
+            ChunkSection s = sections[sy];
+            if (sy > 0) sb.append(' ');
+            if (s == null) {
+                sb.append('-');
+            } else {
+                sb.append(s.paletteSize()).append('/').append(s.bitsPerEntry()).append('b');
+            }
+        }
+        return sb.toString();
     }
 }
@@ -0,0 +1,101 @@
+package minecraftlike.voxel;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary form of a chunk's blocks for the region files (see RegionFile, ChunkStore).
+ *
+ * Raw layout: format version, a bit mask of the non-empty sections, then per non-empty section (bottom
+ * to top) its non-air count and palette storage as written by BlockStorage.write. Light is not stored
+ * (LightEngine.lightChunk recomputes it after loading, as after generation) and the heightmaps are
+ * rebuilt from the blocks. The raw bytes are zlib-compressed; zlib's checksum catches damaged records.
+ *
+ * One codec per thread: it keeps its Deflater / Inflater and buffers.
+ */
+final class ChunkCodec {
+    static final int VERSION = 1;
+    // Largest raw chunk: 8-bit indices in every section.
+    static final int MAX_RAW_BYTES = 2 + Chunk.SECTIONS * (2 + 1 + BlockType.values().length + ChunkSection.VOLUME);
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Inflater inflater = new Inflater();
+    private final ByteBuffer raw = ByteBuffer.allocate(MAX_RAW_BYTES);
+    private byte[] compressed = new byte[MAX_RAW_BYTES / 4];
+
+    // Compresses the snapshot's blocks; the result is compressed()[0, length).
+    int encode(ChunkSnapshot chunk) {
+        raw.clear();
+        raw.put((byte) VERSION);
+        int mask = 0;
+        for (int sy = 0; sy < Chunk.SECTIONS; sy++) {
+            if (chunk.section(sy) != null) mask |= 1 << sy;
+        }
+        raw.put((byte) mask);
+        for (int sy = 0; sy < Chunk.SECTIONS; sy++) {
+            ChunkSection s = chunk.section(sy);
+            if (s != null) s.write(raw);
+        }
+        deflater.reset();
+        deflater.setInput(raw.array(), 0, raw.position());
+        deflater.finish();
+        int n = 0;
+        while (!deflater.finished()) {
+            if (n == compressed.length) compressed = Arrays.copyOf(compressed, n * 2);
+            n += deflater.deflate(compressed, n, compressed.length - n);
+        }
+        return n;
+    }
+
+    byte[] compressed() {
+        return compressed;
+    }
+
+    // Decompresses a record (the remaining bytes of `record`, e.g. a slice of a mapped region file, which
+    // zlib reads in place) into this codec's raw buffer, for decodeInflated().
+    void inflate(ByteBuffer record) throws IOException {
+        inflater.setInput(record);
+        try {
+            int n = inflater.inflate(raw.array(), 0, raw.capacity());
+            if (!inflater.finished()) throw new IOException("record larger than a chunk");
+            raw.clear().limit(n);
+        } catch (DataFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            inflater.reset(); // drops the reference to the record
+        }
+    }
+
+    // New, unlit chunk from the bytes of the last inflate().
+    Chunk decodeInflated(int cx, int cz) throws IOException {
+        return decode(cx, cz, raw);
+    }
+
+    // Reads the raw layout from in (uncompressed) into a new, unlit chunk.
+    static Chunk decode(int cx, int cz, ByteBuffer in) throws IOException {
+        try {
+            int version = in.get() & 0xFF;
+            if (version != VERSION) throw new IOException("chunk " + cx + "," + cz + ": unknown version " + version);
+            int mask = in.get() & 0xFF;
+            ChunkSection[] sections = new ChunkSection[Chunk.SECTIONS];
+            for (int sy = 0; sy < Chunk.SECTIONS; sy++) {
+                if ((mask & (1 << sy)) != 0) sections[sy] = ChunkSection.read(in);
+            }
+            Chunk c = new Chunk(cx, cz);
+            c.loadSections(sections);
+            return c;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("chunk " + cx + "," + cz + ": truncated record", e);
+        }
+    }
+
+    void close() {
+        deflater.end();
+        inflater.end();
+    }
+}
@@ -0,0 +1,239 @@
+package minecraftlike.voxel;
+
+import minecraftlike.engine.Diagnostics;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Background chunk generation.
+ * The main thread requests chunks around the camera; worker threads load them from the ChunkStore (if
+ * there is one) or else run WorldGen.generateChunk, nearest-first, and hand finished chunks back through
+ * a lock-free queue. integrate() then moves
+ * at most N of them per frame into the World on the main thread. Nothing here touches GL, so the
+ * same pipeline runs headless (see bench.ChunkGenBenchmark).
+ *
+ * A chunk whose load or generation throws is logged and handed back without a result; integrate()
+ * then forgets it, so the next request() tries again.
+ *
+ * Threading: request/updateCenter/integrate/close are main-thread only.
+ */
+public final class ChunkGenScheduler implements AutoCloseable {
+    private static final Diagnostics.Counter FAILED = Diagnostics.counter("chunkgen.failed");
+
+    private final World world;
+    private final WorldGen gen;
+    private final ChunkStore store;
+    private final Thread[] workers;
+
+    private final PriorityBlockingQueue<Task> queue = new PriorityBlockingQueue<>();
+    private final ConcurrentLinkedQueue<Task> done = new ConcurrentLinkedQueue<>();
+    // Requested but not yet integrated (main thread only).
+    private final LongObjectMap<Task> pending = new LongObjectMap<>(256);
+    private final ArrayList<Task> cancelled = new ArrayList<>();
+
+    private int centerCx;
+    private int centerCz;
+    private int keepRadius = Integer.MAX_VALUE;
+    private int maxIntegrationsPerFrame = 4;
+    private long sequence;
+    private volatile boolean running = true;
+
+    public ChunkGenScheduler(World world, WorldGen gen, int threads) {
+        this(world, gen, null, threads);
+    }
+
+    // With a store, saved chunks are loaded instead of generated (store may be null).
+    public ChunkGenScheduler(World world, WorldGen gen, ChunkStore store, int threads) {
+        this.world = world;
+        this.gen = gen;
+        this.store = store;
+        int n = Math.max(1, threads);
+        this.workers = new Thread[n];
+        for (int i = 0; i < n; i++) {
+            Thread t = new Thread(this::workerLoop, "chunk-gen-" + i);
+            t.setDaemon(true);
+            t.setPriority(Math.max(Thread.MIN_PRIORITY, Thread.NORM_PRIORITY - 1));
+            workers[i] = t;
+            t.start();
+        }
+    }
+
+    public static int defaultThreadCount() {
+        // Leave one core for the render thread.
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public void setMaxIntegrationsPerFrame(int max) {
+        maxIntegrationsPerFrame = Math.max(1, max);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // Requests every missing chunk within loadRadius (in chunks) of the camera, and cancels queued
+    // requests that are now farther than keepRadius. Re-prioritises the queue when the camera moves
+    // into a different chunk.
+    public void updateCenter(float camX, float camZ, int loadRadius, int keepRadius) {
+        int ccx = (int) Math.floor(camX / Chunk.SIZE);
+        int ccz = (int) Math.floor(camZ / Chunk.SIZE);
+        boolean moved = ccx != centerCx || ccz != centerCz || keepRadius != this.keepRadius;
+        centerCx = ccx;
+        centerCz = ccz;
+        this.keepRadius = Math.max(loadRadius, keepRadius);
+
+        if (moved) reprioritise();
+
+        int r2 = loadRadius * loadRadius;
+        for (int dz = -loadRadius; dz <= loadRadius; dz++) {
+            for (int dx = -loadRadius; dx <= loadRadius; dx++) {
+                if (dx * dx + dz * dz > r2) continue;
+                request(ccx + dx, ccz + dz);
+            }
+        }
+    }
+
+    // Queues a single chunk (no-op if it is already loaded or pending).
+    public void request(int cx, int cz) {
+        long k = World.key(cx, cz);
+        if (pending.containsKey(k) || world.getChunk(cx, cz) != null) return;
+        Task t = new Task(cx, cz, distance2(cx, cz), sequence++);
+        pending.put(k, t);
+        queue.add(t);
+    }
+
+    // Moves up to maxIntegrationsPerFrame finished chunks into the World.
+    // The listener (may be null) runs on the calling thread, e.g. to schedule meshing.
+    public int integrate(Consumer<Chunk> listener) {
+        int n = 0;
+        while (n < maxIntegrationsPerFrame) {
+            Task t = done.poll();
+            if (t == null) break;
+            long k = World.key(t.cx, t.cz);
+            // Cancelled (or superseded) while generating: drop the result.
+            if (pending.get(k) != t) continue;
+            if (t.cancelled || t.result == null) {
+                pending.remove(k);
+                continue;
+            }
+            pending.remove(k);
+            world.putChunk(t.result);
+            if (listener != null) listener.accept(t.result);
+            n++;
+        }
+        return n;
+    }
+
+    private void reprioritise() {
+        ArrayList<Task> tasks = new ArrayList<>(queue.size());
+        queue.drainTo(tasks);
+        long keep2 = (long) keepRadius * keepRadius;
+        for (Task t : tasks) {
+            long d2 = distance2(t.cx, t.cz);
+            if (d2 > keep2) {
+                t.cancelled = true;
+                pending.remove(World.key(t.cx, t.cz));
+                continue;
+            }
+            // Safe to change the priority: drained tasks are not visible to the workers.
+            t.distance2 = d2;
+            queue.add(t);
+        }
+        // Tasks already running cannot be stopped: cancel them and forget them, so a later request()
+        // queues a new task; the old result is dropped in integrate(). Keys first: no removal mid-scan.
+        cancelled.clear();
+        for (int i = 0; i < pending.capacity(); i++) {
+            Task t = pending.valueAt(i);
+            if (t == null || distance2(t.cx, t.cz) <= keep2) continue;
+            t.cancelled = true;
+            cancelled.add(t);
+        }
+        for (Task t : cancelled) pending.remove(World.key(t.cx, t.cz));
+        cancelled.clear();
+    }
+
+    private long distance2(int cx, int cz) {
+        long dx = cx - centerCx;
+        long dz = cz - centerCz;
+        return dx * dx + dz * dz;
+    }
+
+    private void workerLoop() {
+        while (running) {
+            Task t;
+            try {
+                // Polled, not interrupted on close(): an interrupt during a region read closes its FileChannel.
+                t = queue.poll(100L, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (t == null || t.cancelled) continue;
+            try {
+                Chunk c = store != null ? load(t.cx, t.cz) : null;
+                if (c == null) {
+                    c = new Chunk(t.cx, t.cz);
+                    gen.generateChunk(c);
+                }
+                t.result = c;
+            } catch (RuntimeException e) {
+                // Keep the worker; the task goes back without a result so integrate() clears it.
+                FAILED.increment();
+                Diagnostics.log(Diagnostics.Level.ERROR, "chunkgen", () -> "chunk " + t.cx + "," + t.cz + ": " + e);
+            }
+            done.add(t);
+        }
+    }
+
+    private Chunk load(int cx, int cz) {
+        try {
+            return store.load(cx, cz);
+        } catch (UncheckedIOException e) {
+            // Unreadable record: regenerate; the next save overwrites it.
+            Diagnostics.log(Diagnostics.Level.ERROR, "store", () -> "load chunk " + cx + "," + cz + ": " + e.getCause());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (Thread t : workers) {
+            try {
+                t.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        queue.clear();
+        done.clear();
+        pending.clear();
+    }
+
+    private static final class Task implements Comparable<Task> {
+        final int cx;
+        final int cz;
+        final long seq;
+        long distance2;
+        volatile boolean cancelled;
+        Chunk result;
+
+        Task(int cx, int cz, long distance2, long seq) {
+            this.cx = cx;
+            this.cz = cz;
+            this.distance2 = distance2;
+            this.seq = seq;
+        }
+
+        @Override
+        public int compareTo(Task o) {
+            int c = Long.compare(distance2, o.distance2);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+}
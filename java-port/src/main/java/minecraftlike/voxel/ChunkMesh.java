@@ -1,24 +1,33 @@
 package minecraftlike.voxel;
 
-import org.lwjgl.system.MemoryUtil;
+import minecraftlike.engine.Diagnostics;
 
-import java.nio.FloatBuffer;
+import java.nio.ByteBuffer;
 
 import static org.lwjgl.opengl.GL33.*;
 
 public final class ChunkMesh implements AutoCloseable {
+    private static final Diagnostics.Counter MESHES_UPLOADED = Diagnostics.counter("mesh.uploaded");
+    private static final Diagnostics.Counter BYTES_UPLOADED = Diagnostics.counter("mesh.uploadBytes");
+
     private final int vao;
     private final int vbo;
     private final int vertexCount;
+    private final int indexCount;
+    private final int indexType;
 
-    public ChunkMesh(float[] vertices, int vertexCount) {
+    // vertices: direct buffer in the packed ChunkVertexBuilder layout (12 bytes per vertex), 4 vertices
+    // per quad. Uploaded straight from native memory (position..limit); the buffer is not retained.
+    public ChunkMesh(ByteBuffer vertices, int vertexCount) {
         this.vertexCount = vertexCount;
-        System.out.println("ChunkMesh created: vertexCount=" + vertexCount + ", vertices.length=" + vertices.length);
-        // Debug: Zeige die ersten 10 UV-Werte
-        for (int i = 0; i < Math.min(vertices.length / 10, 10); i++) {
-            float u = vertices[i * 10 + 3];
-            float v = vertices[i * 10 + 4];
-            System.out.println("Vertex " + i + " UV: (" + u + ", " + v + ")");
+        int quads = vertexCount / 4;
+        this.indexCount = quads * QuadIndexBuffer.INDICES_PER_QUAD;
+        int bytes = vertices.remaining();
+        MESHES_UPLOADED.increment();
+        BYTES_UPLOADED.add(bytes);
+        if (Diagnostics.isEnabled(Diagnostics.Level.DEBUG)) {
+            Diagnostics.sampled(Diagnostics.Level.DEBUG, "mesh.upload", 64, () ->
+                "ChunkMesh created: vertexCount=" + vertexCount + ", bytes=" + bytes + describeUvs(vertices));
         }
 
         vao = glGenVertexArrays();
@@ -26,37 +35,47 @@ public final class ChunkMesh implements AutoCloseable {
 
         glBindVertexArray(vao);
 
-        FloatBuffer fb = MemoryUtil.memAllocFloat(vertices.length);
-        fb.put(vertices).flip();
-
         glBindBuffer(GL_ARRAY_BUFFER, vbo);
-        glBufferData(GL_ARRAY_BUFFER, fb, GL_STATIC_DRAW);
+        glBufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
 
-        MemoryUtil.memFree(fb);
-
-        int stride = (3 + 2 + 3 + 1 + 1) * Float.BYTES;
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, stride, 0L);
+        // Packed layout, see ChunkVertexBuilder. Locations 0/1 keep the float meshes' slots (pos/uv);
+        // 6/7 are chunk-only so the shaders can still draw the float meshes with the same program.
+        int stride = ChunkVertexBuilder.BYTES_PER_VERTEX;
+        glVertexAttribPointer(0, 3, GL_UNSIGNED_SHORT, false, stride, 0L);
         glEnableVertexAttribArray(0);
-        glVertexAttribPointer(1, 2, GL_FLOAT, false, stride, 3L * Float.BYTES);
+        glVertexAttribPointer(1, 2, GL_UNSIGNED_BYTE, false, stride, 6L);
         glEnableVertexAttribArray(1);
-        glVertexAttribPointer(2, 3, GL_FLOAT, false, stride, (3L + 2L) * Float.BYTES);
-        glEnableVertexAttribArray(2);
-
-        glVertexAttribPointer(3, 1, GL_FLOAT, false, stride, (3L + 2L + 3L) * Float.BYTES);
-        glEnableVertexAttribArray(3);
+        // tile, flags as integers
+        glVertexAttribIPointer(6, 2, GL_UNSIGNED_BYTE, stride, 8L);
+        glEnableVertexAttribArray(6);
+        // packed sky/block light and emissive, as integers (voxel.vert unpacks them)
+        glVertexAttribIPointer(7, 2, GL_UNSIGNED_BYTE, stride, 10L);
+        glEnableVertexAttribArray(7);
 
-        glVertexAttribPointer(4, 1, GL_FLOAT, false, stride, (3L + 2L + 3L + 1L) * Float.BYTES);
-        glEnableVertexAttribArray(4);
+        // Shared quad indices (element buffer binding is VAO state).
+        this.indexType = QuadIndexBuffer.bind(quads);
 
         glBindVertexArray(0);
     }
 
+    // First 10 packed uv pairs (trace level only).
+    private static String describeUvs(ByteBuffer vertices) {
+        if (!Diagnostics.isEnabled(Diagnostics.Level.TRACE)) return "";
+        StringBuilder sb = new StringBuilder(", uv:");
+        int n = Math.min(vertices.remaining() / ChunkVertexBuilder.BYTES_PER_VERTEX, 10);
+        for (int i = 0; i < n; i++) {
+            int p = vertices.position() + i * ChunkVertexBuilder.BYTES_PER_VERTEX;
+            sb.append(" (").append(vertices.get(p + 6) & 0xFF).append(",").append(vertices.get(p + 7) & 0xFF).append(")");
+        }
+        return sb.toString();
+    }
+
     public void draw() {
-        if (vertexCount <= 0) {
+        if (indexCount <= 0) {
             return;
         }
         glBindVertexArray(vao);
-        glDrawArrays(GL_TRIANGLES, 0, vertexCount);
+        glDrawElements(GL_TRIANGLES, indexCount, indexType, 0L);
         glBindVertexArray(0);
     }
 
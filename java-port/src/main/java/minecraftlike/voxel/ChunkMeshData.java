@@ -0,0 +1,74 @@
+package minecraftlike.voxel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Output of the CPU meshing stage, waiting for GL upload on the render thread.
+// vertices are packed in the ChunkVertexBuilder layout (12 bytes per vertex) in a pooled direct buffer:
+// call release() once they are uploaded or no longer needed.
+public final class ChunkMeshData {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocateDirect(0).order(ByteOrder.nativeOrder());
+
+    private final int cx;
+    private final int cz;
+    private final int vertexCount;
+    private final float minY;
+    private final float maxY;
+    private ChunkVertexBuilder builder;
+
+    ChunkMeshData(int cx, int cz, ChunkVertexBuilder builder) {
+        this.cx = cx;
+        this.cz = cz;
+        this.builder = builder;
+        this.vertexCount = builder != null ? builder.vertexCount() : 0;
+        this.minY = builder != null ? builder.minY() : 0.0f;
+        this.maxY = builder != null ? builder.maxY() : 0.0f;
+    }
+
+    static ChunkMeshData empty(int cx, int cz) {
+        return new ChunkMeshData(cx, cz, null);
+    }
+
+    public int cx() {
+        return cx;
+    }
+
+    public int cz() {
+        return cz;
+    }
+
+    // Direct, native-order buffer (position 0, limit = byteSize()). Valid until release().
+    public ByteBuffer vertices() {
+        if (builder == null) return EMPTY;
+        return builder.vertices();
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    // Vertical extent of the mesh in world y (for culling bounds).
+    public float minY() {
+        return minY;
+    }
+
+    public float maxY() {
+        return maxY;
+    }
+
+    public long byteSize() {
+        return (long) vertexCount * ChunkVertexBuilder.BYTES_PER_VERTEX;
+    }
+
+    // 4 vertices per quad (indexed through QuadIndexBuffer).
+    public int quadCount() {
+        return vertexCount / 4;
+    }
+
+    // Hands the vertex buffer back to the builder pool. Safe to call more than once.
+    public void release() {
+        ChunkVertexBuilder b = builder;
+        builder = null;
+        if (b != null) b.release();
+    }
+}
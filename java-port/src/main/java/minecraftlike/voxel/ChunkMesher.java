@@ -1,64 +1,329 @@
 
 package minecraftlike.voxel;
 
+import minecraftlike.engine.Diagnostics;
+
 public final class ChunkMesher {
     // Face convention: 0=+X, 1=-X, 2=+Y, 3=-Y, 4=+Z, 5=-Z
-    // Vertex format: pos(3), uv(2), normal(3), sky(1), emissive(1)
+    // Vertices are packed to 12 bytes by ChunkVertexBuilder. The helpers below still think in world
+    // positions, atlas uvs (running past the tile on greedy quads, starting at the tile origin),
+    // normals, packed light (sky << 4 | block, see LightEngine) and float emissive; the builder converts
+    // to the packed layout. A face takes the light of the cell in front of it; torches and plants the
+    // light of their own cell.
+    // Cube faces also get per-corner ambient occlusion (0 = darkest .. 3 = open) from the three cells
+    // around each corner of the cell in front: two sides and the diagonal. Packed per face as 2 bits per
+    // corner in mask order (see aoCorner); the builder stores it in the vertex flags.
+
+    private static final int[] FACE_DX = { 1, -1, 0, 0, 0, 0 };
+    private static final int[] FACE_DY = { 0, 0, 1, -1, 0, 0 };
+    private static final int[] FACE_DZ = { 0, 0, 0, 0, 1, -1 };
+
+    // No occlusion on any corner (AO level 3 everywhere).
+    static final int AO_NONE = 0xFF;
+    // Mask corner (index = aHigh + 2 * bHigh, see addGreedyFaces for the a/b axes) of the bl, br, tr and
+    // tl vertex of each face as addFace emits them.
+    private static final int[][] QUAD_CORNERS = {
+        { 1, 0, 2, 3 }, // +X: a = z, b = y
+        { 0, 1, 3, 2 }, // -X
+        { 2, 3, 1, 0 }, // +Y: a = x, b = z
+        { 0, 1, 3, 2 }, // -Y
+        { 0, 1, 3, 2 }, // +Z: a = x, b = y
+        { 1, 0, 2, 3 }, // -Z
+    };
+
+    private static final Diagnostics.Counter MESHES_BUILT = Diagnostics.counter("mesh.built");
+    private static final Diagnostics.Counter VERTICES_EMITTED = Diagnostics.counter("mesh.vertices");
+
+    // Per-thread scratch arrays so a remesh doesn't allocate (vertex memory comes from the builder pool).
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private static final class Scratch {
+        final UvRect[] maskUv = new UvRect[Chunk.SIZE * Chunk.HEIGHT];
+        final int[] maskLight = new int[Chunk.SIZE * Chunk.HEIGHT];
+        final int[] maskAo = new int[Chunk.SIZE * Chunk.HEIGHT];
+    }
 
+    // Synchronous convenience path (meshing + GL upload on the calling thread).
     public static ChunkMesh buildMesh(World world, int cx, int cz, BlockTextures textures) {
+        MeshRegion region = MeshRegion.capture(world, cx, cz);
+        if (region == null) return new ChunkMesh(ChunkMeshData.empty(cx, cz).vertices(), 0);
+        ChunkMeshData data = buildMeshData(region, textures, true, true);
+        try {
+            return new ChunkMesh(data.vertices(), data.vertexCount());
+        } finally {
+            data.release();
+        }
+    }
+
+    // CPU-only meshing of the current world state (snapshot taken on the calling thread). No GL.
+    public static ChunkMeshData buildMeshData(World world, int cx, int cz, BlockTextures textures, boolean greedy) {
+        return buildMeshData(world, cx, cz, textures, greedy, true);
+    }
+
+    public static ChunkMeshData buildMeshData(World world, int cx, int cz, BlockTextures textures, boolean greedy, boolean ambientOcclusion) {
+        MeshRegion region = MeshRegion.capture(world, cx, cz);
+        if (region == null) return ChunkMeshData.empty(cx, cz);
+        return buildMeshData(region, textures, greedy, ambientOcclusion);
+    }
+
+    // CPU-only meshing stage. Reads nothing but the region snapshot, so it is safe on worker threads.
+    // greedy: merge coplanar opaque cube faces with the same tile, light and corner AO into larger quads
+    // (with AO baked, differing corners stop a merge; see ChunkRenderer.setAmbientOcclusion).
+    // ambientOcclusion: bake per-corner AO into cube faces (off: every corner open, AO_NONE).
+    // The result holds a pooled vertex buffer: the caller must release() it.
+    static ChunkMeshData buildMeshData(MeshRegion region, BlockTextures textures, boolean greedy, boolean ambientOcclusion) {
+        int cx = region.cx;
+        int cz = region.cz;
         int baseX = cx * Chunk.SIZE;
         int baseZ = cz * Chunk.SIZE;
+        ChunkSnapshot chunk = region.center;
+
+        // Highest non-empty section; everything above is sky.
+        int topSection = -1;
+        for (int sy = Chunk.SECTIONS - 1; sy >= 0; sy--) {
+            if (!chunk.isSectionEmpty(sy)) {
+                topSection = sy;
+                break;
+            }
+        }
+
+        Scratch scratch = SCRATCH.get();
+        ChunkVertexBuilder verts = ChunkVertexBuilder.acquire(textures, baseX, baseZ);
+        try {
+            addBlocks(verts, region, textures, scratch, topSection, greedy, ambientOcclusion);
+        } catch (RuntimeException e) {
+            verts.release();
+            throw e;
+        }
+        MESHES_BUILT.increment();
+        VERTICES_EMITTED.add(verts.vertexCount());
+        return new ChunkMeshData(cx, cz, verts);
+    }
 
-        // Heightmap: highest solid block per (local x,z) in this chunk.
-        // Used as a cheap "is sky visible above this air cell" test.
-        int[] topSolidY = new int[Chunk.SIZE * Chunk.SIZE];
-        for (int lz = 0; lz < Chunk.SIZE; lz++) {
+    private static void addBlocks(ChunkVertexBuilder verts, MeshRegion region, BlockTextures textures, Scratch scratch, int topSection,
+                                  boolean greedy, boolean ambientOcclusion) {
+        ChunkSnapshot chunk = region.center;
+        int baseX = region.cx * Chunk.SIZE;
+        int baseZ = region.cz * Chunk.SIZE;
+        if (greedy && topSection >= 0) {
+            addGreedyFaces(verts, region, textures, scratch, (topSection + 1) * Chunk.SIZE, ambientOcclusion);
+        }
+        for (int sy = 0; sy <= topSection; sy++) {
+            if (chunk.isSectionEmpty(sy)) continue;
+            int y0 = sy * Chunk.SIZE;
             for (int lx = 0; lx < Chunk.SIZE; lx++) {
-                int wx = baseX + lx;
-                int wz = baseZ + lz;
-                int top = -1;
-                for (int y = Chunk.HEIGHT - 1; y >= 0; y--) {
-                    // ...existing code...
-                        top = y;
-                        break;
+                for (int lz = 0; lz < Chunk.SIZE; lz++) {
+                    int wx = baseX + lx;
+                    int wz = baseZ + lz;
+                    for (int y = y0; y < y0 + Chunk.SIZE; y++) {
+                        BlockType t = chunk.get(lx, y, lz);
+                        if (t == BlockType.AIR) continue;
+                        if (greedy && isOpaqueCube(t)) continue; // already emitted by addGreedyFaces
+                        if (t == BlockType.TORCH) {
+                            addTorch(verts, textures, wx, y, wz, chunk.getLight(lx, y, lz));
+                            continue;
+                        }
+                        if (t == BlockType.TALL_GRASS) {
+                            // Negative emissive tags the vertices for wind sway in voxel.vert.
+                            addCross(verts, textures.uv(t, 0), wx, y, wz, chunk.getLight(lx, y, lz), -1.0f);
+                            continue;
+                        }
+                        for (int face = 0; face < 6; face++) {
+                            int ny = y + FACE_DY[face];
+                            if (ny < 0) continue; // bottom of the world is never visible
+                            int nx = lx + FACE_DX[face];
+                            int nz = lz + FACE_DZ[face];
+                            boolean inside = nx >= 0 && nx < Chunk.SIZE && nz >= 0 && nz < Chunk.SIZE;
+                            BlockType n = inside ? chunk.get(nx, ny, nz) : region.getBlock(wx + FACE_DX[face], ny, wz + FACE_DZ[face]);
+                            if (isOpaqueCube(n)) continue;
+                            int light = inside ? chunk.getLight(nx, ny, nz) : region.getLight(wx + FACE_DX[face], ny, wz + FACE_DZ[face]);
+                            int ao = ambientOcclusion ? ambientOcclusion(region, face, wx + FACE_DX[face], ny, wz + FACE_DZ[face]) : AO_NONE;
+                            addFace(verts, textures.uv(t, face), wx, y, wz, face, light, ao);
+                        }
                     }
                 }
-                topSolidY[lz * Chunk.SIZE + lx] = top;
             }
         }
+    }
 
-        FloatList verts = new FloatList(Chunk.SIZE * Chunk.SIZE * 6 * 6 * 10);
-        for (int lx = 0; lx < Chunk.SIZE; lx++) {
-            for (int lz = 0; lz < Chunk.SIZE; lz++) {
-                int wx = baseX + lx;
-                int wz = baseZ + lz;
-                for (int y = 0; y < Chunk.HEIGHT; y++) {
-                    BlockType t = BlockType.DIRT;
-                    if (t == BlockType.AIR) continue;
-                    for (int face = 0; face < 6; face++) {
-                        float sky = (face == 3) ? 0.0f : skyFactor(world, topSolidY, baseX, baseZ, wx, y, wz);
-                        addFace(verts, textures.uv(t, face), wx, y, wz, face, sky);
+    static boolean occludes(BlockType t) {
+        // Partial blocks should not fully occlude neighbor faces.
+        return t != BlockType.AIR && t != BlockType.TALL_GRASS && t != BlockType.TORCH;
+    }
+
+    // Opaque full cubes hide the neighbouring face and are the only blocks merged by the greedy pass.
+    // Leaves are cutout (you can see through them), so they never hide the face behind them -
+    // including leaf/leaf faces, which keeps canopies looking dense.
+    private static boolean isOpaqueCube(BlockType t) {
+        return occludes(t) && t != BlockType.LEAVES;
+    }
+
+    // Greedy pass over all opaque cubes of the center chunk. For every face direction and slice, the
+    // visible faces are written into a 2D mask (tile + light + corner AO per cell) which is then covered
+    // with maximal rectangles: grow along a first, then extend whole rows along b.
+    // Slice/mask axes: X faces (s=lx, a=lz, b=y), Y faces (s=y, a=lx, b=lz), Z faces (s=lz, a=lx, b=y).
+    // A merged quad only has corner vertices, so cells only merge along an axis their AO does not vary
+    // on: then interpolating across the rectangle gives exactly what the single faces would.
+    private static void addGreedyFaces(ChunkVertexBuilder out, MeshRegion region, BlockTextures textures, Scratch scratch, int topY,
+                                       boolean ambientOcclusion) {
+        ChunkSnapshot chunk = region.center;
+        int baseX = region.cx * Chunk.SIZE;
+        int baseZ = region.cz * Chunk.SIZE;
+        UvRect[] maskUv = scratch.maskUv;
+        int[] maskLight = scratch.maskLight;
+        int[] maskAo = scratch.maskAo;
+
+        for (int face = 0; face < 6; face++) {
+            boolean yFace = face == 2 || face == 3;
+            boolean xFace = face == 0 || face == 1;
+            int slices = yFace ? topY : Chunk.SIZE;
+            int sizeA = Chunk.SIZE;
+            int sizeB = yFace ? Chunk.SIZE : topY;
+
+            for (int s = 0; s < slices; s++) {
+                if (yFace && chunk.isSectionEmpty(s >> 4)) {
+                    s |= 15;
+                    continue;
+                }
+
+                // Build the mask for this slice.
+                boolean any = false;
+                for (int b = 0; b < sizeB; b++) {
+                    if (!yFace && chunk.isSectionEmpty(b >> 4)) {
+                        // Whole 16-row band of an empty section: nothing to emit.
+                        for (int i = b * sizeA, end = (b + 16) * sizeA; i < end; i++) maskUv[i] = null;
+                        b |= 15;
+                        continue;
+                    }
+                    for (int a = 0; a < sizeA; a++) {
+                        int lx = xFace ? s : a;
+                        int y = yFace ? s : b;
+                        int lz = xFace ? a : (yFace ? b : s);
+                        int i = b * sizeA + a;
+                        maskUv[i] = null;
+
+                        BlockType t = chunk.get(lx, y, lz);
+                        if (!isOpaqueCube(t)) continue;
+                        int ny = y + FACE_DY[face];
+                        if (ny < 0) continue; // bottom of the world is never visible
+                        int nx = lx + FACE_DX[face];
+                        int nz = lz + FACE_DZ[face];
+                        boolean inside = nx >= 0 && nx < Chunk.SIZE && nz >= 0 && nz < Chunk.SIZE;
+                        BlockType n = inside ? chunk.get(nx, ny, nz) : region.getBlock(baseX + nx, ny, baseZ + nz);
+                        if (isOpaqueCube(n)) continue;
+
+                        maskUv[i] = textures.uv(t, face);
+                        maskLight[i] = inside ? chunk.getLight(nx, ny, nz) : region.getLight(baseX + nx, ny, baseZ + nz);
+                        maskAo[i] = ambientOcclusion ? ambientOcclusion(region, face, baseX + nx, ny, baseZ + nz) : AO_NONE;
+                        any = true;
+                    }
+                }
+                if (!any) continue;
+
+                // Cover the mask with rectangles.
+                for (int b = 0; b < sizeB; b++) {
+                    for (int a = 0; a < sizeA; ) {
+                        int i = b * sizeA + a;
+                        UvRect uv = maskUv[i];
+                        if (uv == null) {
+                            a++;
+                            continue;
+                        }
+                        int light = maskLight[i];
+                        int ao = maskAo[i];
+
+                        int w = 1;
+                        if (aoFlatAlongA(ao)) {
+                            while (a + w < sizeA && maskUv[i + w] == uv && maskLight[i + w] == light && maskAo[i + w] == ao) w++;
+                        }
+
+                        int h = 1;
+                        grow:
+                        while (b + h < sizeB && aoFlatAlongB(ao)) {
+                            int row = (b + h) * sizeA + a;
+                            for (int k = 0; k < w; k++) {
+                                if (maskUv[row + k] != uv || maskLight[row + k] != light || maskAo[row + k] != ao) break grow;
+                            }
+                            h++;
+                        }
+
+                        for (int bb = 0; bb < h; bb++) {
+                            int row = (b + bb) * sizeA + a;
+                            for (int k = 0; k < w; k++) maskUv[row + k] = null;
+                        }
+
+                        if (xFace) {
+                            int x = baseX + s;
+                            addFace(out, uv, x, b, baseZ + a, x + 1, b + h, baseZ + a + w, face, light, ao);
+                        } else if (yFace) {
+                            addFace(out, uv, baseX + a, s, baseZ + b, baseX + a + w, s + 1, baseZ + b + h, face, light, ao);
+                        } else {
+                            int z = baseZ + s;
+                            addFace(out, uv, baseX + a, b, z, baseX + a + w, b + h, z + 1, face, light, ao);
+                        }
+                        a += w;
                     }
                 }
             }
         }
-        float[] arr = verts.toArray();
-        int vertexCount = arr.length / 10;
-        return new ChunkMesh(arr, vertexCount);
-     }
+    }
 
-    private static boolean occludes(BlockType t) {
-        // Partial blocks should not fully occlude neighbor faces.
-        return t != BlockType.AIR && t != BlockType.TALL_GRASS && t != BlockType.TORCH;
+    // Corner AO (2 bits per corner, mask order) of a face whose front cell is (x, y, z), world coordinates.
+    // Each corner looks at the two cells beside the front cell towards it and the diagonal one between
+    // them; two solid sides fully occlude the corner whatever the diagonal is. At a chunk's outer corner
+    // the diagonal cell lies in a diagonal neighbour chunk (MeshRegion captures those too).
+    private static int ambientOcclusion(MeshRegion region, int face, int x, int y, int z) {
+        int ax = face < 2 ? 0 : 1;
+        int az = 1 - ax;
+        boolean yFace = face == 2 || face == 3;
+        int by = yFace ? 0 : 1;
+        int bz = yFace ? 1 : 0;
+        boolean a0 = solid(region, x - ax, y, z - az);
+        boolean a1 = solid(region, x + ax, y, z + az);
+        boolean b0 = solid(region, x, y - by, z - bz);
+        boolean b1 = solid(region, x, y + by, z + bz);
+        return cornerAo(a0, b0, solid(region, x - ax, y - by, z - az - bz))
+            | cornerAo(a1, b0, solid(region, x + ax, y - by, z + az - bz)) << 2
+            | cornerAo(a0, b1, solid(region, x - ax, y + by, z - az + bz)) << 4
+            | cornerAo(a1, b1, solid(region, x + ax, y + by, z + az + bz)) << 6;
     }
 
-    private static void addFace(FloatList out, UvRect uv, int wx, int y, int wz, int face, float sky) {
-        float x0 = wx;
-        float x1 = wx + 1;
-        float y0 = y;
-        float y1 = y + 1;
-        float z0 = wz;
-        float z1 = wz + 1;
+    private static boolean solid(MeshRegion region, int x, int y, int z) {
+        return y >= 0 && y < Chunk.HEIGHT && isOpaqueCube(region.getBlock(x, y, z));
+    }
+
+    private static int cornerAo(boolean side1, boolean side2, boolean diagonal) {
+        if (side1 && side2) return 0;
+        return 3 - (side1 ? 1 : 0) - (side2 ? 1 : 0) - (diagonal ? 1 : 0);
+    }
+
+    // AO of one mask corner (index = aHigh + 2 * bHigh).
+    static int aoCorner(int ao, int corner) {
+        return (ao >> (corner * 2)) & 3;
+    }
+
+    private static boolean aoFlatAlongA(int ao) {
+        return aoCorner(ao, 0) == aoCorner(ao, 1) && aoCorner(ao, 2) == aoCorner(ao, 3);
+    }
+
+    private static boolean aoFlatAlongB(int ao) {
+        return aoCorner(ao, 0) == aoCorner(ao, 2) && aoCorner(ao, 1) == aoCorner(ao, 3);
+    }
+
+    private static void addFace(ChunkVertexBuilder out, UvRect uv, int wx, int y, int wz, int face, int light, int ao) {
+        addFace(out, uv, wx, y, wz, wx + 1, y + 1, wz + 1, face, light, ao);
+    }
+
+    // Face of the box [x0,x1) x [y0,y1) x [z0,z1); the texture repeats once per block along both quad axes.
+    // ao is in mask corner order and is reordered here to the quad's bl, br, tr, tl.
+    static void addFace(ChunkVertexBuilder out, UvRect uv, int bx0, int by0, int bz0, int bx1, int by1, int bz1, int face, int light,
+                        int ao) {
+        float x0 = bx0;
+        float x1 = bx1;
+        float y0 = by0;
+        float y1 = by1;
+        float z0 = bz0;
+        float z1 = bz1;
 
         float nx = 0f, ny = 0f, nz = 0f;
         switch (face) {
@@ -72,12 +337,16 @@ public final class ChunkMesher {
 
         // UV mapping (note: v axis depends on atlas build; works with our shader and flip-on-load).
         // Für Wasser-Oberseite: UVs immer (0,0)-(1,1), alle anderen Faces wie bisher
-        float u0 = uv.u0();
-        float v0 = uv.v0();
-        float u1 = uv.u1();
-        float v1 = uv.v1();
-
-        // Two triangles per face.
+        // Repeat counts along the quad's right/up axes (see the corner order below).
+        int repU = (face == 0 || face == 1) ? (bz1 - bz0) : (bx1 - bx0);
+        int repV = (face == 2 || face == 3) ? (bz1 - bz0) : (by1 - by0);
+        int[] corners = QUAD_CORNERS[face];
+        int quadAo = aoCorner(ao, corners[0])
+            | aoCorner(ao, corners[1]) << 2
+            | aoCorner(ao, corners[2]) << 4
+            | aoCorner(ao, corners[3]) << 6;
+
+        // One indexed quad (4 vertices) per face.
         // Vertices are CCW when viewed from outside so GL_BACK culling works.
         // UVs are assigned as (bottom-left, bottom-right, top-right, top-left)
         // to keep side textures upright (no rotation/skew artifacts).
@@ -89,7 +358,7 @@ public final class ChunkMesher {
                     x1, y0, z0,  // br
                     x1, y1, z0,  // tr
                     x1, y1, z1,  // tl
-                    uv, nx, ny, nz, sky
+                    uv, repU, repV, nx, ny, nz, light, quadAo
                 );
             }
             case 1 -> {
@@ -99,7 +368,7 @@ public final class ChunkMesher {
                     x0, y0, z1,
                     x0, y1, z1,
                     x0, y1, z0,
-                    uv, nx, ny, nz, sky
+                    uv, repU, repV, nx, ny, nz, light, quadAo
                 );
             }
             case 2 -> {
@@ -109,7 +378,7 @@ public final class ChunkMesher {
                     x1, y1, z1,
                     x1, y1, z0,
                     x0, y1, z0,
-                    uv, nx, ny, nz, sky
+                    uv, repU, repV, nx, ny, nz, light, quadAo
                 );
             }
             case 3 -> {
@@ -119,7 +388,7 @@ public final class ChunkMesher {
                     x1, y0, z0,
                     x1, y0, z1,
                     x0, y0, z1,
-                    uv, nx, ny, nz, sky
+                    uv, repU, repV, nx, ny, nz, light, quadAo
                 );
             }
             case 4 -> {
@@ -129,7 +398,7 @@ public final class ChunkMesher {
                     x1, y0, z1,
                     x1, y1, z1,
                     x0, y1, z1,
-                    uv, nx, ny, nz, sky
+                    uv, repU, repV, nx, ny, nz, light, quadAo
                 );
             }
             case 5 -> {
@@ -139,67 +408,69 @@ public final class ChunkMesher {
                     x0, y0, z0,
                     x0, y1, z0,
                     x1, y1, z0,
-                    uv, nx, ny, nz, sky
+                    uv, repU, repV, nx, ny, nz, light, quadAo
                 );
             }
         }
     }
 
     private static void addQuad(
-        FloatList out,
+        ChunkVertexBuilder out,
         float bx, float by, float bz,  // bottom-left
         float rx, float ry, float rz,  // bottom-right
         float tx, float ty, float tz,  // top-right
         float lx, float ly, float lz,  // top-left
         UvRect uv,
+        int repU, int repV,
         float nx, float ny, float nz,
-        float sky
+        int light,
+        int ao // 2 bits per corner: bl, br, tr, tl
     ) {
         float u0 = Math.max(0.0f, Math.min(1.0f, uv.u0()));
         float v0 = Math.max(0.0f, Math.min(1.0f, uv.v0()));
-        float u1 = Math.max(0.0f, Math.min(1.0f, uv.u1()));
-        float v1 = Math.max(0.0f, Math.min(1.0f, uv.v1()));
-
-        // Debug: Zeige die ersten 10 Faces pro Chunk
-        if (out.size() < 100) {
-            System.out.println("addQuad: bl(" + bx + "," + by + "," + bz + ") br(" + rx + "," + ry + "," + rz + ") tr(" + tx + "," + ty + "," + tz + ") tl(" + lx + "," + ly + "," + lz + ")");
+        // May run past the tile for merged quads; the shader wraps it back.
+        float u1 = u0 + (uv.u1() - uv.u0()) * repU;
+        float v1 = v0 + (uv.v1() - uv.v0()) * repV;
+
+        // Trace the first face of (a sample of) meshes.
+        if (out.vertexCount() == 0 && Diagnostics.isEnabled(Diagnostics.Level.TRACE)) {
+            Diagnostics.sampled(Diagnostics.Level.TRACE, "mesh.quad", 64, () ->
+                "addQuad: bl(" + bx + "," + by + "," + bz + ") br(" + rx + "," + ry + "," + rz + ") tr(" + tx + "," + ty + "," + tz + ") tl(" + lx + "," + ly + "," + lz + ")");
         }
 
-        // (bl, br, tr) (bl, tr, tl)
-        v(out, bx, by, bz, u0, v0, nx, ny, nz, sky);
-        v(out, rx, ry, rz, u1, v0, nx, ny, nz, sky);
-        v(out, tx, ty, tz, u1, v1, nx, ny, nz, sky);
-
-        v(out, bx, by, bz, u0, v0, nx, ny, nz, sky);
-        v(out, tx, ty, tz, u1, v1, nx, ny, nz, sky);
-        v(out, lx, ly, lz, u0, v1, nx, ny, nz, sky);
+        int aoBl = ao & 3;
+        int aoBr = (ao >> 2) & 3;
+        int aoTr = (ao >> 4) & 3;
+        int aoTl = (ao >> 6) & 3;
+
+        // 4 corners; the shared quad index buffer makes (bl, br, tr) (bl, tr, tl).
+        // AO is interpolated per triangle, so the split diagonal matters: it has to run through the
+        // darker pair of opposite corners, otherwise one dark corner bleeds along the diagonal and the
+        // shading depends on the quad's orientation. Starting at br moves the diagonal to br-tl.
+        if (aoBl + aoTr > aoBr + aoTl) {
+            v(out, rx, ry, rz, u1, v0, nx, ny, nz, light, aoBr, u0, v0);
+            v(out, tx, ty, tz, u1, v1, nx, ny, nz, light, aoTr, u0, v0);
+            v(out, lx, ly, lz, u0, v1, nx, ny, nz, light, aoTl, u0, v0);
+            v(out, bx, by, bz, u0, v0, nx, ny, nz, light, aoBl, u0, v0);
+        } else {
+            v(out, bx, by, bz, u0, v0, nx, ny, nz, light, aoBl, u0, v0);
+            v(out, rx, ry, rz, u1, v0, nx, ny, nz, light, aoBr, u0, v0);
+            v(out, tx, ty, tz, u1, v1, nx, ny, nz, light, aoTr, u0, v0);
+            v(out, lx, ly, lz, u0, v1, nx, ny, nz, light, aoTl, u0, v0);
+        }
     }
 
-    private static void v(FloatList out, float x, float y, float z, float u, float v, float nx, float ny, float nz, float sky) {
-        v(out, x, y, z, u, v, nx, ny, nz, sky, 0.0f);
+    private static void v(ChunkVertexBuilder out, float x, float y, float z, float u, float v, float nx, float ny, float nz, int light, int ao,
+                          float tileU, float tileV) {
+        out.vertex(x, y, z, u, v, nx, ny, nz, light, 0.0f, ao, tileU, tileV);
     }
 
-    private static void v(FloatList out, float x, float y, float z, float u, float v, float nx, float ny, float nz, float sky, float emissive) {
-        // pos3
-        out.add(x);
-        out.add(y);
-        out.add(z);
-        // uv2
-        out.add(u);
-        out.add(v);
-        // normal3
-        out.add(nx);
-        out.add(ny);
-        out.add(nz);
-
-        // sky1
-        out.add(sky);
-
-        // emissive1
-        out.add(emissive);
+    private static void v(ChunkVertexBuilder out, float x, float y, float z, float u, float v, float nx, float ny, float nz, int light, float emissive,
+                          float tileU, float tileV) {
+        out.vertex(x, y, z, u, v, nx, ny, nz, light, emissive, 3, tileU, tileV);
     }
 
-    private static void addCross(FloatList out, UvRect uv, int wx, int y, int wz, float sky, float emissive) {
+    private static void addCross(ChunkVertexBuilder out, UvRect uv, int wx, int y, int wz, int light, float emissive) {
         float x0 = wx;
         float x1 = wx + 1;
         float y0 = y;
@@ -217,44 +488,33 @@ public final class ChunkMesher {
         // Use upward normal so it doesn't look too dark from side-facing normals.
         float nx = 0f, ny = 1f, nz = 0f;
 
+        // Quads are 4 corners wound (0,1,2) (0,2,3), see QuadIndexBuffer.
         // Plane 1: (x0,z0) -> (x1,z1)
-        v(out, x0, y0, z0, u0, v0, nx, ny, nz, sky, emissive);
-        v(out, x1, y0, z1, u1, v0, nx, ny, nz, sky, emissive);
-        v(out, x1, y1, z1, u1, v1, nx, ny, nz, sky, emissive);
-
-        v(out, x0, y0, z0, u0, v0, nx, ny, nz, sky, emissive);
-        v(out, x1, y1, z1, u1, v1, nx, ny, nz, sky, emissive);
-        v(out, x0, y1, z0, u0, v1, nx, ny, nz, sky, emissive);
+        v(out, x0, y0, z0, u0, v0, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x1, y0, z1, u1, v0, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x1, y1, z1, u1, v1, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x0, y1, z0, u0, v1, nx, ny, nz, light, emissive, u0, v0);
 
         // Backface for plane 1 (so it renders from both sides with backface culling enabled)
-        v(out, x0, y0, z0, u0, v0, nx, ny, nz, sky, emissive);
-        v(out, x1, y1, z1, u1, v1, nx, ny, nz, sky, emissive);
-        v(out, x1, y0, z1, u1, v0, nx, ny, nz, sky, emissive);
-
-        v(out, x0, y0, z0, u0, v0, nx, ny, nz, sky, emissive);
-        v(out, x0, y1, z0, u0, v1, nx, ny, nz, sky, emissive);
-        v(out, x1, y1, z1, u1, v1, nx, ny, nz, sky, emissive);
+        v(out, x0, y0, z0, u0, v0, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x0, y1, z0, u0, v1, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x1, y1, z1, u1, v1, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x1, y0, z1, u1, v0, nx, ny, nz, light, emissive, u0, v0);
 
         // Plane 2: (x0,z1) -> (x1,z0)
-        v(out, x0, y0, z1, u0, v0, nx, ny, nz, sky, emissive);
-        v(out, x1, y0, z0, u1, v0, nx, ny, nz, sky, emissive);
-        v(out, x1, y1, z0, u1, v1, nx, ny, nz, sky, emissive);
-
-        v(out, x0, y0, z1, u0, v0, nx, ny, nz, sky, emissive);
-        v(out, x1, y1, z0, u1, v1, nx, ny, nz, sky, emissive);
-        v(out, x0, y1, z1, u0, v1, nx, ny, nz, sky, emissive);
+        v(out, x0, y0, z1, u0, v0, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x1, y0, z0, u1, v0, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x1, y1, z0, u1, v1, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x0, y1, z1, u0, v1, nx, ny, nz, light, emissive, u0, v0);
 
         // Backface for plane 2
-        v(out, x0, y0, z1, u0, v0, nx, ny, nz, sky, emissive);
-        v(out, x1, y1, z0, u1, v1, nx, ny, nz, sky, emissive);
-        v(out, x1, y0, z0, u1, v0, nx, ny, nz, sky, emissive);
-
-        v(out, x0, y0, z1, u0, v0, nx, ny, nz, sky, emissive);
-        v(out, x0, y1, z1, u0, v1, nx, ny, nz, sky, emissive);
-        v(out, x1, y1, z0, u1, v1, nx, ny, nz, sky, emissive);
+        v(out, x0, y0, z1, u0, v0, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x0, y1, z1, u0, v1, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x1, y1, z0, u1, v1, nx, ny, nz, light, emissive, u0, v0);
+        v(out, x1, y0, z0, u1, v0, nx, ny, nz, light, emissive, u0, v0);
     }
 
-    private static void addOakStairs(FloatList out, BlockTextures textures, int wx, int y, int wz, float sky) {
+    private static void addOakStairs(ChunkVertexBuilder out, BlockTextures textures, int wx, int y, int wz, int light) {
         // Fixed orientation (for now): the "higher" step is on the +Z half.
         // Shape is a 2-step stair: 0..0.5 over full depth, and 0.5..1.0 over back half.
         final float emissive = 0.0f;
@@ -283,7 +543,7 @@ public final class ChunkMesher {
             x0, y0, z1,
             u0, v0, u1, v1,
             0f, -1f, 0f,
-            0.0f,
+            light,
             emissive
         );
 
@@ -295,7 +555,7 @@ public final class ChunkMesher {
             x0, yMid, z0,
             u0, v0, u1, v1,
             0f, 1f, 0f,
-            sky,
+            light,
             emissive
         );
 
@@ -307,7 +567,7 @@ public final class ChunkMesher {
             x0, y1, zMid,
             u0, v0, u1, v1,
             0f, 1f, 0f,
-            sky,
+            light,
             emissive
         );
 
@@ -320,7 +580,7 @@ public final class ChunkMesher {
             x1, yMid, z0,
             u0, v0, u1, v1,
             0f, 0f, -1f,
-            sky,
+            light,
             emissive
         );
 
@@ -332,7 +592,7 @@ public final class ChunkMesher {
             x1, y1, zMid,
             u0, v0, u1, v1,
             0f, 0f, -1f,
-            sky,
+            light,
             emissive
         );
 
@@ -345,7 +605,7 @@ public final class ChunkMesher {
             x0, y1, z1,
             u0, v0, u1, v1,
             0f, 0f, 1f,
-            sky,
+            light,
             emissive
         );
 
@@ -357,7 +617,7 @@ public final class ChunkMesher {
             x1, yMid, z1,
             u0, v0, u1, v1,
             1f, 0f, 0f,
-            sky,
+            light,
             emissive
         );
 
@@ -369,7 +629,7 @@ public final class ChunkMesher {
             x1, y1, z1,
             u0, v0, u1, v1,
             1f, 0f, 0f,
-            sky,
+            light,
             emissive
         );
 
@@ -381,7 +641,7 @@ public final class ChunkMesher {
             x0, yMid, z0,
             u0, v0, u1, v1,
             -1f, 0f, 0f,
-            sky,
+            light,
             emissive
         );
 
@@ -393,12 +653,12 @@ public final class ChunkMesher {
             x0, y1, zMid,
             u0, v0, u1, v1,
             -1f, 0f, 0f,
-            sky,
+            light,
             emissive
         );
     }
 
-    private static void addTorch(FloatList out, BlockTextures textures, int wx, int y, int wz, float sky) {
+    private static void addTorch(ChunkVertexBuilder out, BlockTextures textures, int wx, int y, int wz, int light) {
         // Minecraft-ish torch: a thin vertical rod with emissive.
         final float emissive = 0.55f;
 
@@ -424,7 +684,7 @@ public final class ChunkMesher {
             x1, y1, z1,
             uvSide.u0(), uvSide.v0(), uvSide.u1(), uvSide.v1(),
             1f, 0f, 0f,
-            sky,
+            light,
             emissive
         );
         // -X
@@ -435,7 +695,7 @@ public final class ChunkMesher {
             x0, y1, z0,
             uvSide.u0(), uvSide.v0(), uvSide.u1(), uvSide.v1(),
             -1f, 0f, 0f,
-            sky,
+            light,
             emissive
         );
         // +Z
@@ -446,7 +706,7 @@ public final class ChunkMesher {
             x0, y1, z1,
             uvSide.u0(), uvSide.v0(), uvSide.u1(), uvSide.v1(),
             0f, 0f, 1f,
-            sky,
+            light,
             emissive
         );
         // -Z
@@ -457,7 +717,7 @@ public final class ChunkMesher {
             x1, y1, z0,
             uvSide.u0(), uvSide.v0(), uvSide.u1(), uvSide.v1(),
             0f, 0f, -1f,
-            sky,
+            light,
             emissive
         );
         // Top
@@ -468,7 +728,7 @@ public final class ChunkMesher {
             x0, y1, z0,
             uvTop.u0(), uvTop.v0(), uvTop.u1(), uvTop.v1(),
             0f, 1f, 0f,
-            sky,
+            light,
             emissive
         );
 
@@ -480,45 +740,25 @@ public final class ChunkMesher {
             x0, y0, z1,
             uvBottom.u0(), uvBottom.v0(), uvBottom.u1(), uvBottom.v1(),
             0f, -1f, 0f,
-            0.0f,
+            light,
             emissive
         );
     }
 
     private static void addQuadCustom(
-        FloatList out,
+        ChunkVertexBuilder out,
         float bx, float by, float bz,
         float rx, float ry, float rz,
         float tx, float ty, float tz,
         float lx, float ly, float lz,
         float u0, float v0, float u1, float v1,
         float nx, float ny, float nz,
-        float sky,
+        int light,
         float emissive
     ) {
-        v(out, bx, by, bz, u0, v0, nx, ny, nz, sky, emissive);
-        v(out, rx, ry, rz, u1, v0, nx, ny, nz, sky, emissive);
-        v(out, tx, ty, tz, u1, v1, nx, ny, nz, sky, emissive);
-
-        v(out, bx, by, bz, u0, v0, nx, ny, nz, sky, emissive);
-        v(out, tx, ty, tz, u1, v1, nx, ny, nz, sky, emissive);
-        v(out, lx, ly, lz, u0, v1, nx, ny, nz, sky, emissive);
-    }
-
-    private static float skyFactor(World world, int[] topSolidY, int baseX, int baseZ, int wx, int wy, int wz) {
-        // If the adjacent air cell (wx,wy,wz) has no solid blocks above it, treat it as receiving skylight.
-        // Fast-path for columns within this chunk (heightmap lookup); fallback to scan for out-of-chunk.
-        int lx = wx - baseX;
-        int lz = wz - baseZ;
-        if (lx >= 0 && lx < Chunk.SIZE && lz >= 0 && lz < Chunk.SIZE) {
-            int top = topSolidY[lz * Chunk.SIZE + lx];
-            return (top <= wy) ? 1.0f : 0.0f;
-        }
-
-        // Outside chunk: scan from top down until we either find a solid above wy or confirm clear.
-        for (int y = Chunk.HEIGHT - 1; y > wy; y--) {
-            // ...existing code...
-        }
-        return 1.0f;
+        v(out, bx, by, bz, u0, v0, nx, ny, nz, light, emissive, u0, v0);
+        v(out, rx, ry, rz, u1, v0, nx, ny, nz, light, emissive, u0, v0);
+        v(out, tx, ty, tz, u1, v1, nx, ny, nz, light, emissive, u0, v0);
+        v(out, lx, ly, lz, u0, v1, nx, ny, nz, light, emissive, u0, v0);
     }
 }
@@ -1,38 +1,339 @@
 package minecraftlike.voxel;
 
+import minecraftlike.engine.CascadedShadowMap;
+import minecraftlike.engine.Diagnostics;
 import minecraftlike.engine.ShaderProgram;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class ChunkRenderer implements AutoCloseable {
+    // Default GL upload budget per frame (vertex bytes). At least one mesh is uploaded per frame regardless.
+    public static final long DEFAULT_UPLOAD_BUDGET_BYTES = 4L * 1024 * 1024;
+
+    private static final Diagnostics.Counter CHUNKS_DRAWN = Diagnostics.counter("chunks.drawn");
+    private static final Diagnostics.Counter CHUNKS_CULLED = Diagnostics.counter("chunks.culled");
+    private static final Diagnostics.Counter CASTERS_DRAWN = Diagnostics.counter("shadow.casters.drawn");
+    private static final Diagnostics.Counter CASTERS_CULLED = Diagnostics.counter("shadow.casters.culled");
+    private static final Diagnostics.Counter MESHES_FAILED = Diagnostics.counter("mesh.failed");
+    // Default distances (blocks, horizontal) beyond which chunks switch to LOD level 1 / 2, and how far past
+    // a threshold a chunk has to be before it switches, so chunks on a boundary don't remesh back and forth.
+    public static final float DEFAULT_LOD1_DISTANCE = 128.0f;
+    public static final float DEFAULT_LOD2_DISTANCE = 256.0f;
+    private static final float LOD_HYSTERESIS = 8.0f;
+    // Horizontal slack for the culling boxes (wind-swayed vegetation leans slightly out of its chunk).
+    private static final float CULL_PAD = 0.5f;
+
     private final World world;
     private final BlockTextures textures;
+    // Atlas layout for decoding packed vertices (tile index -> uv) and wrapping repeating (greedy) uvs.
+    private final float tileSpanU;
+    private final float tileSpanV;
+    private final float atlasGrid;
+    private final float atlasCell;
+    private final float atlasInsetU;
+    private final float atlasInsetV;
+    private volatile boolean greedyMeshing = true;
+    private volatile boolean ambientOcclusion = false;
+    private float blockLightStrength = 1.0f;
+    private float lod1Distance = DEFAULT_LOD1_DISTANCE;
+    private float lod2Distance = DEFAULT_LOD2_DISTANCE;
+
+    // View-frustum culling state (render thread only, reused every frame).
+    private final Matrix4f cullViewProj = new Matrix4f();
+    private final FrustumIntersection frustum = new FrustumIntersection();
+    private int drawnLastFrame;
+    private int culledLastFrame;
+    private int culledScratch;
+
+    // Light frustum of the last shadow pass per cascade, and bit masks of which of them are set / saw a
+    // mesh inside them change since (render thread only).
+    private final FrustumIntersection[] shadowFrusta = new FrustumIntersection[CascadedShadowMap.MAX_CASCADES];
+    private int shadowFrustaValid;
+    private int shadowCastersChanged = -1;
+    private final FrustumIntersection casterFrustum = new FrustumIntersection();
+    private MeshChangeListener meshChangeListener;
 
-    private final Map<Long, ChunkMesh> meshes = new HashMap<>();
+    private final LongObjectMap<Slot> slots = new LongObjectMap<>(256);
+    private long meshBytes; // vertex bytes of all current meshes
+
+    // Background meshing: dirty chunks are snapshotted (with neighbours) on the render thread,
+    // meshed on worker threads, and uploaded back on the render thread under a byte budget.
+    private final ExecutorService meshWorkers;
+    private final ConcurrentLinkedQueue<MeshResult> finished = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<MeshResult> uploads = new ArrayDeque<>();
+    private int failedChunks;
+    private final ArrayDeque<Slot> dirty = new ArrayDeque<>();
 
     public ChunkRenderer(World world, BlockTextures textures) {
+        this(world, textures, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public ChunkRenderer(World world, BlockTextures textures, int meshThreads) {
         this.world = world;
         this.textures = textures;
+        TextureAtlas atlas = textures.atlas();
+        UvRect tile = atlas.uvForTile(0);
+        this.tileSpanU = tile.u1() - tile.u0();
+        this.tileSpanV = tile.v1() - tile.v0();
+        this.atlasGrid = atlas.grid;
+        this.atlasCell = atlas.cellSize / (float) atlas.width;
+        // Tile 0 sits in cell (0,0), so its uv origin is the padding + half-texel inset of every tile.
+        this.atlasInsetU = tile.u0();
+        this.atlasInsetV = tile.v0();
+        AtomicInteger n = new AtomicInteger();
+        this.meshWorkers = Executors.newFixedThreadPool(Math.max(1, meshThreads), r -> {
+            Thread t = new Thread(r, "chunk-mesh-" + n.getAndIncrement());
+            t.setDaemon(true);
+            t.setPriority(Math.max(Thread.MIN_PRIORITY, Thread.NORM_PRIORITY - 1));
+            return t;
+        });
     }
 
+    // Synchronous rebuild (mesh + upload now). Supersedes any background job for this chunk.
     public void buildChunk(int cx, int cz) {
-        long k = key(cx, cz);
-        ChunkMesh old = meshes.remove(k);
-        if (old != null) {
-            try { old.close(); } catch (Exception ignored) {}
+        Slot s = slot(cx, cz);
+        s.version++;
+        int level = s.lodTarget;
+        ChunkMeshData data = level == 0
+            ? ChunkMesher.buildMeshData(world, cx, cz, textures, greedyMeshing, ambientOcclusion)
+            : LodMesher.buildMeshData(world, cx, cz, textures, level);
+        try {
+            replaceMesh(s, new ChunkMesh(data.vertices(), data.vertexCount()), data);
+            s.lod = level;
+            clearFailed(s);
+        } finally {
+            data.release();
+        }
+    }
+
+    // Greedy meshing merges coplanar cube faces; turning it off gives one quad per visible face.
+    // Applies to chunks meshed after the call.
+    public void setGreedyMeshing(boolean enabled) {
+        greedyMeshing = enabled;
+    }
+
+    public boolean isGreedyMeshing() {
+        return greedyMeshing;
+    }
+
+    // Per-vertex ambient occlusion baked while meshing (no extra pass at draw time). Off by default: the
+    // greedy pass cannot merge across corners whose AO differs, so on generated terrain it costs about
+    // 1.7x the quads (greedy 2.5x fewer than culled without AO, 1.4x with). Off writes unoccluded
+    // vertices. Applies to chunks meshed after the call.
+    public void setAmbientOcclusion(boolean enabled) {
+        ambientOcclusion = enabled;
+    }
+
+    public boolean isAmbientOcclusion() {
+        return ambientOcclusion;
+    }
+
+    // Scale of the torch light baked into the vertices (LightEngine), sent as uBlockLightStrength.
+    public void setBlockLightStrength(float strength) {
+        blockLightStrength = Math.max(0.0f, strength);
+    }
+
+    // Distances (blocks from the camera, horizontal) beyond which chunks are meshed at LOD level 1
+    // (2x2x2 blocks per cell) and level 2 (4x4x4), see LodMesher. Takes effect on the next updateLod().
+    public void setLodDistances(float level1, float level2) {
+        lod1Distance = Math.max(0.0f, level1);
+        lod2Distance = Math.max(lod1Distance, level2);
+    }
+
+    // Picks the detail level of every chunk for the camera position and queues a remesh for chunks whose
+    // level changed (their current mesh stays drawn until the new one is uploaded). Call once per frame
+    // before update(); cheap when nothing crosses a threshold. Returns the number of chunks queued.
+    public int updateLod(float cameraX, float cameraZ) {
+        int changed = 0;
+        for (int i = 0; i < slots.capacity(); i++) {
+            Slot s = slots.valueAt(i);
+            if (s == null) continue;
+            float dx = s.cx * (float) Chunk.SIZE + Chunk.SIZE * 0.5f - cameraX;
+            float dz = s.cz * (float) Chunk.SIZE + Chunk.SIZE * 0.5f - cameraZ;
+            int level = lodLevel((float) Math.sqrt(dx * dx + dz * dz), s.lodTarget);
+            if (level == s.lodTarget) continue;
+            s.lodTarget = level;
+            queue(s);
+            changed++;
+        }
+        return changed;
+    }
+
+    // Level for a chunk at distance d whose target is current: only moves once d is LOD_HYSTERESIS past
+    // the threshold in between.
+    private int lodLevel(float d, int current) {
+        int coarser = lodLevelAt(d - LOD_HYSTERESIS);
+        int finer = lodLevelAt(d + LOD_HYSTERESIS);
+        if (current < coarser) return coarser;
+        if (current > finer) return finer;
+        return current;
+    }
+
+    private int lodLevelAt(float d) {
+        return d > lod2Distance ? 2 : (d > lod1Distance ? 1 : 0);
+    }
+
+    // Chunks whose current mesh is at the given LOD level (0 = full detail).
+    public int chunksAtLod(int level) {
+        int n = 0;
+        for (int i = 0; i < slots.capacity(); i++) {
+            Slot s = slots.valueAt(i);
+            if (s != null && s.mesh != null && s.lod == level) n++;
+        }
+        return n;
+    }
+
+    // Queues a background remesh. Repeated calls before the next update() coalesce.
+    public void markDirtyChunk(int cx, int cz) {
+        if (world.getChunk(cx, cz) == null) return;
+        queue(slot(cx, cz));
+    }
+
+    // True if the chunk has a mesh or one is queued / being built.
+    public boolean hasChunk(int cx, int cz) {
+        return slots.containsKey(World.key(cx, cz));
+    }
+
+    // Frees a chunk's mesh (e.g. when it is unloaded); queued and running builds for it are dropped.
+    public boolean removeChunk(int cx, int cz) {
+        Slot s = slots.remove(World.key(cx, cz));
+        if (s == null) return false;
+        s.version++;
+        s.removed = true;
+        clearFailed(s);
+        if (s.mesh != null && s.mesh.vertexCount() > 0) {
+            shadowCastersChanged |= shadowVolumesContaining(s);
+            MeshChangeListener l = meshChangeListener;
+            if (l != null) {
+                float x0 = s.cx * (float) Chunk.SIZE;
+                float z0 = s.cz * (float) Chunk.SIZE;
+                l.meshChanged(x0, s.minY, z0, x0 + Chunk.SIZE, s.maxY, z0 + Chunk.SIZE);
+            }
+        }
+        if (s.mesh != null) {
+            try { s.mesh.close(); } catch (Exception ignored) {}
+            s.mesh = null;
+        }
+        meshBytes -= s.bytes;
+        s.bytes = 0;
+        return true;
+    }
+
+    // Chunks with a mesh (or one on the way), and the vertex bytes of the current meshes.
+    public int chunkCount() {
+        return slots.size();
+    }
+
+    public long meshBytes() {
+        return meshBytes;
+    }
+
+    // Vertex bytes of one chunk's mesh, 0 if it has none.
+    public long meshBytes(int cx, int cz) {
+        Slot s = slots.get(World.key(cx, cz));
+        return s != null ? s.bytes : 0L;
+    }
+
+    private void queue(Slot s) {
+        if (s.queued) return;
+        s.queued = true;
+        dirty.add(s);
+    }
+
+    // Call once per frame on the render thread.
+    // Dispatches dirty chunks to the workers, then uploads finished meshes until uploadBudgetBytes is used.
+    public int update(long uploadBudgetBytes) {
+        Slot s;
+        while ((s = dirty.poll()) != null) {
+            s.queued = false;
+            if (s.removed) continue;
+            MeshRegion region = MeshRegion.capture(world, s.cx, s.cz);
+            if (region == null) continue;
+            Slot slot = s;
+            int version = ++s.version;
+            boolean greedy = greedyMeshing;
+            boolean ao = ambientOcclusion;
+            int level = s.lodTarget;
+            meshWorkers.execute(() -> finished.add(build(slot, version, level, region, greedy, ao)));
+        }
+
+        MeshResult r;
+        while ((r = finished.poll()) != null) uploads.add(r);
+
+        int uploaded = 0;
+        long used = 0;
+        while ((r = uploads.peek()) != null) {
+            if (r.version != r.slot.version) {
+                uploads.poll(); // superseded by a newer job or a sync rebuild
+                if (r.data != null) r.data.release();
+                continue;
+            }
+            if (r.data == null) {
+                uploads.poll(); // the build threw: keep the old mesh, flag the slot until a build succeeds
+                if (!r.slot.failed) {
+                    r.slot.failed = true;
+                    failedChunks++;
+                }
+                continue;
+            }
+            long bytes = r.data.byteSize();
+            if (uploaded > 0 && used + bytes > uploadBudgetBytes) break;
+            uploads.poll();
+            try {
+                replaceMesh(r.slot, new ChunkMesh(r.data.vertices(), r.data.vertexCount()), r.data);
+                r.slot.lod = r.level;
+                clearFailed(r.slot);
+            } finally {
+                r.data.release();
+            }
+            used += bytes;
+            uploaded++;
+        }
+        return uploaded;
+    }
+
+    // Worker side of update(). A mesher exception is logged and handed back as a result without data.
+    private MeshResult build(Slot slot, int version, int level, MeshRegion region, boolean greedy, boolean ao) {
+        try {
+            return new MeshResult(slot, version, level, level == 0
+                ? ChunkMesher.buildMeshData(region, textures, greedy, ao)
+                : LodMesher.buildMeshData(region, textures, level));
+        } catch (RuntimeException e) {
+            MESHES_FAILED.increment();
+            Diagnostics.log(Diagnostics.Level.ERROR, "mesh", () -> "chunk " + slot.cx + "," + slot.cz + " level " + level + ": " + e);
+            return new MeshResult(slot, version, level, null);
         }
-        ChunkMesh mesh = ChunkMesher.buildMesh(world, cx, cz, textures);
-        meshes.put(k, mesh);
+    }
+
+    private void clearFailed(Slot s) {
+        if (!s.failed) return;
+        s.failed = false;
+        failedChunks--;
+    }
+
+    // Chunks whose newest build threw (they keep their previous mesh, if any, until marked dirty again).
+    public int failedChunks() {
+        return failedChunks;
+    }
+
+    public int pendingUploads() {
+        return uploads.size();
     }
 
     public void drawAll(ShaderProgram shader) {
-        // Meshes are already in world space; uModel should be identity.
-        for (ChunkMesh m : meshes.values()) {
-            if (m != null) m.draw();
+        // Chunk vertices are chunk-relative; uModel should be identity.
+        beginChunks(shader);
+        for (int i = 0; i < slots.capacity(); i++) {
+            Slot s = slots.valueAt(i);
+            if (s != null && s.mesh != null) drawSlot(shader, s);
         }
+        endChunks(shader);
     }
 
 
@@ -41,32 +342,212 @@ public final class ChunkRenderer implements AutoCloseable {
         float r2 = r * r;
         float pad = Chunk.SIZE * 0.75f;
         float rPad2 = (r + pad) * (r + pad);
+        beginChunks(shader);
 
-        for (Map.Entry<Long, ChunkMesh> e : meshes.entrySet()) {
-            long k = e.getKey();
-            int cx = (int) (k >> 32);
-            int cz = (int) k;
+        for (int i = 0; i < slots.capacity(); i++) {
+            Slot s = slots.valueAt(i);
+            if (s == null || s.mesh == null) continue;
 
-            float chunkCenterX = cx * (float) Chunk.SIZE + (float) Chunk.SIZE * 0.5f;
-            float chunkCenterZ = cz * (float) Chunk.SIZE + (float) Chunk.SIZE * 0.5f;
+            float chunkCenterX = s.cx * (float) Chunk.SIZE + (float) Chunk.SIZE * 0.5f;
+            float chunkCenterZ = s.cz * (float) Chunk.SIZE + (float) Chunk.SIZE * 0.5f;
             float dx = chunkCenterX - centerX;
             float dz = chunkCenterZ - centerZ;
 
             if (dx * dx + dz * dz > rPad2) continue;
-            e.getValue().draw();
+            drawSlot(shader, s);
+        }
+        endChunks(shader);
+    }
+
+    // Draws only chunks whose bounding box intersects the view frustum of proj * view
+    // (e.g. the camera projection and Camera.viewMatrix()). Allocation-free.
+    public void drawVisible(ShaderProgram shader, Matrix4f proj, Matrix4f view) {
+        frustum.set(proj.mul(view, cullViewProj));
+        drawnLastFrame = drawInFrustum(shader, frustum);
+        culledLastFrame = culledScratch;
+        CHUNKS_DRAWN.add(drawnLastFrame);
+        CHUNKS_CULLED.add(culledLastFrame);
+    }
+
+    // Shadow pass for one cascade: draws only chunks inside the light frustum
+    // (CascadedShadowMap.lightViewProj(cascade)) and remembers it, so shadowCastersChanged(cascade)
+    // can tell whether the cached cascade went stale.
+    public void drawShadowCasters(ShaderProgram shader, Matrix4f lightViewProj, int cascade) {
+        FrustumIntersection f = shadowFrusta[cascade];
+        if (f == null) shadowFrusta[cascade] = f = new FrustumIntersection();
+        f.set(lightViewProj);
+        shadowFrustaValid |= 1 << cascade;
+        shadowCastersChanged &= ~(1 << cascade);
+        CASTERS_DRAWN.add(drawInFrustum(shader, f));
+        CASTERS_CULLED.add(culledScratch);
+    }
+
+    // Draws the chunks inside the frustum of viewProj without touching the frame / cascade state
+    // (point-light shadow faces and other extra passes). Returns the number of chunks drawn.
+    public int drawInFrustum(ShaderProgram shader, Matrix4f viewProj) {
+        casterFrustum.set(viewProj);
+        int drawn = drawInFrustum(shader, casterFrustum);
+        CASTERS_DRAWN.add(drawn);
+        CASTERS_CULLED.add(culledScratch);
+        return drawn;
+    }
+
+    // Called on the render thread whenever a chunk's mesh is replaced (e.g. to invalidate cached shadows).
+    public void setMeshChangeListener(MeshChangeListener listener) {
+        meshChangeListener = listener;
+    }
+
+    // True if a chunk mesh inside the cascade's last shadow pass was replaced since that pass
+    // (or no pass happened yet): the cached cascade must be re-rendered.
+    public boolean shadowCastersChanged(int cascade) {
+        return (shadowCastersChanged & (1 << cascade)) != 0;
+    }
+
+    // Chunks drawn / rejected by the last drawVisible() call.
+    public int drawnLastFrame() {
+        return drawnLastFrame;
+    }
+
+    public int culledLastFrame() {
+        return culledLastFrame;
+    }
+
+    private int drawInFrustum(ShaderProgram shader, FrustumIntersection f) {
+        int drawn = 0;
+        int culled = 0;
+        beginChunks(shader);
+        for (int i = 0; i < slots.capacity(); i++) {
+            Slot s = slots.valueAt(i);
+            if (s == null || s.mesh == null || s.mesh.vertexCount() == 0) continue;
+            if (!intersects(f, s)) {
+                culled++;
+                continue;
+            }
+            drawSlot(shader, s);
+            drawn++;
+        }
+        endChunks(shader);
+        culledScratch = culled;
+        return drawn;
+    }
+
+    // Bit mask of the cascades whose last shadow pass covered s (unset cascades count as covering it).
+    private int shadowVolumesContaining(Slot s) {
+        int mask = 0;
+        for (int i = 0; i < shadowFrusta.length; i++) {
+            if ((shadowFrustaValid & (1 << i)) == 0 || intersects(shadowFrusta[i], s)) mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    private static boolean intersects(FrustumIntersection f, Slot s) {
+        float x0 = s.cx * (float) Chunk.SIZE;
+        float z0 = s.cz * (float) Chunk.SIZE;
+        return f.testAab(x0 - CULL_PAD, s.minY, z0 - CULL_PAD,
+                         x0 + Chunk.SIZE + CULL_PAD, s.maxY, z0 + Chunk.SIZE + CULL_PAD);
+    }
+
+    private void beginChunks(ShaderProgram shader) {
+        shader.setUniform1i("uChunkVertex", 1);
+        shader.setUniform2f("uTileSpan", tileSpanU, tileSpanV);
+        shader.setUniform2f("uAtlasLayout", atlasGrid, atlasCell);
+        shader.setUniform2f("uAtlasInset", atlasInsetU, atlasInsetV);
+        shader.setUniform1f("uBlockLightStrength", blockLightStrength);
+    }
+
+    private static void drawSlot(ShaderProgram shader, Slot s) {
+        shader.setUniform3f("uChunkOrigin", s.cx * (float) Chunk.SIZE, 0.0f, s.cz * (float) Chunk.SIZE);
+        s.mesh.draw();
+    }
+
+    // Other meshes (entities) drawn with the same shader use the float layout and no tile wrapping.
+    private static void endChunks(ShaderProgram shader) {
+        shader.setUniform1i("uChunkVertex", 0);
+        shader.setUniform2f("uTileSpan", 0.0f, 0.0f);
+        shader.setUniform3f("uChunkOrigin", 0.0f, 0.0f, 0.0f);
+    }
+
+    private Slot slot(int cx, int cz) {
+        long k = World.key(cx, cz);
+        Slot s = slots.get(k);
+        if (s == null) {
+            s = new Slot(cx, cz);
+            slots.put(k, s);
         }
+        return s;
     }
 
-    private static long key(int cx, int cz) {
-        return (((long) cx) << 32) ^ (cz & 0xffffffffL);
+    private void replaceMesh(Slot s, ChunkMesh mesh, ChunkMeshData data) {
+        ChunkMesh old = s.mesh;
+        boolean hadGeometry = old != null && old.vertexCount() > 0;
+        boolean hasGeometry = data.vertexCount() > 0;
+        int changed = hadGeometry ? shadowVolumesContaining(s) : 0;
+        // Box covering the old and the new geometry.
+        float minY = hadGeometry ? (hasGeometry ? Math.min(s.minY, data.minY()) : s.minY) : data.minY();
+        float maxY = hadGeometry ? (hasGeometry ? Math.max(s.maxY, data.maxY()) : s.maxY) : data.maxY();
+        s.mesh = mesh;
+        meshBytes += data.byteSize() - s.bytes;
+        s.bytes = data.byteSize();
+        s.minY = data.minY();
+        s.maxY = data.maxY();
+        if (hasGeometry) changed |= shadowVolumesContaining(s);
+        shadowCastersChanged |= changed;
+        MeshChangeListener l = meshChangeListener;
+        if (l != null && (hadGeometry || hasGeometry)) {
+            float x0 = s.cx * (float) Chunk.SIZE;
+            float z0 = s.cz * (float) Chunk.SIZE;
+            l.meshChanged(x0, minY, z0, x0 + Chunk.SIZE, maxY, z0 + Chunk.SIZE);
+        }
+        if (old != null) {
+            try { old.close(); } catch (Exception ignored) {}
+        }
     }
 
     @Override
     public void close() {
-        for (ChunkMesh m : meshes.values()) {
-            try { m.close(); } catch (Exception ignored) {}
+        meshWorkers.shutdownNow();
+        for (int i = 0; i < slots.capacity(); i++) {
+            Slot s = slots.valueAt(i);
+            if (s == null || s.mesh == null) continue;
+            try { s.mesh.close(); } catch (Exception ignored) {}
         }
-        meshes.clear();
-        // ...existing code...
+        QuadIndexBuffer.release();
+        MeshResult r;
+        while ((r = uploads.poll()) != null) if (r.data != null) r.data.release();
+        while ((r = finished.poll()) != null) if (r.data != null) r.data.release();
+        slots.clear();
+        dirty.clear();
+        meshBytes = 0;
+        failedChunks = 0;
     }
+
+    // Per-chunk render state (render thread only).
+    private static final class Slot {
+        final int cx;
+        final int cz;
+        ChunkMesh mesh;
+        float minY;     // vertical extent of mesh (culling box)
+        float maxY;
+        int version;    // id of the newest submitted build; older results are discarded
+        boolean queued; // in the dirty queue
+        boolean removed; // dropped by removeChunk(); a later markDirtyChunk makes a new slot
+        long bytes;     // vertex bytes of mesh
+        int lod;        // LOD level of mesh (0 = full detail)
+        int lodTarget;  // level the next build uses
+        boolean failed; // newest build threw (counted in failedChunks)
+
+        Slot(int cx, int cz) {
+            this.cx = cx;
+            this.cz = cz;
+        }
+    }
+
+    // Receives the world-space box covered by a chunk's old and new mesh.
+    @FunctionalInterface
+    public interface MeshChangeListener {
+        void meshChanged(float minX, float minY, float minZ, float maxX, float maxY, float maxZ);
+    }
+
+    // data is null if the build threw.
+    private record MeshResult(Slot slot, int version, int level, ChunkMeshData data) {}
 }
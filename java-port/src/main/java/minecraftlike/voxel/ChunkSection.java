@@ -0,0 +1,93 @@
+package minecraftlike.voxel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// One 16x16x16 slice of a Chunk. All-air sections are never allocated (Chunk keeps null instead),
+// and uniform sections (e.g. solid stone) keep a 0-bit storage with just a one-entry palette.
+final class ChunkSection {
+    static final int SIZE = Chunk.SIZE;
+    static final int VOLUME = SIZE * SIZE * SIZE;
+
+    private final BlockStorage blocks;
+    private int nonAir;
+    // Set once a ChunkSnapshot references this section; from then on it is never written again
+    // (Chunk copies it before the next write). Main thread only.
+    boolean shared;
+
+    ChunkSection(BlockType fill) {
+        blocks = new BlockStorage(VOLUME, fill);
+        nonAir = fill == BlockType.AIR ? 0 : VOLUME;
+    }
+
+    private ChunkSection(ChunkSection src) {
+        blocks = src.blocks.copy();
+        nonAir = src.nonAir;
+    }
+
+    private ChunkSection(BlockStorage blocks, int nonAir) {
+        this.blocks = blocks;
+        this.nonAir = nonAir;
+    }
+
+    ChunkSection copy() {
+        return new ChunkSection(this);
+    }
+
+    // Serialized form (ChunkCodec): non-air count, then the block storage.
+    void write(ByteBuffer out) {
+        out.putShort((short) nonAir);
+        blocks.write(out);
+    }
+
+    static ChunkSection read(ByteBuffer in) throws IOException {
+        int nonAir = in.getShort() & 0xFFFF;
+        if (nonAir == 0 || nonAir > VOLUME) throw new IOException("bad section block count " + nonAir);
+        return new ChunkSection(BlockStorage.read(VOLUME, in), nonAir);
+    }
+
+    static int index(int x, int y, int z) {
+        return (y * SIZE + z) * SIZE + x;
+    }
+
+    BlockType get(int x, int y, int z) {
+        return blocks.get(index(x, y, z));
+    }
+
+    void set(int x, int y, int z, BlockType t) {
+        int i = index(x, y, z);
+        BlockType old = blocks.get(i);
+        if (old == t) return;
+        blocks.set(i, t);
+        if (old == BlockType.AIR) nonAir++;
+        else if (t == BlockType.AIR) nonAir--;
+    }
+
+    boolean isEmpty() {
+        return nonAir == 0;
+    }
+
+    // Non-null if every block in the section has the same type.
+    BlockType uniformType() {
+        return blocks.uniformType();
+    }
+
+    // Drops packed data if the section turned out to be uniform.
+    void trim() {
+        if (shared || blocks.bitsPerEntry() == 0) return;
+        BlockType u = blocks.uniformType();
+        if (u != null) blocks.fill(u);
+    }
+
+    int bitsPerEntry() {
+        return blocks.bitsPerEntry();
+    }
+
+    int paletteSize() {
+        return blocks.paletteSize();
+    }
+
+    long memoryBytes() {
+        return 24 + blocks.memoryBytes();
+    }
+}
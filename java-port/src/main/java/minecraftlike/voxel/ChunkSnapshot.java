@@ -0,0 +1,51 @@
+package minecraftlike.voxel;
+
+// Read-only copy of a chunk's sections and light, safe to read from any thread (see Chunk.snapshot()).
+public final class ChunkSnapshot {
+    public final int cx;
+    public final int cz;
+    private final ChunkSection[] sections;
+    // null if the chunk was not lit yet: light then comes from the sky heightmap (see Chunk.getLight).
+    private final SectionLight[] light;
+    private final byte[] lightFill;
+    private final byte[] skyBlocker;
+
+    ChunkSnapshot(int cx, int cz, ChunkSection[] sections, SectionLight[] light, byte[] lightFill, byte[] skyBlocker) {
+        this.cx = cx;
+        this.cz = cz;
+        this.sections = sections;
+        this.light = light;
+        this.lightFill = lightFill;
+        this.skyBlocker = skyBlocker;
+    }
+
+    public BlockType get(int x, int y, int z) {
+        if (x < 0 || x >= Chunk.SIZE || z < 0 || z >= Chunk.SIZE || y < 0 || y >= Chunk.HEIGHT) return BlockType.AIR;
+        ChunkSection s = sections[y >> 4];
+        if (s == null) return BlockType.AIR;
+        return s.get(x, y & 15, z);
+    }
+
+    // Packed light, same rules as Chunk.getLight.
+    public int getLight(int x, int y, int z) {
+        if (y >= Chunk.HEIGHT) return LightEngine.OPEN_SKY;
+        if (x < 0 || x >= Chunk.SIZE || z < 0 || z >= Chunk.SIZE || y < 0) return 0;
+        if (light == null) return y >= (skyBlocker[z * Chunk.SIZE + x] & 0xFF) ? LightEngine.OPEN_SKY : 0;
+        SectionLight l = light[y >> 4];
+        return l != null ? l.get(ChunkSection.index(x, y & 15, z)) : lightFill[y >> 4] & 0xFF;
+    }
+
+    // Same as Chunk.skyBlockerY.
+    public int skyBlockerY(int x, int z) {
+        return (skyBlocker[z * Chunk.SIZE + x] & 0xFF) - 1;
+    }
+
+    // null == all air. Shared with the chunk, never written (see ChunkSection.shared).
+    ChunkSection section(int sy) {
+        return sections[sy];
+    }
+
+    public boolean isSectionEmpty(int sy) {
+        return sy < 0 || sy >= Chunk.SECTIONS || sections[sy] == null;
+    }
+}
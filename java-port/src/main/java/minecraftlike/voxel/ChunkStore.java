@@ -0,0 +1,216 @@
+package minecraftlike.voxel;
+
+import minecraftlike.engine.Diagnostics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saved chunks on disk: one RegionFile per RegionFile.SIZE x SIZE chunks ("r.<rx>.<rz>.region" in the
+ * store directory), each chunk's blocks compressed by ChunkCodec. Region files stay open (and mapped)
+ * until close(); a load inflates the record from the mapping and decodes it into new section storage.
+ *
+ * Saving is asynchronous: save() takes a snapshot (copy-on-write, so it costs next to nothing on the main
+ * thread) and a single writer thread encodes and writes it. Several saves of a chunk before the writer
+ * gets to it are written once. load() sees pending saves, so a chunk unloaded and loaded again right away
+ * comes back with its edits. flush() waits for the writer; close() flushes and closes the files.
+ *
+ * Threading: save/unload/saveAll on the main thread (they read chunks); load from any thread (the
+ * ChunkGenScheduler workers load through it).
+ */
+public final class ChunkStore implements AutoCloseable {
+    private static final Diagnostics.Counter LOADED = Diagnostics.counter("store.loaded");
+    private static final Diagnostics.Counter SAVED = Diagnostics.counter("store.saved");
+    private static final Diagnostics.Counter BYTES_READ = Diagnostics.counter("store.bytesRead");
+    private static final Diagnostics.Counter BYTES_WRITTEN = Diagnostics.counter("store.bytesWritten");
+
+    private final Path dir;
+    // Open regions by region key (World.key of the region coordinates); guarded by itself.
+    private final LongObjectMap<RegionFile> regions = new LongObjectMap<>(16);
+    // Snapshots waiting for the writer, by chunk key. The queue holds each key once.
+    private final ConcurrentHashMap<Long, ChunkSnapshot> pending = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private final Object idle = new Object();
+    private final ThreadLocal<ChunkCodec> readers = ThreadLocal.withInitial(ChunkCodec::new);
+    private final ChunkCodec writerCodec = new ChunkCodec();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public ChunkStore(Path dir) {
+        this.dir = dir;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writer = new Thread(this::writerLoop, "chunk-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public Path directory() {
+        return dir;
+    }
+
+    /**
+     * The saved chunk (not lit yet, like a freshly generated one), or null if it was never saved.
+     * Throws UncheckedIOException if the record cannot be read.
+     */
+    public Chunk load(int cx, int cz) {
+        ChunkSnapshot unsaved = pending.get(World.key(cx, cz));
+        if (unsaved != null) {
+            ChunkSection[] sections = new ChunkSection[Chunk.SECTIONS];
+            for (int sy = 0; sy < Chunk.SECTIONS; sy++) sections[sy] = unsaved.section(sy);
+            Chunk c = new Chunk(cx, cz);
+            c.loadSections(sections); // the sections are shared with the snapshot: copy-on-write
+            LOADED.increment();
+            return c;
+        }
+        try {
+            RegionFile region = region(cx, cz, false);
+            if (region == null) return null;
+            ChunkCodec codec = readers.get();
+            int length = region.read(RegionFile.index(cx, cz), codec);
+            if (length < 0) return null;
+            Chunk c = codec.decodeInflated(cx, cz);
+            LOADED.increment();
+            BYTES_READ.add(length);
+            return c;
+        } catch (IOException e) {
+            throw new UncheckedIOException("chunk " + cx + "," + cz, e);
+        }
+    }
+
+    // Queues the chunk for writing and marks it saved.
+    public void save(Chunk chunk) {
+        ChunkSnapshot s = chunk.snapshot();
+        chunk.markSaved();
+        Long key = World.key(chunk.cx, chunk.cz);
+        if (pending.put(key, s) == null) queue.add(key);
+    }
+
+    public boolean saveIfDirty(Chunk chunk) {
+        if (!chunk.isDirty()) return false;
+        save(chunk);
+        return true;
+    }
+
+    // Removes a chunk from the world, saving it first if it changed. Returns the removed chunk, or null.
+    public Chunk unload(World world, int cx, int cz) {
+        Chunk c = world.removeChunk(cx, cz);
+        if (c != null) saveIfDirty(c);
+        return c;
+    }
+
+    // Queues every changed chunk of the world (e.g. on exit, before close()). Returns how many.
+    public int saveAll(World world) {
+        int[] n = new int[1];
+        world.forEachChunk(c -> {
+            if (saveIfDirty(c)) n[0]++;
+        });
+        return n[0];
+    }
+
+    public int pendingWrites() {
+        return pending.size();
+    }
+
+    // Blocks until every queued save is written, then forces the region files to disk.
+    public void flush() {
+        synchronized (idle) {
+            while (!pending.isEmpty() && writer.isAlive()) {
+                try {
+                    idle.wait(100L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        synchronized (regions) {
+            for (int i = 0; i < regions.capacity(); i++) {
+                RegionFile r = regions.valueAt(i);
+                if (r != null) r.force();
+            }
+        }
+    }
+
+    private void writerLoop() {
+        while (running || !queue.isEmpty()) {
+            Long key;
+            try {
+                // Polled, not interrupted on close(): an interrupt during a write would close the FileChannel.
+                key = queue.poll(100L, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (key == null) continue;
+            ChunkSnapshot s = pending.get(key);
+            if (s != null) {
+                write(s);
+                // A newer snapshot arrived while writing: it needs another turn.
+                if (!pending.remove(key, s)) queue.add(key);
+            }
+            if (pending.isEmpty()) {
+                synchronized (idle) {
+                    idle.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void write(ChunkSnapshot s) {
+        try {
+            int length = writerCodec.encode(s);
+            region(s.cx, s.cz, true).write(RegionFile.index(s.cx, s.cz), writerCodec.compressed(), length);
+            SAVED.increment();
+            BYTES_WRITTEN.add(length);
+        } catch (IOException e) {
+            Diagnostics.log(Diagnostics.Level.ERROR, "store", () -> "save chunk " + s.cx + "," + s.cz + ": " + e);
+        }
+    }
+
+    private RegionFile region(int cx, int cz, boolean create) throws IOException {
+        int rx = cx >> RegionFile.SHIFT;
+        int rz = cz >> RegionFile.SHIFT;
+        long key = World.key(rx, rz);
+        synchronized (regions) {
+            RegionFile r = regions.get(key);
+            if (r != null) return r;
+            Path path = dir.resolve("r." + rx + "." + rz + ".region");
+            if (!create && !Files.exists(path)) return null;
+            r = new RegionFile(path);
+            regions.put(key, r);
+            return r;
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        running = false;
+        try {
+            writer.join(5000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerCodec.close();
+        synchronized (regions) {
+            for (int i = 0; i < regions.capacity(); i++) {
+                RegionFile r = regions.valueAt(i);
+                if (r == null) continue;
+                try {
+                    r.close();
+                } catch (IOException e) {
+                    Diagnostics.log(Diagnostics.Level.ERROR, "store", () -> "close " + r.path() + ": " + e);
+                }
+            }
+            regions.clear();
+        }
+    }
+}
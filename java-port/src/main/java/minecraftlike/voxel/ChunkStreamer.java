@@ -0,0 +1,293 @@
+package minecraftlike.voxel;
+
+import minecraftlike.engine.Diagnostics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * Keeps the loaded world around the camera bounded. Three radii (in chunks, round like
+ * ChunkGenScheduler.updateCenter):
+ * <ul>
+ *   <li>load: missing chunks are requested (loaded from the ChunkStore or generated),</li>
+ *   <li>render: chunks get meshes (new chunks, light changes and chunks moving into range),</li>
+ *   <li>keep: chunks are never evicted.</li>
+ * </ul>
+ * Outside the keep radius chunks stay resident as a cache until their block and light data
+ * (Chunk.memoryBytes) exceed the chunk budget; then the least recently kept ones are evicted first, the
+ * dirty ones saved before they go. Meshes outside the render radius are evicted the same way under the
+ * mesh budget (GPU vertex bytes). A budget of 0 evicts everything outside its radius right away.
+ *
+ * Nothing walks the resident chunks per frame: the chunk bytes are a running total, taken when a chunk
+ * is integrated and refreshed when its light changes (block edits relight), and the radii are stamped
+ * only when the camera moves to another chunk. Candidates are collected and sorted only while a budget
+ * is exceeded.
+ *
+ * The streamer lights integrated chunks and installs itself as the LightEngine's change listener (only
+ * chunks inside the render radius are remeshed). The renderer may be null (headless). So may the store,
+ * like the scheduler's: evicted chunks are then dropped, edits and all, and generated again.
+ * <pre>
+ *  streamer.update(camX, camZ);   // once per frame, before renderer.update()
+ *  streamer.saveAll(); store.close();   // on exit
+ * </pre>
+ * Main thread only.
+ */
+public final class ChunkStreamer {
+    public static final int DEFAULT_LOAD_RADIUS = 8;
+    public static final int DEFAULT_RENDER_RADIUS = 7;
+    public static final int DEFAULT_KEEP_RADIUS = 10;
+    public static final long DEFAULT_CHUNK_BUDGET_BYTES = 256L * 1024 * 1024;
+    public static final long DEFAULT_MESH_BUDGET_BYTES = 256L * 1024 * 1024;
+
+    private static final Diagnostics.Counter CHUNKS_EVICTED = Diagnostics.counter("stream.evicted.chunks");
+    private static final Diagnostics.Counter MESHES_EVICTED = Diagnostics.counter("stream.evicted.meshes");
+
+    private final World world;
+    private final ChunkGenScheduler scheduler;
+    private final LightEngine light;
+    private final ChunkStore store;
+    private final ChunkRenderer renderer;
+
+    private int loadRadius = DEFAULT_LOAD_RADIUS;
+    private int renderRadius = DEFAULT_RENDER_RADIUS;
+    private int keepRadius = DEFAULT_KEEP_RADIUS;
+    private long chunkBudget = DEFAULT_CHUNK_BUDGET_BYTES;
+    private long meshBudget = DEFAULT_MESH_BUDGET_BYTES;
+
+    // One per resident chunk: last update() at which it was inside the keep / render radius, and its
+    // bytes as counted in chunkBytes.
+    private final LongObjectMap<Entry> entries = new LongObjectMap<>(256);
+    private final ArrayList<Entry> chunkCandidates = new ArrayList<>();
+    private final ArrayList<Entry> meshCandidates = new ArrayList<>();
+    private int centerCx;
+    private int centerCz;
+    private boolean moved = true;   // centre or radii changed since the last stamp
+    private long lastMeshBytes = -1;
+    private long tick;
+    private long chunkBytes;
+
+    public ChunkStreamer(World world, ChunkGenScheduler scheduler, LightEngine light, ChunkStore store, ChunkRenderer renderer) {
+        this.world = world;
+        this.scheduler = scheduler;
+        this.light = light;
+        this.store = store;
+        this.renderer = renderer;
+        light.setChangeListener(this::lightChanged);
+        world.forEachChunk(this::track);
+    }
+
+    // Radii in chunks. render is clamped to load - 1 (a mesh needs its neighbours) and keep to at least
+    // render + 1 (no meshed chunk borders an evicted one).
+    public void setRadii(int load, int render, int keep) {
+        loadRadius = Math.max(1, load);
+        renderRadius = Math.max(0, Math.min(render, loadRadius - 1));
+        keepRadius = Math.max(Math.max(keep, loadRadius), renderRadius + 1);
+        moved = true;
+    }
+
+    public void setBudgets(long chunkBytes, long meshBytes) {
+        chunkBudget = Math.max(0L, chunkBytes);
+        meshBudget = Math.max(0L, meshBytes);
+    }
+
+    public int loadRadius() {
+        return loadRadius;
+    }
+
+    public int renderRadius() {
+        return renderRadius;
+    }
+
+    public int keepRadius() {
+        return keepRadius;
+    }
+
+    // Call once per frame: requests, integrates, meshes and evicts. Returns the number of chunks integrated.
+    public int update(float cameraX, float cameraZ) {
+        tick++;
+        int cx = (int) Math.floor(cameraX / Chunk.SIZE);
+        int cz = (int) Math.floor(cameraZ / Chunk.SIZE);
+        if (cx != centerCx || cz != centerCz) {
+            centerCx = cx;
+            centerCz = cz;
+            moved = true;
+        }
+        scheduler.updateCenter(cameraX, cameraZ, loadRadius, keepRadius);
+        int integrated = scheduler.integrate(this::integrated);
+
+        boolean stamped = moved;
+        if (moved) {
+            stampKept();
+            stampRendered();
+            moved = false;
+        }
+        // Nothing becomes evictable without a move; new chunks only add bytes.
+        if (chunkBytes > chunkBudget && (stamped || integrated > 0)) evictChunks();
+        if (renderer != null && renderer.meshBytes() > meshBudget && (stamped || renderer.meshBytes() != lastMeshBytes)) {
+            evictMeshes();
+        }
+        if (renderer != null) lastMeshBytes = renderer.meshBytes();
+        return integrated;
+    }
+
+    private void stampKept() {
+        long keep2 = (long) keepRadius * keepRadius;
+        for (int dz = -keepRadius; dz <= keepRadius; dz++) {
+            for (int dx = -keepRadius; dx <= keepRadius; dx++) {
+                if ((long) dx * dx + (long) dz * dz > keep2) continue;
+                Entry e = entries.get(World.key(centerCx + dx, centerCz + dz));
+                if (e != null) e.kept = tick;
+            }
+        }
+    }
+
+    // Also queues meshes for lit chunks that moved into the render radius without one.
+    private void stampRendered() {
+        long render2 = (long) renderRadius * renderRadius;
+        for (int dz = -renderRadius; dz <= renderRadius; dz++) {
+            for (int dx = -renderRadius; dx <= renderRadius; dx++) {
+                if ((long) dx * dx + (long) dz * dz > render2) continue;
+                Entry e = entries.get(World.key(centerCx + dx, centerCz + dz));
+                if (e == null) continue;
+                e.rendered = tick;
+                if (renderer != null && !renderer.hasChunk(e.cx, e.cz)) markIfLit(e.cx, e.cz);
+            }
+        }
+    }
+
+    private void evictChunks() {
+        long keep2 = (long) keepRadius * keepRadius;
+        chunkCandidates.clear();
+        for (int i = 0; i < entries.capacity(); i++) {
+            Entry e = entries.valueAt(i);
+            if (e == null) continue;
+            e.distance2 = distance2(e.cx, e.cz);
+            if (e.distance2 > keep2) chunkCandidates.add(e);
+        }
+        chunkCandidates.sort(Comparator.comparingLong((Entry e) -> e.kept).thenComparingLong(e -> -e.distance2));
+        for (Entry e : chunkCandidates) {
+            if (chunkBytes <= chunkBudget) break;
+            evictChunk(e);
+        }
+        chunkCandidates.clear();
+    }
+
+    private void evictMeshes() {
+        long render2 = (long) renderRadius * renderRadius;
+        meshCandidates.clear();
+        for (int i = 0; i < entries.capacity(); i++) {
+            Entry e = entries.valueAt(i);
+            if (e == null) continue;
+            e.distance2 = distance2(e.cx, e.cz);
+            if (e.distance2 > render2 && renderer.hasChunk(e.cx, e.cz)) meshCandidates.add(e);
+        }
+        meshCandidates.sort(Comparator.comparingLong((Entry e) -> e.rendered).thenComparingLong(e -> -e.distance2));
+        for (Entry e : meshCandidates) {
+            if (renderer.meshBytes() <= meshBudget) break;
+            if (renderer.removeChunk(e.cx, e.cz)) MESHES_EVICTED.increment();
+        }
+        meshCandidates.clear();
+    }
+
+    private void evictChunk(Entry e) {
+        if (store != null) {
+            store.unload(world, e.cx, e.cz);
+        } else {
+            world.removeChunk(e.cx, e.cz);
+        }
+        entries.remove(World.key(e.cx, e.cz));
+        chunkBytes -= e.bytes;
+        CHUNKS_EVICTED.increment();
+        if (renderer != null && renderer.removeChunk(e.cx, e.cz)) MESHES_EVICTED.increment();
+    }
+
+    // A new chunk: light it (lightChanged then remeshes its edge neighbours), count it and remesh the
+    // meshed diagonal neighbours, whose corner AO reads it.
+    private void integrated(Chunk c) {
+        light.lightChunk(c.cx, c.cz);
+        track(c);
+        if (renderer == null) return;
+        if (distance2(c.cx, c.cz) <= (long) renderRadius * renderRadius) markIfLit(c.cx, c.cz);
+        for (int dz = -1; dz <= 1; dz += 2) {
+            for (int dx = -1; dx <= 1; dx += 2) {
+                if (renderer.hasChunk(c.cx + dx, c.cz + dz)) renderer.markDirtyChunk(c.cx + dx, c.cz + dz);
+            }
+        }
+    }
+
+    private void track(Chunk c) {
+        Entry e = new Entry(c.cx, c.cz, tick);
+        e.bytes = c.memoryBytes();
+        entries.put(World.key(c.cx, c.cz), e);
+        chunkBytes += e.bytes;
+    }
+
+    private void markIfLit(int cx, int cz) {
+        Chunk c = world.getChunk(cx, cz);
+        if (c != null && c.lit) renderer.markDirtyChunk(cx, cz);
+    }
+
+    // LightEngine listener: recount the chunk's bytes (light sections come and go with it) and remesh
+    // it if inside the render radius.
+    private void lightChanged(int cx, int cz) {
+        Entry e = entries.get(World.key(cx, cz));
+        Chunk c = e != null ? world.getChunk(cx, cz) : null;
+        if (c != null) {
+            long bytes = c.memoryBytes();
+            chunkBytes += bytes - e.bytes;
+            e.bytes = bytes;
+        }
+        if (renderer == null) return;
+        if (distance2(cx, cz) <= (long) renderRadius * renderRadius) renderer.markDirtyChunk(cx, cz);
+    }
+
+    // Queues every changed chunk for saving (e.g. on exit, then ChunkStore.close()). Returns how many.
+    public int saveAll() {
+        return store != null ? store.saveAll(world) : 0;
+    }
+
+    public int residentChunks() {
+        return world.chunkCount();
+    }
+
+    // Block and light data of the resident chunks, in bytes (as of each chunk's last light change).
+    public long residentChunkBytes() {
+        return chunkBytes;
+    }
+
+    public int residentMeshes() {
+        return renderer != null ? renderer.chunkCount() : 0;
+    }
+
+    public long residentMeshBytes() {
+        return renderer != null ? renderer.meshBytes() : 0L;
+    }
+
+    public String report() {
+        return String.format("chunks=%d (%.1f MiB, budget %.0f) meshes=%d (%.1f MiB, budget %.0f) pending=%d",
+            residentChunks(), chunkBytes / 1048576.0, chunkBudget / 1048576.0,
+            residentMeshes(), residentMeshBytes() / 1048576.0, meshBudget / 1048576.0, scheduler.pendingCount());
+    }
+
+    private long distance2(int cx, int cz) {
+        long dx = cx - centerCx;
+        long dz = cz - centerCz;
+        return dx * dx + dz * dz;
+    }
+
+    private static final class Entry {
+        final int cx;
+        final int cz;
+        long kept;
+        long rendered;
+        long bytes;
+        long distance2;
+
+        Entry(int cx, int cz, long tick) {
+            this.cx = cx;
+            this.cz = cz;
+            this.kept = tick;
+            this.rendered = tick;
+        }
+    }
+}
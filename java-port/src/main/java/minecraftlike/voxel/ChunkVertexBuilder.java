@@ -0,0 +1,168 @@
+package minecraftlike.voxel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Growable buffer of packed chunk vertices (12 bytes each, native byte order):
+ * <pre>
+ *  0..5   x, y, z   u16  chunk-relative position in 1/256 block units
+ *  6..7   u, v      u8   tile repeats along the quad (0..255, greedy quads repeat once per block)
+ *  8      tile      u8   atlas tile index
+ *  9      flags     u8   bits 0-2 face (0=+X, 1=-X, 2=+Y, 3=-Y, 4=+Z, 5=-Z), bit 3 wind sway,
+ *                         bits 4-5 ambient occlusion (0 = darkest .. 3 = unoccluded)
+ * 10      light     u8   sky level in bits 4-7, block light level in bits 0-3 (0..15 each, see LightEngine)
+ * 11      emissive  u8   normalised 0..1
+ * </pre>
+ * voxel.vert / shadow.vert / point_shadow.vert decode this layout (see ChunkMesh for the attribute setup).
+ *
+ * Builders are pooled and write straight into a direct (native-order) buffer that ChunkMesh uploads
+ * without further copies. acquire() on the meshing thread, release() once the data is uploaded or
+ * dropped; a steady stream of remeshes then allocates no vertex memory at all. Buffers keep their
+ * grown capacity while pooled. A builder that is never released is simply garbage collected.
+ */
+final class ChunkVertexBuilder {
+    static final int BYTES_PER_VERTEX = 12;
+    static final int POS_SCALE = 256;
+    static final int FLAG_WIND = 1 << 3;
+    static final int AO_SHIFT = 4;
+
+    private static final int INITIAL_BYTES = 64 * 1024;
+    private static final int MAX_POOLED = 32;
+    private static final ConcurrentLinkedQueue<ChunkVertexBuilder> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    private TextureAtlas atlas;
+    private float tileSpanU;
+    private float tileSpanV;
+    private int originX;
+    private int originZ;
+
+    private ByteBuffer buf;
+    private int size;
+    private int minY; // quantized vertex y range (culling bounds)
+    private int maxY;
+
+    private ChunkVertexBuilder() {
+        this.buf = ByteBuffer.allocateDirect(INITIAL_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    // Takes an empty builder from the pool (or makes one). Vertices are positioned relative to originX/originZ.
+    static ChunkVertexBuilder acquire(BlockTextures textures, int originX, int originZ) {
+        ChunkVertexBuilder b = POOL.poll();
+        if (b != null) {
+            POOLED.decrementAndGet();
+        } else {
+            b = new ChunkVertexBuilder();
+        }
+        b.reset(textures.atlas(), originX, originZ);
+        return b;
+    }
+
+    // Returns the builder (and its buffer) to the pool. It must not be used afterwards.
+    void release() {
+        if (POOLED.incrementAndGet() <= MAX_POOLED) {
+            POOL.add(this);
+        } else {
+            POOLED.decrementAndGet();
+        }
+    }
+
+    private void reset(TextureAtlas atlas, int originX, int originZ) {
+        if (this.atlas != atlas) {
+            this.atlas = atlas;
+            UvRect tile = atlas.uvForTile(0);
+            this.tileSpanU = tile.u1() - tile.u0();
+            this.tileSpanV = tile.v1() - tile.v0();
+        }
+        this.originX = originX;
+        this.originZ = originZ;
+        this.size = 0;
+        this.minY = Integer.MAX_VALUE;
+        this.maxY = Integer.MIN_VALUE;
+        buf.clear();
+    }
+
+    // Packs one vertex given in the mesher's terms: world position, atlas uv (whole tile repeats
+    // starting at the tile origin), axis-aligned normal, packed light, emissive and AO level (0..3).
+    // Negative emissive = wind sway.
+    void vertex(float x, float y, float z, float u, float v, float nx, float ny, float nz,
+                int light, float emissive, int ao, float tileU, float tileV) {
+        ensure(BYTES_PER_VERTEX);
+        ByteBuffer b = buf;
+        int p = size;
+        b.putShort(p, (short) quantize(x - originX));
+        int qy = quantize(y);
+        if (qy < minY) minY = qy;
+        if (qy > maxY) maxY = qy;
+        b.putShort(p + 2, (short) qy);
+        b.putShort(p + 4, (short) quantize(z - originZ));
+        b.put(p + 6, (byte) clamp(Math.round((u - tileU) / tileSpanU), 0, 255));
+        b.put(p + 7, (byte) clamp(Math.round((v - tileV) / tileSpanV), 0, 255));
+        b.put(p + 8, (byte) atlas.tileIndexAt(tileU, tileV));
+        int flags = face(nx, ny, nz);
+        if (emissive < 0.0f) flags |= FLAG_WIND;
+        flags |= (ao & 3) << AO_SHIFT;
+        b.put(p + 9, (byte) flags);
+        b.put(p + 10, (byte) light);
+        b.put(p + 11, (byte) unorm8(Math.max(0.0f, emissive)));
+        size = p + BYTES_PER_VERTEX;
+    }
+
+    int vertexCount() {
+        return size / BYTES_PER_VERTEX;
+    }
+
+    int byteSize() {
+        return size;
+    }
+
+    // Vertical extent of the written vertices in blocks (0..0 when empty).
+    float minY() {
+        return size == 0 ? 0.0f : minY / (float) POS_SCALE;
+    }
+
+    float maxY() {
+        return size == 0 ? 0.0f : maxY / (float) POS_SCALE;
+    }
+
+    // The written vertices (position 0, limit = byteSize()). Valid until release(); do not write to it.
+    ByteBuffer vertices() {
+        buf.limit(size).position(0);
+        return buf;
+    }
+
+    private static int face(float nx, float ny, float nz) {
+        if (nx > 0.5f) return 0;
+        if (nx < -0.5f) return 1;
+        if (ny > 0.5f) return 2;
+        if (ny < -0.5f) return 3;
+        if (nz > 0.5f) return 4;
+        return 5;
+    }
+
+    private static int quantize(float v) {
+        return clamp(Math.round(v * POS_SCALE), 0, 0xFFFF);
+    }
+
+    private static int unorm8(float v) {
+        return clamp(Math.round(v * 255.0f), 0, 255);
+    }
+
+    private static int clamp(int v, int lo, int hi) {
+        return v < lo ? lo : (v > hi ? hi : v);
+    }
+
+    private void ensure(int n) {
+        if (size + n <= buf.capacity()) return;
+        int cap = buf.capacity();
+        while (cap < size + n) cap *= 2;
+        ByteBuffer out = ByteBuffer.allocateDirect(cap).order(ByteOrder.nativeOrder());
+        buf.limit(size).position(0);
+        out.put(buf);
+        out.clear();
+        buf = out;
+    }
+}
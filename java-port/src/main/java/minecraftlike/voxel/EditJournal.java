@@ -0,0 +1,429 @@
+package minecraftlike.voxel;
+
+import minecraftlike.engine.Diagnostics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of block edits, so an edit survives a crash without rewriting its chunk's region
+ * record for every block. Lives next to the region files ("edits.<n>.journal" in the ChunkStore
+ * directory).
+ *
+ * A segment is a HEADER_BYTES header (MAGIC, VERSION) and a sequence of RECORD_BYTES records: world x
+ * (int), z (int), y (short), old and new block (byte ordinals) and a CRC32 of those 12 bytes. Records
+ * are appended to an in-memory buffer on the main thread; a writer thread writes whatever has
+ * accumulated and forces it to disk with one fsync (group commit: while one fsync runs the next group
+ * collects). An edit is durable once sync() returns true, or at the latest one fsync after it was made.
+ *
+ * A failed write, fsync or segment switch is sticky: the records from the failed group on may be lost,
+ * so durability stops advancing, the writer stops, and sync() / record() return false from then on (see
+ * failure()). The edits are still in the World; saving their chunks is the only way left to keep them.
+ *
+ * Compaction keeps the journal short: maintain() / compact() queue the chunks edited in the current
+ * segment for saving (ChunkStore.save, copy-on-write) and seal the segment; the writer starts a new one,
+ * and once the store has written and forced the saved chunks, the sealed segment is deleted.
+ *
+ * The constructor replays any segments left by a crash: records are applied in order to the saved
+ * chunks (or freshly generated ones, also when a saved chunk cannot be read), which are saved and
+ * flushed before the segments are deleted. Each record sets an absolute block, so replaying edits a
+ * region record already holds is harmless. A torn record at the end of a segment (CRC mismatch) ends
+ * that segment.
+ * <pre>
+ *  EditJournal journal = new EditJournal(store, gen);   // before any chunk is loaded
+ *  journal.setBlock(world, x, y, z, t);  light.blockChanged(x, y, z);
+ *  journal.maintain(world);             // once per frame
+ *  journal.close(); store.close();      // on exit, after the final saveAll
+ * </pre>
+ * Threading: everything but close() on the main thread.
+ */
+public final class EditJournal implements AutoCloseable {
+    public static final long DEFAULT_COMPACT_BYTES = 1L << 20;
+
+    static final int MAGIC = 0x45444A4C; // "EDJL"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_BYTES = 16;
+    private static final int CRC_BYTES = 12;
+
+    private static final Diagnostics.Counter APPENDED = Diagnostics.counter("journal.appended");
+    private static final Diagnostics.Counter COMMITS = Diagnostics.counter("journal.commits");
+    private static final Diagnostics.Counter REPLAYED = Diagnostics.counter("journal.replayed");
+    private static final Diagnostics.Counter COMPACTIONS = Diagnostics.counter("journal.compactions");
+
+    private static final BlockType[] TYPES = BlockType.values();
+
+    private final Path dir;
+    private final ChunkStore store;
+    private final int replayed;
+    private final CRC32 crc = new CRC32();
+    // Chunks edited in the current segment, by World.key (main thread only).
+    private final LongObjectMap<Boolean> touched = new LongObjectMap<>(64);
+    private long compactBytes = DEFAULT_COMPACT_BYTES;
+
+    // Guarded by lock: records not yet handed to the writer, the tail of a sealed segment, counts.
+    private final Object lock = new Object();
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * RECORD_BYTES);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * RECORD_BYTES);
+    private ByteBuffer sealed;
+    private long appended;
+    private long durable;
+    private long segmentBytes = HEADER_BYTES;
+    private IOException failure;
+    private volatile boolean compacting;
+    private volatile boolean running = true;
+
+    // Writer thread only (after the constructor).
+    private int segment;
+    private FileChannel channel;
+    private final Thread writer;
+    private Thread compactor;
+
+    /**
+     * Replays the segments left in the store directory (see class comment), then opens a new segment.
+     * gen regenerates chunks that were edited but never saved. Throws UncheckedIOException if the
+     * directory cannot be read or the new segment cannot be created.
+     */
+    public EditJournal(ChunkStore store, WorldGen gen) {
+        this.dir = store.directory();
+        this.store = store;
+        try {
+            List<Path> old = segments(dir);
+            replayed = replay(old, gen);
+            for (Path p : old) Files.delete(p);
+            segment = old.isEmpty() ? 0 : segmentNumber(old.get(old.size() - 1)) + 1;
+            channel = openSegment(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writer = new Thread(this::writerLoop, "edit-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Records replayed by the constructor.
+    public int replayed() {
+        return replayed;
+    }
+
+    // Segment size (written and buffered) at which maintain() compacts.
+    public void setCompactBytes(long bytes) {
+        compactBytes = Math.max(HEADER_BYTES + RECORD_BYTES, bytes);
+    }
+
+    /**
+     * World.setBlock with a journal record. Returns the block that was there, or null if nothing changed
+     * (chunk not loaded, y out of range or the same block). The caller updates light and meshes as usual.
+     * The edit is made even if the journal has failed (see failure()).
+     */
+    public BlockType setBlock(World world, int wx, int wy, int wz, BlockType t) {
+        if (wy < 0 || wy >= Chunk.HEIGHT) return null;
+        Chunk c = world.getChunk(wx >> 4, wz >> 4);
+        if (c == null) return null;
+        BlockType old = c.get(wx & 15, wy, wz & 15);
+        if (old == t) return null;
+        c.set(wx & 15, wy, wz & 15, t);
+        record(wx, wy, wz, old, t);
+        return old;
+    }
+
+    // Appends one edit (already applied to the world). The writer commits it with the next group.
+    // Returns false, dropping the record, once the journal has failed.
+    public boolean record(int wx, int wy, int wz, BlockType old, BlockType t) {
+        touched.put(World.key(wx >> 4, wz >> 4), Boolean.TRUE);
+        synchronized (lock) {
+            if (failure != null) return false;
+            if (buffer.remaining() < RECORD_BYTES) buffer = grow(buffer);
+            int start = buffer.position();
+            buffer.putInt(wx).putInt(wz).putShort((short) wy).put((byte) old.ordinal()).put((byte) t.ordinal());
+            crc.reset();
+            crc.update(buffer.array(), start, CRC_BYTES);
+            buffer.putInt((int) crc.getValue());
+            appended++;
+            segmentBytes += RECORD_BYTES;
+            lock.notifyAll();
+        }
+        APPENDED.increment();
+        return true;
+    }
+
+    // Blocks until every edit recorded so far is on disk. Returns false if they are not: the journal
+    // failed (or was closed) first, or the wait was interrupted.
+    public boolean sync() {
+        synchronized (lock) {
+            long target = appended;
+            while (durable < target && failure == null && writer.isAlive()) {
+                try {
+                    lock.wait(100L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return durable >= target;
+        }
+    }
+
+    // The I/O error that stopped the journal, or null while it works.
+    public IOException failure() {
+        synchronized (lock) {
+            return failure;
+        }
+    }
+
+    // Compacts once the current segment outgrew setCompactBytes. Call once per frame.
+    public boolean maintain(World world) {
+        long size;
+        synchronized (lock) {
+            size = segmentBytes;
+        }
+        return size >= compactBytes && compact(world);
+    }
+
+    /**
+     * Saves the chunks edited in the current segment and seals it; the segment is deleted in the
+     * background once the store has them on disk. Chunks no longer in the world were saved when they were
+     * unloaded. Returns false if nothing was edited, the previous compaction is still running or the
+     * journal has failed.
+     */
+    public boolean compact(World world) {
+        if (compacting || touched.isEmpty() || failure() != null) return false;
+        for (int i = 0; i < touched.capacity(); i++) {
+            if (touched.valueAt(i) == null) continue;
+            long key = touched.keyAt(i);
+            Chunk c = world.getChunk((int) (key >> 32), (int) key);
+            if (c != null) store.saveIfDirty(c);
+        }
+        touched.clear();
+        compacting = true;
+        synchronized (lock) {
+            sealed = buffer;
+            buffer = ByteBuffer.allocate(sealed.capacity());
+            segmentBytes = HEADER_BYTES;
+            lock.notifyAll();
+        }
+        return true;
+    }
+
+    public boolean isCompacting() {
+        return compacting;
+    }
+
+    private void writerLoop() {
+        while (true) {
+            ByteBuffer tail;
+            ByteBuffer batch;
+            long target;
+            synchronized (lock) {
+                while (running && buffer.position() == 0 && sealed == null) {
+                    try {
+                        lock.wait(100L);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (buffer.position() == 0 && sealed == null) return; // closed and drained
+                tail = sealed;
+                sealed = null;
+                batch = buffer;
+                buffer = spare;
+                target = appended;
+            }
+            // Records sealed into the old segment go before the ones made after the seal.
+            if (tail != null && !seal(tail)) return;
+            try {
+                if (batch.position() > 0) {
+                    writeFully(batch.flip());
+                    channel.force(false);
+                    COMMITS.increment();
+                }
+            } catch (IOException e) {
+                // Part of the group may be on disk; a torn record there ends the segment on replay, so
+                // nothing written after it would count either.
+                fail("commit", e);
+                return;
+            }
+            synchronized (lock) {
+                spare = batch.clear();
+                durable = target;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // Writes the sealed tail, closes the old segment, opens the next and starts deleting the old one.
+    // Returns false if the journal failed.
+    private boolean seal(ByteBuffer tail) {
+        Path old = path(dir, segment);
+        try {
+            if (tail.position() > 0) writeFully(tail.flip());
+            channel.force(false);
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+        } catch (IOException e) {
+            // The old segment stays and is replayed on the next start, as far as it got written.
+            compacting = false;
+            fail("seal " + old, e);
+            return false;
+        }
+        compactor = new Thread(() -> {
+            store.flush();
+            try {
+                Files.deleteIfExists(old);
+                COMPACTIONS.increment();
+            } catch (IOException e) {
+                Diagnostics.log(Diagnostics.Level.ERROR, "journal", () -> "delete " + old + ": " + e);
+            }
+            compacting = false;
+        }, "edit-journal-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+        return true;
+    }
+
+    // Makes the failure sticky and wakes sync(); the writer thread ends after this.
+    private void fail(String what, IOException e) {
+        Diagnostics.log(Diagnostics.Level.ERROR, "journal", () -> what + ": " + e + "; journal stopped");
+        synchronized (lock) {
+            if (failure == null) failure = e;
+            lock.notifyAll();
+        }
+    }
+
+    private void writeFully(ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) channel.write(b);
+    }
+
+    private FileChannel openSegment(int n) throws IOException {
+        FileChannel ch = FileChannel.open(path(dir, n), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) ch.write(header);
+        return ch;
+    }
+
+    // Applies the records of the old segments to saved or generated chunks and saves them. Returns the record count.
+    private int replay(List<Path> old, WorldGen gen) throws IOException {
+        if (old.isEmpty()) return 0;
+        LongObjectMap<Chunk> chunks = new LongObjectMap<>(64);
+        int n = 0;
+        for (Path p : old) {
+            ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(p));
+            if (b.remaining() < HEADER_BYTES || b.getInt() != MAGIC || b.getInt() != VERSION) {
+                Diagnostics.log(Diagnostics.Level.WARN, "journal", () -> "skipping " + p + ": bad header");
+                continue;
+            }
+            while (b.remaining() >= RECORD_BYTES) {
+                int start = b.position();
+                int wx = b.getInt();
+                int wz = b.getInt();
+                int wy = b.getShort();
+                b.get(); // old block: only needed to undo
+                int t = b.get() & 0xFF;
+                crc.reset();
+                crc.update(b.array(), start, CRC_BYTES);
+                if (b.getInt() != (int) crc.getValue() || wy < 0 || wy >= Chunk.HEIGHT || t >= TYPES.length) {
+                    int offset = start;
+                    Diagnostics.log(Diagnostics.Level.WARN, "journal", () -> p + ": torn record at " + offset + ", rest skipped");
+                    break;
+                }
+                int cx = wx >> 4;
+                int cz = wz >> 4;
+                long key = World.key(cx, cz);
+                Chunk c = chunks.get(key);
+                if (c == null) {
+                    c = load(cx, cz);
+                    if (c == null) {
+                        c = new Chunk(cx, cz);
+                        gen.generateChunk(c);
+                    }
+                    chunks.put(key, c);
+                }
+                c.set(wx & 15, wy, wz & 15, TYPES[t]);
+                n++;
+            }
+        }
+        for (int i = 0; i < chunks.capacity(); i++) {
+            Chunk c = chunks.valueAt(i);
+            if (c != null) store.save(c);
+        }
+        store.flush();
+        REPLAYED.add(n);
+        int count = n;
+        Diagnostics.log(Diagnostics.Level.INFO, "journal",
+            () -> "replayed " + count + " edit(s) into " + chunks.size() + " chunk(s) from " + old.size() + " segment(s)");
+        return n;
+    }
+
+    private Chunk load(int cx, int cz) {
+        try {
+            return store.load(cx, cz);
+        } catch (UncheckedIOException e) {
+            // Unreadable record: replay onto a generated chunk, whose save overwrites it.
+            Diagnostics.log(Diagnostics.Level.ERROR, "store", () -> "load chunk " + cx + "," + cz + ": " + e.getCause());
+            return null;
+        }
+    }
+
+    // Commits what is buffered, waits for a running compaction and closes the segment (it is replayed
+    // on the next start unless compacted). Close before the ChunkStore.
+    @Override
+    public void close() {
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        try {
+            writer.join(5000L);
+            Thread c = compactor;
+            if (c != null) c.join(5000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Diagnostics.log(Diagnostics.Level.ERROR, "journal", () -> "close: " + e);
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer b) {
+        ByteBuffer bigger = ByteBuffer.allocate(b.capacity() * 2);
+        return bigger.put(b.flip());
+    }
+
+    private static Path path(Path dir, int n) {
+        return dir.resolve("edits." + n + ".journal");
+    }
+
+    // Segment files in the directory, oldest first.
+    private static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> list = new ArrayList<>();
+            files.filter(p -> segmentNumber(p) >= 0).forEach(list::add);
+            list.sort(Comparator.comparingInt(EditJournal::segmentNumber));
+            return list;
+        }
+    }
+
+    // n of "edits.<n>.journal", -1 for other files.
+    private static int segmentNumber(Path p) {
+        String name = p.getFileName().toString();
+        if (!name.startsWith("edits.") || !name.endsWith(".journal")) return -1;
+        try {
+            return Integer.parseInt(name.substring(6, name.length() - 8));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package minecraftlike.voxel;
+
+import minecraftlike.engine.Diagnostics;
+import minecraftlike.engine.ShaderProgram;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Heightfield terrain beyond the loaded chunks, straight from WorldGen.terrainHeight (FarTerrainTiles
+ * picks and builds the tiles). Drawn with shaders/far_terrain.vert + far_terrain.frag, textured with the
+ * grass / cobblestone tops of the block atlas, so at a distance it blends into the chunk terrain.
+ * Fragments inside the near square (setNearArea, the area drawn as chunks) are discarded.
+ *
+ * update() is incremental: tiles are cached by key, at most maxBuilds missing tiles are built per call,
+ * and the drawn set only switches once every tile of the new selection is resident (until then the
+ * previous set stays on screen). Tiles that left the drawn set are freed. Render thread only.
+ */
+public final class FarTerrain implements AutoCloseable {
+    public static final float DEFAULT_VIEW_DISTANCE = 3072.0f;
+    public static final int DEFAULT_BUILDS_PER_UPDATE = 2;
+    private static final int TILE_BYTES = FarTerrainTiles.VERTICES * FarTerrainTiles.BYTES_PER_VERTEX;
+
+    private static final Diagnostics.Counter TILES_BUILT = Diagnostics.counter("farTerrain.built");
+    private static final Diagnostics.Counter TILES_DRAWN = Diagnostics.counter("farTerrain.drawn");
+
+    private final FarTerrainTiles tiles;
+    private final LongObjectMap<Tile> resident = new LongObjectMap<>(128);
+    private long[] active = new long[64];
+    private int activeCount;
+    private int epoch;
+    private long[] evict = new long[64];
+    private final ByteBuffer scratch = MemoryUtil.memAlloc(TILE_BYTES);
+    private final int ebo;
+
+    private final float tileSpanU;
+    private final float tileSpanV;
+    private final float grassU;
+    private final float grassV;
+    private final float rockU;
+    private final float rockV;
+
+    private float viewDistance = DEFAULT_VIEW_DISTANCE;
+    private float nearX;
+    private float nearZ;
+    private float nearRadius;
+
+    private final Matrix4f cullViewProj = new Matrix4f();
+    private final FrustumIntersection frustum = new FrustumIntersection();
+
+    public FarTerrain(WorldGen gen, BlockTextures textures) {
+        this.tiles = new FarTerrainTiles(gen);
+        UvRect grass = textures.uv(BlockType.GRASS, 2);
+        UvRect rock = textures.uv(BlockType.COBBLESTONE, 2);
+        this.tileSpanU = grass.u1() - grass.u0();
+        this.tileSpanV = grass.v1() - grass.v0();
+        this.grassU = grass.u0();
+        this.grassV = grass.v0();
+        this.rockU = rock.u0();
+        this.rockV = rock.v0();
+
+        short[] indices = FarTerrainTiles.indices();
+        ShortBuffer ib = MemoryUtil.memAllocShort(indices.length);
+        ib.put(indices).flip();
+        ebo = glGenBuffers();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, ib, GL_STATIC_DRAW);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        MemoryUtil.memFree(ib);
+    }
+
+    // Horizontal distance (blocks) the heightfield reaches. The camera far plane and the fog have to
+    // reach as far for it to show.
+    public void setViewDistance(float blocks) {
+        viewDistance = Math.max(0.0f, blocks);
+    }
+
+    // Square (centre, half size in blocks) drawn as chunks; the heightfield leaves it out.
+    public void setNearArea(float centerX, float centerZ, float radius) {
+        nearX = centerX;
+        nearZ = centerZ;
+        nearRadius = Math.max(0.0f, radius);
+    }
+
+    /**
+     * Selects the tiles for the camera position and builds up to maxBuilds missing ones. Call once per
+     * frame; returns the number of tiles built.
+     */
+    public int update(float cameraX, float cameraZ, int maxBuilds) {
+        tiles.select(cameraX, cameraZ, nearRadius, viewDistance);
+        long[] keys = tiles.selected();
+        int count = tiles.selectedCount();
+        int built = 0;
+        boolean complete = true;
+        for (int i = 0; i < count; i++) {
+            if (resident.containsKey(keys[i])) continue;
+            if (built >= maxBuilds) {
+                complete = false;
+                continue;
+            }
+            resident.put(keys[i], buildTile(keys[i]));
+            built++;
+        }
+        if (complete && !sameAsActive(keys, count)) {
+            if (active.length < count) active = new long[Math.max(count, active.length * 2)];
+            System.arraycopy(keys, 0, active, 0, count);
+            activeCount = count;
+            evictInactive();
+        }
+        return built;
+    }
+
+    private boolean sameAsActive(long[] keys, int count) {
+        if (count != activeCount) return false;
+        for (int i = 0; i < count; i++) {
+            if (keys[i] != active[i]) return false;
+        }
+        return true;
+    }
+
+    private void evictInactive() {
+        int stamp = ++epoch;
+        for (int i = 0; i < activeCount; i++) resident.get(active[i]).epoch = stamp;
+        int n = 0;
+        for (int i = 0; i < resident.capacity(); i++) {
+            Tile t = resident.valueAt(i);
+            if (t == null || t.epoch == stamp) continue;
+            if (n == evict.length) evict = Arrays.copyOf(evict, n * 2);
+            evict[n++] = t.key;
+        }
+        // Removed after the scan: removal shifts entries between slots.
+        for (int i = 0; i < n; i++) resident.remove(evict[i]).close();
+    }
+
+    private Tile buildTile(long key) {
+        scratch.clear();
+        tiles.build(key, scratch);
+        scratch.flip();
+        float minY = Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int p = 4; p < TILE_BYTES; p += FarTerrainTiles.BYTES_PER_VERTEX) {
+            float y = scratch.getFloat(p);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+        TILES_BUILT.increment();
+        return new Tile(key, scratch, minY, maxY, ebo);
+    }
+
+    // Draws the current tile set with the far-terrain shader bound (lighting and fog uniforms set by the
+    // caller as for voxel.frag), skipping tiles outside the frustum of proj * view.
+    public void draw(ShaderProgram shader, Matrix4f proj, Matrix4f view) {
+        frustum.set(proj.mul(view, cullViewProj));
+        shader.setUniform2f("uTileSpan", tileSpanU, tileSpanV);
+        shader.setUniform2f("uGrassTile", grassU, grassV);
+        shader.setUniform2f("uRockTile", rockU, rockV);
+        shader.setUniform3f("uNearArea", nearX, nearZ, nearRadius);
+        glDisable(GL_CULL_FACE); // skirts face either way
+        int drawn = 0;
+        for (int i = 0; i < activeCount; i++) {
+            Tile t = resident.get(active[i]);
+            int size = FarTerrainTiles.tileSize(FarTerrainTiles.level(t.key));
+            float x0 = FarTerrainTiles.tileX(t.key) * (float) size;
+            float z0 = FarTerrainTiles.tileZ(t.key) * (float) size;
+            if (!frustum.testAab(x0, t.minY, z0, x0 + size, t.maxY, z0 + size)) continue;
+            glBindVertexArray(t.vao);
+            glDrawElements(GL_TRIANGLES, FarTerrainTiles.INDICES, GL_UNSIGNED_SHORT, 0L);
+            drawn++;
+        }
+        glBindVertexArray(0);
+        glEnable(GL_CULL_FACE);
+        TILES_DRAWN.add(drawn);
+    }
+
+    public int tileCount() {
+        return activeCount;
+    }
+
+    // Vertex memory of all resident tiles (GPU), in bytes.
+    public long residentBytes() {
+        return (long) resident.size() * TILE_BYTES;
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < resident.capacity(); i++) {
+            Tile t = resident.valueAt(i);
+            if (t != null) t.close();
+        }
+        resident.clear();
+        activeCount = 0;
+        glDeleteBuffers(ebo);
+        MemoryUtil.memFree(scratch);
+    }
+
+    private static final class Tile {
+        final long key;
+        final int vao;
+        final int vbo;
+        final float minY;
+        final float maxY;
+        int epoch;
+
+        Tile(long key, ByteBuffer vertices, float minY, float maxY, int ebo) {
+            this.key = key;
+            this.minY = minY;
+            this.maxY = maxY;
+            vao = glGenVertexArrays();
+            vbo = glGenBuffers();
+            glBindVertexArray(vao);
+            glBindBuffer(GL_ARRAY_BUFFER, vbo);
+            glBufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
+            int stride = FarTerrainTiles.BYTES_PER_VERTEX;
+            glVertexAttribPointer(0, 3, GL_FLOAT, false, stride, 0L);
+            glEnableVertexAttribArray(0);
+            // normal xyz + material, signed normalised
+            glVertexAttribPointer(1, 4, GL_BYTE, true, stride, 12L);
+            glEnableVertexAttribArray(1);
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
+            glBindVertexArray(0);
+        }
+
+        void close() {
+            glDeleteBuffers(vbo);
+            glDeleteVertexArrays(vao);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package minecraftlike.voxel;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * CPU side of the far-terrain renderer (see FarTerrain): picks heightfield tiles around the camera and
+ * builds their vertices straight from WorldGen.terrainHeight, without generating any chunks.
+ *
+ * Tiles form a quadtree. A level-L tile is CELLS x CELLS cells of spacing(L) = BASE_SPACING << L
+ * blocks, so every level doubles the tile size; root tiles are level LEVELS-1. A tile is split while the
+ * camera is closer to it than SPLIT_DISTANCE tile sizes, which keeps the cell size on screen roughly
+ * constant. The leaves never overlap; leaves entirely inside the near square (drawn as chunks) or
+ * beyond the view distance are dropped.
+ *
+ * Tile vertices (BYTES_PER_VERTEX each, native order): x, y, z as floats (world space, y = top of
+ * the surface block), the surface normal as 3 signed normalised bytes, and 1 byte material (0 = grass,
+ * 127 = rocky, the same rule as generateChunk). The (CELLS+1)^2 grid vertices are followed by four edge
+ * rows of skirt vertices hanging skirtDepth below the edge, which hide the cracks against neighbours
+ * of another level. All tiles share one index list, see indices().
+ *
+ * No GL state (headless-testable).
+ */
+public final class FarTerrainTiles {
+    public static final int CELLS = 32;
+    public static final int BASE_SPACING = 4;
+    public static final int LEVELS = 6;
+    public static final float SPLIT_DISTANCE = 1.0f;
+    public static final int BYTES_PER_VERTEX = 16;
+    public static final int GRID_VERTICES = (CELLS + 1) * (CELLS + 1);
+    public static final int VERTICES = GRID_VERTICES + 4 * (CELLS + 1);
+    public static final int INDICES = CELLS * CELLS * 6 + 4 * CELLS * 6;
+
+    private static final int SAMPLES = CELLS + 3; // grid plus a ring for the normals
+
+    private final WorldGen gen;
+    private final int[] heights = new int[SAMPLES * SAMPLES];
+
+    // Output of the last select(): leaf tile keys.
+    private long[] selected = new long[64];
+    private int selectedCount;
+
+    public FarTerrainTiles(WorldGen gen) {
+        this.gen = gen;
+    }
+
+    public static int spacing(int level) {
+        return BASE_SPACING << level;
+    }
+
+    public static int tileSize(int level) {
+        return CELLS * spacing(level);
+    }
+
+    public static long key(int level, int tx, int tz) {
+        return ((long) level << 56) | ((long) (tx & 0xFFFFFFF) << 28) | (tz & 0xFFFFFFF);
+    }
+
+    public static int level(long key) {
+        return (int) (key >>> 56);
+    }
+
+    public static int tileX(long key) {
+        return (int) (key << 8 >> 36);
+    }
+
+    public static int tileZ(long key) {
+        return (int) (key << 36 >> 36);
+    }
+
+    /**
+     * Selects the leaf tiles for a camera at (cameraX, cameraZ): everything within viewDistance
+     * (horizontal) except tiles lying completely inside the near square |dx|, |dz| < nearRadius.
+     * Result in selected() / selectedCount(), valid until the next call.
+     */
+    public void select(float cameraX, float cameraZ, float nearRadius, float viewDistance) {
+        selectedCount = 0;
+        int top = LEVELS - 1;
+        int size = tileSize(top);
+        int tx0 = Math.floorDiv((int) Math.floor(cameraX - viewDistance), size);
+        int tx1 = Math.floorDiv((int) Math.ceil(cameraX + viewDistance), size);
+        int tz0 = Math.floorDiv((int) Math.floor(cameraZ - viewDistance), size);
+        int tz1 = Math.floorDiv((int) Math.ceil(cameraZ + viewDistance), size);
+        for (int tz = tz0; tz <= tz1; tz++) {
+            for (int tx = tx0; tx <= tx1; tx++) visit(top, tx, tz, cameraX, cameraZ, nearRadius, viewDistance);
+        }
+    }
+
+    private void visit(int level, int tx, int tz, float cx, float cz, float nearRadius, float viewDistance) {
+        float size = tileSize(level);
+        float x0 = tx * size;
+        float z0 = tz * size;
+        // Nearest and farthest point of the tile from the camera.
+        float nx = Math.max(x0 - cx, Math.max(0.0f, cx - (x0 + size)));
+        float nz = Math.max(z0 - cz, Math.max(0.0f, cz - (z0 + size)));
+        if (nx * nx + nz * nz >= viewDistance * viewDistance) return;
+        float fx = Math.max(Math.abs(x0 - cx), Math.abs(x0 + size - cx));
+        float fz = Math.max(Math.abs(z0 - cz), Math.abs(z0 + size - cz));
+        if (fx <= nearRadius && fz <= nearRadius) return;
+
+        if (level > 0 && (float) Math.sqrt(nx * nx + nz * nz) < SPLIT_DISTANCE * size) {
+            for (int k = 0; k < 4; k++) visit(level - 1, tx * 2 + (k & 1), tz * 2 + (k >> 1), cx, cz, nearRadius, viewDistance);
+            return;
+        }
+        if (selectedCount == selected.length) selected = Arrays.copyOf(selected, selectedCount * 2);
+        selected[selectedCount++] = key(level, tx, tz);
+    }
+
+    public long[] selected() {
+        return selected;
+    }
+
+    public int selectedCount() {
+        return selectedCount;
+    }
+
+    // Skirt length below the tile edge (blocks): enough to cover the height steps against a neighbour
+    // with twice the spacing on steep ground.
+    public static int skirtDepth(int level) {
+        return 8 + 2 * spacing(level);
+    }
+
+    /**
+     * Writes the VERTICES vertices of a tile into out (from its position, which is advanced). Not
+     * thread-safe (reuses a height scratch array); one FarTerrainTiles per building thread.
+     */
+    public void build(long key, ByteBuffer out) {
+        int level = level(key);
+        int s = spacing(level);
+        int size = tileSize(level);
+        int x0 = tileX(key) * size;
+        int z0 = tileZ(key) * size;
+        for (int j = 0; j < SAMPLES; j++) {
+            for (int i = 0; i < SAMPLES; i++) {
+                heights[j * SAMPLES + i] = gen.terrainHeight(x0 + (i - 1) * s, z0 + (j - 1) * s);
+            }
+        }
+        int base = out.position();
+        for (int j = 0; j <= CELLS; j++) {
+            for (int i = 0; i <= CELLS; i++) vertex(out, x0, z0, s, i, j, 0);
+        }
+        int depth = skirtDepth(level);
+        for (int i = 0; i <= CELLS; i++) vertex(out, x0, z0, s, i, 0, depth);
+        for (int i = 0; i <= CELLS; i++) vertex(out, x0, z0, s, i, CELLS, depth);
+        for (int j = 0; j <= CELLS; j++) vertex(out, x0, z0, s, 0, j, depth);
+        for (int j = 0; j <= CELLS; j++) vertex(out, x0, z0, s, CELLS, j, depth);
+        assert out.position() - base == VERTICES * BYTES_PER_VERTEX;
+    }
+
+    private void vertex(ByteBuffer out, int x0, int z0, int s, int i, int j, int drop) {
+        int h = height(i, j);
+        int x = x0 + i * s;
+        int z = z0 + j * s;
+        float dhx = (height(i + 1, j) - height(i - 1, j)) / (2.0f * s);
+        float dhz = (height(i, j + 1) - height(i, j - 1)) / (2.0f * s);
+        float inv = 1.0f / (float) Math.sqrt(dhx * dhx + 1.0f + dhz * dhz);
+        out.putFloat(x);
+        out.putFloat(h + 1 - drop);
+        out.putFloat(z);
+        out.put((byte) Math.round(-dhx * inv * 127.0f));
+        out.put((byte) Math.round(inv * 127.0f));
+        out.put((byte) Math.round(-dhz * inv * 127.0f));
+        out.put((byte) (gen.isRocky(x, z, h) ? 127 : 0));
+    }
+
+    // Terrain height at grid vertex (i, j), -1..CELLS+1.
+    private int height(int i, int j) {
+        return heights[(j + 1) * SAMPLES + i + 1];
+    }
+
+    // Triangle list shared by all tiles: the grid, then one strip of two triangles per edge cell between
+    // the edge row and its skirt row. Winding is not consistent across the skirts; draw without culling.
+    public static short[] indices() {
+        short[] idx = new short[INDICES];
+        int n = 0;
+        int row = CELLS + 1;
+        for (int j = 0; j < CELLS; j++) {
+            for (int i = 0; i < CELLS; i++) {
+                int v = j * row + i;
+                n = quad(idx, n, v, v + row, v + row + 1, v + 1);
+            }
+        }
+        for (int e = 0; e < 4; e++) {
+            int skirt = GRID_VERTICES + e * row;
+            for (int k = 0; k < CELLS; k++) {
+                int top = switch (e) {
+                    case 0 -> k;
+                    case 1 -> CELLS * row + k;
+                    case 2 -> k * row;
+                    default -> k * row + CELLS;
+                };
+                int next = e < 2 ? top + 1 : top + row;
+                n = quad(idx, n, top, next, skirt + k + 1, skirt + k);
+            }
+        }
+        return idx;
+    }
+
+    private static int quad(short[] idx, int n, int a, int b, int c, int d) {
+        idx[n++] = (short) a;
+        idx[n++] = (short) b;
+        idx[n++] = (short) c;
+        idx[n++] = (short) a;
+        idx[n++] = (short) c;
+        idx[n++] = (short) d;
+        return n;
+    }
+}
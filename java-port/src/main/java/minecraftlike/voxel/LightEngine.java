@@ -0,0 +1,381 @@
+package minecraftlike.voxel;
+
+import minecraftlike.engine.Diagnostics;
+
+/**
+ * Flood-fill lighting: a 4-bit sky level and a 4-bit block level per cell, stored per section in the
+ * chunks (Chunk.getLight, packed sky << 4 | block) and baked into chunk vertices by the mesher.
+ * Sky light enters every column from the top at 15 and keeps that level straight down through fully
+ * transparent cells (a leaf block under full sky gets 14). Both kinds then spread to the 6 neighbours,
+ * one level weaker per step; leaves cost one extra level and solid blocks stop light. Torches emit block light 14, so any number of
+ * torches costs nothing per fragment.
+ *
+ * lightChunk() lights a freshly loaded chunk, including the light it exchanges with loaded
+ * neighbours. blockChanged() updates incrementally after a World.setBlock: the old light is removed
+ * by a BFS over the cells it could have reached, then re-propagated from the edge of that area.
+ * Unloaded (or not yet lit) chunks neither give nor take light. Every chunk whose light (or whose
+ * neighbour's border light) changed is reported to the listener, e.g. ChunkRenderer::markDirtyChunk.
+ * <pre>
+ *  light.setChangeListener(renderer::markDirtyChunk);
+ *  scheduler.integrate(c -> light.lightChunk(c.cx, c.cz));
+ *  world.setBlock(x, y, z, t);  light.blockChanged(x, y, z);
+ * </pre>
+ * Main thread only, like World.
+ */
+public final class LightEngine {
+    public static final int MAX_LEVEL = 15;
+    public static final int TORCH_LEVEL = 14;
+    // Packed light of a cell under open sky: sky 15, block 0.
+    public static final int OPEN_SKY = MAX_LEVEL << 4;
+
+    // Nibble of each channel in the packed value.
+    private static final int SKY = 4;
+    private static final int BLOCK = 0;
+    private static final int[] CHANNELS = { SKY, BLOCK };
+
+    // Face convention: 0=+X, 1=-X, 2=+Y, 3=-Y, 4=+Z, 5=-Z
+    private static final int[] FACE_DX = { 1, -1, 0, 0, 0, 0 };
+    private static final int[] FACE_DY = { 0, 0, 1, -1, 0, 0 };
+    private static final int[] FACE_DZ = { 0, 0, 0, 0, 1, -1 };
+    private static final int DOWN = 3;
+
+    private static final Diagnostics.Counter CHUNKS_LIT = Diagnostics.counter("light.chunks");
+    private static final Diagnostics.Counter UPDATES = Diagnostics.counter("light.updates");
+    private static final Diagnostics.Counter CELLS_CHANGED = Diagnostics.counter("light.cells");
+
+    private final World world;
+    private final CellQueue addQueue = new CellQueue();
+    private final CellQueue removeQueue = new CellQueue();
+    // Chunks touched by the current operation (reported once at the end).
+    private final LongObjectMap<Chunk> touched = new LongObjectMap<>(16);
+    private final int[] skyBottom = new int[Chunk.SIZE * Chunk.SIZE];
+    private long cellsChanged;
+    private LightChangeListener listener;
+
+    public LightEngine(World world) {
+        this.world = world;
+    }
+
+    public void setChangeListener(LightChangeListener listener) {
+        this.listener = listener;
+    }
+
+    // Extra levels lost when light enters a cell of this type; MAX_LEVEL blocks it completely.
+    public static int opacity(BlockType t) {
+        if (t == BlockType.AIR || t == BlockType.TALL_GRASS || t == BlockType.TORCH) return 0;
+        if (t == BlockType.LEAVES) return 1;
+        return MAX_LEVEL;
+    }
+
+    public static int emission(BlockType t) {
+        return t == BlockType.TORCH ? TORCH_LEVEL : 0;
+    }
+
+    // Computes the light of a chunk that was just put into the World (generated or loaded), and
+    // spreads it into / pulls it from its loaded neighbours.
+    public void lightChunk(int cx, int cz) {
+        Chunk c = world.getChunk(cx, cz);
+        if (c == null) return;
+        c.lit = true;
+        int baseX = cx * Chunk.SIZE;
+        int baseZ = cz * Chunk.SIZE;
+
+        int topSection = -1;
+        for (int sy = Chunk.SECTIONS - 1; sy >= 0; sy--) {
+            if (!c.isSectionEmpty(sy)) {
+                topSection = sy;
+                break;
+            }
+        }
+        for (int sy = 0; sy < Chunk.SECTIONS; sy++) c.fillLight(sy, sy > topSection ? OPEN_SKY : 0);
+        int topY = (topSection + 1) * Chunk.SIZE;
+
+        // Sky: straight down from the top to the highest light-blocking block (the chunk's heightmap).
+        for (int lz = 0; lz < Chunk.SIZE; lz++) {
+            for (int lx = 0; lx < Chunk.SIZE; lx++) {
+                int y = c.skyBlockerY(lx, lz);
+                for (int sy = y + 1; sy < topY; sy++) c.setLight(lx, sy, lz, OPEN_SKY);
+                // A partly transparent block at the very top still gets the sky above the world.
+                if (y == Chunk.HEIGHT - 1 && opacity(c.get(lx, y, lz)) < MAX_LEVEL) {
+                    c.setLight(lx, y, lz, (MAX_LEVEL - opacity(c.get(lx, y, lz))) << 4);
+                    addQueue.add(pack(baseX + lx, y, baseZ + lz, 0));
+                }
+                skyBottom[lz * Chunk.SIZE + lx] = y + 1;
+            }
+        }
+        // Then sideways and below: seed the direct-sky cells next to a shaded neighbour column (every
+        // sky cell on a border to a loaded chunk) plus the lowest sky cell of each column.
+        for (int lz = 0; lz < Chunk.SIZE; lz++) {
+            for (int lx = 0; lx < Chunk.SIZE; lx++) {
+                int bottom = skyBottom[lz * Chunk.SIZE + lx];
+                int top = bottom + 1;
+                for (int f = 0; f < 6; f++) {
+                    if (FACE_DY[f] != 0) continue;
+                    int nx = lx + FACE_DX[f];
+                    int nz = lz + FACE_DZ[f];
+                    if (nx >= 0 && nx < Chunk.SIZE && nz >= 0 && nz < Chunk.SIZE) {
+                        top = Math.max(top, skyBottom[nz * Chunk.SIZE + nx]);
+                    } else if (chunk((baseX + nx) >> 4, (baseZ + nz) >> 4) != null) {
+                        top = Chunk.HEIGHT;
+                    }
+                }
+                for (int y = bottom; y < Math.min(top, Chunk.HEIGHT); y++) addQueue.add(pack(baseX + lx, y, baseZ + lz, 0));
+            }
+        }
+        pullFromNeighbours(c, SKY);
+        propagate(SKY);
+
+        // Block light: every emitter in the chunk.
+        for (int sy = 0; sy <= topSection; sy++) {
+            BlockType uniform = c.sectionUniformType(sy);
+            if (uniform != null && emission(uniform) == 0) continue;
+            for (int y = sy * Chunk.SIZE; y < (sy + 1) * Chunk.SIZE; y++) {
+                for (int lz = 0; lz < Chunk.SIZE; lz++) {
+                    for (int lx = 0; lx < Chunk.SIZE; lx++) {
+                        int e = emission(c.get(lx, y, lz));
+                        if (e == 0) continue;
+                        c.setLight(lx, y, lz, (c.getLight(lx, y, lz) & ~15) | e);
+                        addQueue.add(pack(baseX + lx, y, baseZ + lz, 0));
+                    }
+                }
+            }
+        }
+        pullFromNeighbours(c, BLOCK);
+        propagate(BLOCK);
+
+        c.trimLight();
+        // Faces of the neighbours sample this chunk's border cells.
+        markTouched(c);
+        markTouched(chunk(cx + 1, cz));
+        markTouched(chunk(cx - 1, cz));
+        markTouched(chunk(cx, cz + 1));
+        markTouched(chunk(cx, cz - 1));
+        CHUNKS_LIT.increment();
+        finish();
+    }
+
+    // Updates the light around a cell whose block just changed (call after World.setBlock).
+    public void blockChanged(int wx, int wy, int wz) {
+        if (wy < 0 || wy >= Chunk.HEIGHT) return;
+        Chunk c = chunk(wx >> 4, wz >> 4);
+        if (c == null) return;
+        int lx = wx & 15;
+        int lz = wz & 15;
+        BlockType t = c.get(lx, wy, lz);
+        for (int shift : CHANNELS) {
+            // Take out whatever light the cell had, and everything that may have come through it.
+            int level = (c.getLight(lx, wy, lz) >> shift) & 15;
+            if (level > 0) {
+                setLevel(c, wx, wy, wz, shift, 0);
+                removeQueue.add(pack(wx, wy, wz, level));
+                unpropagate(shift);
+            }
+            // Refill from the neighbours, the sky above the world and the block itself.
+            for (int f = 0; f < 6; f++) {
+                int ny = wy + FACE_DY[f];
+                if (ny < 0 || ny >= Chunk.HEIGHT) continue;
+                int nx = wx + FACE_DX[f];
+                int nz = wz + FACE_DZ[f];
+                Chunk n = chunk(nx >> 4, nz >> 4);
+                if (n != null && ((n.getLight(nx & 15, ny, nz & 15) >> shift) & 15) > 0) addQueue.add(pack(nx, ny, nz, 0));
+            }
+            int own = ownLevel(shift, t, wy);
+            if (own > 0) {
+                setLevel(c, wx, wy, wz, shift, own);
+                addQueue.add(pack(wx, wy, wz, 0));
+            }
+            propagate(shift);
+        }
+        UPDATES.increment();
+        finish();
+    }
+
+    // Queues the border cells of the loaded neighbours that can light this chunk.
+    private void pullFromNeighbours(Chunk c, int shift) {
+        for (int f = 0; f < 6; f++) {
+            if (FACE_DY[f] != 0) continue;
+            Chunk n = chunk(c.cx + FACE_DX[f], c.cz + FACE_DZ[f]);
+            if (n == null) continue;
+            // The neighbour's column facing c: its x (or z) edge on our side.
+            int fixed = FACE_DX[f] > 0 || FACE_DZ[f] > 0 ? 0 : Chunk.SIZE - 1;
+            for (int y = 0; y < Chunk.HEIGHT; y++) {
+                for (int i = 0; i < Chunk.SIZE; i++) {
+                    int lx = FACE_DX[f] != 0 ? fixed : i;
+                    int lz = FACE_DX[f] != 0 ? i : fixed;
+                    if (((n.getLight(lx, y, lz) >> shift) & 15) > 1) {
+                        addQueue.add(pack(n.cx * Chunk.SIZE + lx, y, n.cz * Chunk.SIZE + lz, 0));
+                    }
+                }
+            }
+        }
+    }
+
+    // BFS from the queued cells: raises each neighbour to (level - 1 - opacity) where that is brighter
+    // (full sky going down: 15 - opacity).
+    private void propagate(int shift) {
+        while (!addQueue.isEmpty()) {
+            long p = addQueue.poll();
+            int x = unpackX(p), y = unpackY(p), z = unpackZ(p);
+            Chunk c = chunk(x >> 4, z >> 4);
+            if (c == null) continue;
+            int level = (c.getLight(x & 15, y, z & 15) >> shift) & 15;
+            if (level <= 1) continue;
+            for (int f = 0; f < 6; f++) {
+                int ny = y + FACE_DY[f];
+                if (ny < 0 || ny >= Chunk.HEIGHT) continue;
+                int nx = x + FACE_DX[f];
+                int nz = z + FACE_DZ[f];
+                Chunk n = (nx >> 4) == c.cx && (nz >> 4) == c.cz ? c : chunk(nx >> 4, nz >> 4);
+                if (n == null) continue;
+                int op = opacity(n.get(nx & 15, ny, nz & 15));
+                if (op >= MAX_LEVEL) continue;
+                int nl = (shift == SKY && f == DOWN && level == MAX_LEVEL) ? MAX_LEVEL - op : level - 1 - op;
+                if (nl <= 0 || ((n.getLight(nx & 15, ny, nz & 15) >> shift) & 15) >= nl) continue;
+                setLevel(n, nx, ny, nz, shift, nl);
+                addQueue.add(pack(nx, ny, nz, 0));
+            }
+        }
+    }
+
+    // Removal BFS: zeroes every cell that may have been lit through the queued cells (level in the
+    // queue entry = the level the cell had). Brighter cells at the edge have another source and are
+    // queued for propagate(); emitters (and the top layer under the sky) keep their own light.
+    private void unpropagate(int shift) {
+        while (!removeQueue.isEmpty()) {
+            long p = removeQueue.poll();
+            int x = unpackX(p), y = unpackY(p), z = unpackZ(p);
+            int level = unpackLevel(p);
+            for (int f = 0; f < 6; f++) {
+                int ny = y + FACE_DY[f];
+                if (ny < 0 || ny >= Chunk.HEIGHT) continue;
+                int nx = x + FACE_DX[f];
+                int nz = z + FACE_DZ[f];
+                Chunk n = chunk(nx >> 4, nz >> 4);
+                if (n == null) continue;
+                int nl = (n.getLight(nx & 15, ny, nz & 15) >> shift) & 15;
+                if (nl == 0) continue;
+                boolean fromHere = nl < level || (shift == SKY && f == DOWN && level == MAX_LEVEL && nl == MAX_LEVEL);
+                if (!fromHere) {
+                    addQueue.add(pack(nx, ny, nz, 0));
+                    continue;
+                }
+                setLevel(n, nx, ny, nz, shift, 0);
+                removeQueue.add(pack(nx, ny, nz, nl));
+                int e = ownLevel(shift, n.get(nx & 15, ny, nz & 15), ny);
+                if (e > 0) {
+                    setLevel(n, nx, ny, nz, shift, e);
+                    addQueue.add(pack(nx, ny, nz, 0));
+                }
+            }
+        }
+    }
+
+    // Light a cell has regardless of its neighbours: emission, or the sky above the world for the top layer.
+    private static int ownLevel(int shift, BlockType t, int y) {
+        if (shift == BLOCK) return emission(t);
+        return y == Chunk.HEIGHT - 1 ? Math.max(0, MAX_LEVEL - opacity(t)) : 0;
+    }
+
+    // Loaded and lit chunk, or null: chunks still waiting for lightChunk() neither give nor take light.
+    private Chunk chunk(int cx, int cz) {
+        Chunk c = world.getChunk(cx, cz);
+        return c != null && c.lit ? c : null;
+    }
+
+    private void setLevel(Chunk c, int wx, int wy, int wz, int shift, int level) {
+        int lx = wx & 15;
+        int lz = wz & 15;
+        int packed = c.getLight(lx, wy, lz);
+        c.setLight(lx, wy, lz, (packed & ~(15 << shift)) | (level << shift));
+        cellsChanged++;
+        touch(c, wx, wz);
+    }
+
+    // Marks the cell's chunk, and for border cells the neighbour whose faces sample it, for remeshing.
+    private void touch(Chunk c, int wx, int wz) {
+        markTouched(c);
+        int lx = wx & 15;
+        int lz = wz & 15;
+        if (lx == 0) markTouched(chunk(c.cx - 1, c.cz));
+        if (lx == Chunk.SIZE - 1) markTouched(chunk(c.cx + 1, c.cz));
+        if (lz == 0) markTouched(chunk(c.cx, c.cz - 1));
+        if (lz == Chunk.SIZE - 1) markTouched(chunk(c.cx, c.cz + 1));
+    }
+
+    private void markTouched(Chunk c) {
+        if (c == null) return;
+        long k = World.key(c.cx, c.cz);
+        if (!touched.containsKey(k)) touched.put(k, c);
+    }
+
+    private void finish() {
+        CELLS_CHANGED.add(cellsChanged);
+        cellsChanged = 0;
+        LightChangeListener l = listener;
+        if (l != null) {
+            for (int i = 0; i < touched.capacity(); i++) {
+                Chunk c = touched.valueAt(i);
+                if (c != null) l.lightChanged(c.cx, c.cz);
+            }
+        }
+        touched.clear();
+    }
+
+    // Queue entry: world x and z (26 bits each, signed), y (7 bits), level (4 bits).
+    private static long pack(int x, int y, int z, int level) {
+        return ((long) (x & 0x3FFFFFF) << 37) | ((long) (z & 0x3FFFFFF) << 11) | ((long) y << 4) | level;
+    }
+
+    private static int unpackX(long p) {
+        return (int) (p >>> 37) << 6 >> 6;
+    }
+
+    private static int unpackZ(long p) {
+        return (int) (p >>> 11) << 6 >> 6;
+    }
+
+    private static int unpackY(long p) {
+        return (int) (p >>> 4) & 127;
+    }
+
+    private static int unpackLevel(long p) {
+        return (int) p & 15;
+    }
+
+    // Growable FIFO of packed cells; keeps its capacity between operations.
+    private static final class CellQueue {
+        private long[] items = new long[4096];
+        private int head;
+        private int tail;
+
+        boolean isEmpty() {
+            return head == tail;
+        }
+
+        void add(long v) {
+            if (tail == items.length) {
+                int n = tail - head;
+                if (head < items.length / 2) {
+                    long[] grown = new long[items.length * 2];
+                    System.arraycopy(items, head, grown, 0, n);
+                    items = grown;
+                } else {
+                    System.arraycopy(items, head, items, 0, n);
+                }
+                head = 0;
+                tail = n;
+            }
+            items[tail++] = v;
+        }
+
+        long poll() {
+            long v = items[head++];
+            if (head == tail) head = tail = 0;
+            return v;
+        }
+    }
+
+    public interface LightChangeListener {
+        void lightChanged(int cx, int cz);
+    }
+}
@@ -0,0 +1,266 @@
+package minecraftlike.voxel;
+
+import minecraftlike.engine.Diagnostics;
+
+import java.util.Arrays;
+
+/**
+ * Reduced-detail chunk meshes for distant chunks. The chunk is downsampled to cells of factor(level)
+ * blocks per axis (level 1: 2x2x2, level 2: 4x4x4) by majority vote: a cell is solid when at least half
+ * of its blocks are (leaves count, plants and torches do not), and takes the most common of those block
+ * types, the higher one on a tie so grass stays on top. Cells are then meshed like ChunkMesher's greedy
+ * pass, with the brightest light of the cell in front and no AO.
+ *
+ * A coarse surface does not line up with the neighbour's surface at the chunk border, whatever detail the
+ * neighbour is drawn at. Each border column therefore gets a skirt: a quad in the border plane spanning
+ * the gap between the coarse top and the chunk's real top there (plus one cell of overlap), facing out
+ * where the coarse surface sticks up and facing in where it dropped below the real blocks.
+ *
+ * Output is the regular packed vertex layout (see ChunkVertexBuilder), so LOD meshes draw with the same
+ * shader and state as full-detail ones.
+ */
+public final class LodMesher {
+    public static final int LEVELS = 3; // 0 = full detail (ChunkMesher)
+    private static final int[] FACTOR = { 1, 2, 4 };
+
+    private static final Diagnostics.Counter LOD_MESHES_BUILT = Diagnostics.counter("mesh.lod.built");
+
+    // Coarse grid of the largest level (factor 2), with a one-cell ring for the neighbours' border cells.
+    private static final int MAX_N = Chunk.SIZE / 2 + 2;
+    private static final int MAX_H = Chunk.HEIGHT / 2;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private static final class Scratch {
+        final BlockType[] cells = new BlockType[MAX_N * MAX_N * MAX_H];
+        final int[] light = new int[MAX_N * MAX_N * MAX_H];
+        final int[] votes = new int[BlockType.values().length];
+        final UvRect[] maskUv = new UvRect[Chunk.SIZE / 2 * MAX_H];
+        final int[] maskLight = new int[Chunk.SIZE / 2 * MAX_H];
+    }
+
+    private LodMesher() {}
+
+    // Blocks per coarse cell along each axis at a level.
+    public static int factor(int level) {
+        return FACTOR[level];
+    }
+
+    // CPU-only meshing at the given level (1..LEVELS-1) of the current world state. No GL.
+    public static ChunkMeshData buildMeshData(World world, int cx, int cz, BlockTextures textures, int level) {
+        MeshRegion region = MeshRegion.capture(world, cx, cz);
+        if (region == null) return ChunkMeshData.empty(cx, cz);
+        return buildMeshData(region, textures, level);
+    }
+
+    // Reads nothing but the region snapshot, so it is safe on worker threads. The caller must release().
+    static ChunkMeshData buildMeshData(MeshRegion region, BlockTextures textures, int level) {
+        int f = FACTOR[level];
+        int n = Chunk.SIZE / f;
+        int h = Chunk.HEIGHT / f;
+        int baseX = region.cx * Chunk.SIZE;
+        int baseZ = region.cz * Chunk.SIZE;
+        Scratch scratch = SCRATCH.get();
+
+        // Downsample the chunk and the neighbours' border cells (ring corners are never read).
+        for (int z = -1; z <= n; z++) {
+            for (int x = -1; x <= n; x++) {
+                boolean ring = x < 0 || x >= n || z < 0 || z >= n;
+                if (ring && (x < 0 || x >= n) && (z < 0 || z >= n)) continue;
+                for (int y = 0; y < h; y++) downsample(region, scratch, f, n, x, y, z, ring);
+            }
+        }
+
+        ChunkVertexBuilder out = ChunkVertexBuilder.acquire(textures, baseX, baseZ);
+        try {
+            addFaces(out, textures, scratch, f, n, h, baseX, baseZ);
+            addSkirts(out, textures, region, scratch, f, n, h, baseX, baseZ);
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+        LOD_MESHES_BUILT.increment();
+        return new ChunkMeshData(region.cx, region.cz, out);
+    }
+
+    // Majority vote over the f^3 blocks of coarse cell (x, y, z); light is the brightest sky and block
+    // level among them.
+    private static void downsample(MeshRegion region, Scratch scratch, int f, int n, int x, int y, int z, boolean ring) {
+        int[] votes = scratch.votes;
+        Arrays.fill(votes, 0);
+        int solid = 0;
+        int sky = 0;
+        int block = 0;
+        BlockType best = BlockType.AIR;
+        int bestVotes = 0;
+        ChunkSnapshot center = region.center;
+        int wx0 = region.cx * Chunk.SIZE + x * f;
+        int wz0 = region.cz * Chunk.SIZE + z * f;
+        // Top layer first, so ties go to the higher block type.
+        for (int dy = f - 1; dy >= 0; dy--) {
+            int by = y * f + dy;
+            for (int dz = 0; dz < f; dz++) {
+                for (int dx = 0; dx < f; dx++) {
+                    BlockType t;
+                    int l;
+                    if (ring) {
+                        t = region.getBlock(wx0 + dx, by, wz0 + dz);
+                        l = region.getLight(wx0 + dx, by, wz0 + dz);
+                    } else {
+                        t = center.get(x * f + dx, by, z * f + dz);
+                        l = center.getLight(x * f + dx, by, z * f + dz);
+                    }
+                    sky = Math.max(sky, l >> 4);
+                    block = Math.max(block, l & 15);
+                    if (!ChunkMesher.occludes(t)) continue;
+                    solid++;
+                    int v = ++votes[t.ordinal()];
+                    if (v > bestVotes) {
+                        bestVotes = v;
+                        best = t;
+                    }
+                }
+            }
+        }
+        int i = index(n, x, y, z);
+        scratch.cells[i] = solid * 2 >= f * f * f ? best : BlockType.AIR;
+        scratch.light[i] = sky << 4 | block;
+    }
+
+    // Coarse grid index; x and z run from -1 to n (the ring).
+    private static int index(int n, int x, int y, int z) {
+        return (y * (n + 2) + z + 1) * (n + 2) + x + 1;
+    }
+
+    private static BlockType cell(Scratch scratch, int n, int h, int x, int y, int z) {
+        if (y < 0 || y >= h) return BlockType.AIR;
+        return scratch.cells[index(n, x, y, z)];
+    }
+
+    // Same mask/rectangle pass as ChunkMesher.addGreedyFaces, on the coarse grid and keyed on tile + light.
+    // Slice/mask axes: X faces (s=x, a=z, b=y), Y faces (s=y, a=x, b=z), Z faces (s=z, a=x, b=y).
+    private static void addFaces(ChunkVertexBuilder out, BlockTextures textures, Scratch scratch, int f, int n, int h, int baseX, int baseZ) {
+        UvRect[] maskUv = scratch.maskUv;
+        int[] maskLight = scratch.maskLight;
+        for (int face = 0; face < 6; face++) {
+            boolean yFace = face == 2 || face == 3;
+            boolean xFace = face == 0 || face == 1;
+            int dx = face == 0 ? 1 : (face == 1 ? -1 : 0);
+            int dy = face == 2 ? 1 : (face == 3 ? -1 : 0);
+            int dz = face == 4 ? 1 : (face == 5 ? -1 : 0);
+            int slices = yFace ? h : n;
+            int sizeA = n;
+            int sizeB = yFace ? n : h;
+
+            for (int s = 0; s < slices; s++) {
+                boolean any = false;
+                for (int b = 0; b < sizeB; b++) {
+                    for (int a = 0; a < sizeA; a++) {
+                        int x = xFace ? s : a;
+                        int y = yFace ? s : b;
+                        int z = xFace ? a : (yFace ? b : s);
+                        int i = b * sizeA + a;
+                        maskUv[i] = null;
+                        BlockType t = cell(scratch, n, h, x, y, z);
+                        if (t == BlockType.AIR) continue;
+                        if (y + dy < 0) continue; // bottom of the world is never visible
+                        if (cell(scratch, n, h, x + dx, y + dy, z + dz) != BlockType.AIR) continue;
+                        maskUv[i] = textures.uv(t, face);
+                        maskLight[i] = y + dy >= h ? LightEngine.OPEN_SKY : scratch.light[index(n, x + dx, y + dy, z + dz)];
+                        any = true;
+                    }
+                }
+                if (!any) continue;
+
+                for (int b = 0; b < sizeB; b++) {
+                    for (int a = 0; a < sizeA; ) {
+                        int i = b * sizeA + a;
+                        UvRect uv = maskUv[i];
+                        if (uv == null) {
+                            a++;
+                            continue;
+                        }
+                        int light = maskLight[i];
+                        int w = 1;
+                        while (a + w < sizeA && maskUv[i + w] == uv && maskLight[i + w] == light) w++;
+                        int hh = 1;
+                        grow:
+                        while (b + hh < sizeB) {
+                            int row = (b + hh) * sizeA + a;
+                            for (int k = 0; k < w; k++) {
+                                if (maskUv[row + k] != uv || maskLight[row + k] != light) break grow;
+                            }
+                            hh++;
+                        }
+                        for (int bb = 0; bb < hh; bb++) {
+                            int row = (b + bb) * sizeA + a;
+                            for (int k = 0; k < w; k++) maskUv[row + k] = null;
+                        }
+
+                        if (xFace) {
+                            int x = baseX + s * f;
+                            ChunkMesher.addFace(out, uv, x, b * f, baseZ + a * f, x + f, (b + hh) * f, baseZ + (a + w) * f, face, light, ChunkMesher.AO_NONE);
+                        } else if (yFace) {
+                            ChunkMesher.addFace(out, uv, baseX + a * f, s * f, baseZ + b * f, baseX + (a + w) * f, (s + 1) * f, baseZ + (b + hh) * f, face, light,
+                                ChunkMesher.AO_NONE);
+                        } else {
+                            int z = baseZ + s * f;
+                            ChunkMesher.addFace(out, uv, baseX + a * f, b * f, z, baseX + (a + w) * f, (b + hh) * f, z + f, face, light, ChunkMesher.AO_NONE);
+                        }
+                        a += w;
+                    }
+                }
+            }
+        }
+    }
+
+    // Skirts along the four chunk borders, one per coarse border column (see the class comment).
+    private static void addSkirts(ChunkVertexBuilder out, BlockTextures textures, MeshRegion region, Scratch scratch, int f, int n, int h,
+                                  int baseX, int baseZ) {
+        ChunkSnapshot chunk = region.center;
+        for (int side = 0; side < 4; side++) {
+            // side: 0=+X, 1=-X, 2=+Z, 3=-Z; the border column of coarse cells and its face directions.
+            boolean xSide = side < 2;
+            int outFace = xSide ? side : side + 2;
+            int inFace = outFace ^ 1;
+            int s = (side & 1) == 0 ? n - 1 : 0;
+            for (int a = 0; a < n; a++) {
+                int x = xSide ? s : a;
+                int z = xSide ? a : s;
+                int coarseTop = 0; // top of the highest solid cell, in blocks
+                BlockType top = BlockType.AIR;
+                for (int y = h - 1; y >= 0; y--) {
+                    BlockType t = cell(scratch, n, h, x, y, z);
+                    if (t != BlockType.AIR) {
+                        coarseTop = (y + 1) * f;
+                        top = t;
+                        break;
+                    }
+                }
+                // Real top of the border blocks covered by this cell column.
+                int realTop = 0;
+                for (int k = 0; k < f; k++) {
+                    int lx = xSide ? ((side & 1) == 0 ? Chunk.SIZE - 1 : 0) : a * f + k;
+                    int lz = xSide ? a * f + k : ((side & 1) == 0 ? Chunk.SIZE - 1 : 0);
+                    realTop = Math.max(realTop, chunk.skyBlockerY(lx, lz) + 1);
+                }
+                if (coarseTop == realTop) continue;
+                int face = coarseTop > realTop ? outFace : inFace;
+                int y0 = Math.max(0, Math.min(coarseTop, realTop) - f);
+                int y1 = Math.max(coarseTop, realTop);
+                BlockType t = top != BlockType.AIR ? top : BlockType.STONE;
+                int light = y1 / f < h ? scratch.light[index(n, x, y1 / f, z)] : LightEngine.OPEN_SKY;
+
+                // Box one block thick on the face's side of the border plane, so addFace puts the quad on it.
+                int px = side == 0 ? baseX + Chunk.SIZE : (side == 1 ? baseX : 0);
+                int pz = side == 2 ? baseZ + Chunk.SIZE : (side == 3 ? baseZ : 0);
+                if (xSide) {
+                    int x0 = face == 0 ? px - 1 : px;
+                    ChunkMesher.addFace(out, textures.uv(t, face), x0, y0, baseZ + a * f, x0 + 1, y1, baseZ + (a + 1) * f, face, light, ChunkMesher.AO_NONE);
+                } else {
+                    int z0 = face == 4 ? pz - 1 : pz;
+                    ChunkMesher.addFace(out, textures.uv(t, face), baseX + a * f, y0, z0, baseX + (a + 1) * f, y1, z0 + 1, face, light, ChunkMesher.AO_NONE);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package minecraftlike.voxel;
+
+// Everything the mesher may read for one chunk: its snapshot (blocks + light) plus the 8 surrounding
+// chunks (the 4 edge neighbours for face culling and light, the 4 diagonal ones for corner AO).
+// Captured on the main thread, then read by a meshing worker without touching World.
+final class MeshRegion {
+    final int cx;
+    final int cz;
+    final ChunkSnapshot center;
+    // 3x3 around the centre, index (dz + 1) * 3 + (dx + 1). null == not loaded (reads as AIR).
+    private final ChunkSnapshot[] grid = new ChunkSnapshot[9];
+
+    private MeshRegion(int cx, int cz, ChunkSnapshot center) {
+        this.cx = cx;
+        this.cz = cz;
+        this.center = center;
+        grid[4] = center;
+    }
+
+    // Returns null if the chunk itself is not loaded. Snapshots are copy-on-write, so the 8 neighbours
+    // cost a section-array copy each, not a block copy.
+    static MeshRegion capture(World world, int cx, int cz) {
+        Chunk c = world.getChunk(cx, cz);
+        if (c == null) return null;
+        MeshRegion r = new MeshRegion(cx, cz, c.snapshot());
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if (dx != 0 || dz != 0) r.grid[(dz + 1) * 3 + dx + 1] = snapshotOf(world, cx + dx, cz + dz);
+            }
+        }
+        return r;
+    }
+
+    private static ChunkSnapshot snapshotOf(World world, int cx, int cz) {
+        Chunk c = world.getChunk(cx, cz);
+        return c != null ? c.snapshot() : null;
+    }
+
+    // World-space lookup. Positions outside the 3x3 chunks (or in one that is not loaded) read as AIR.
+    BlockType getBlock(int wx, int y, int wz) {
+        int lx = wx - cx * Chunk.SIZE;
+        int lz = wz - cz * Chunk.SIZE;
+        if (lx >= 0 && lx < Chunk.SIZE && lz >= 0 && lz < Chunk.SIZE) return center.get(lx, y, lz);
+        ChunkSnapshot s = neighbour(lx, lz);
+        return s != null ? s.get(lx & (Chunk.SIZE - 1), y, lz & (Chunk.SIZE - 1)) : BlockType.AIR;
+    }
+
+    // Packed light (see Chunk.getLight). Positions outside the loaded region read as open sky.
+    int getLight(int wx, int y, int wz) {
+        int lx = wx - cx * Chunk.SIZE;
+        int lz = wz - cz * Chunk.SIZE;
+        if (lx >= 0 && lx < Chunk.SIZE && lz >= 0 && lz < Chunk.SIZE) return center.getLight(lx, y, lz);
+        ChunkSnapshot s = neighbour(lx, lz);
+        return s != null ? s.getLight(lx & (Chunk.SIZE - 1), y, lz & (Chunk.SIZE - 1)) : LightEngine.OPEN_SKY;
+    }
+
+    // The snapshot holding centre-local (lx, lz), or null beyond the 3x3 chunks.
+    private ChunkSnapshot neighbour(int lx, int lz) {
+        int dx = Math.floorDiv(lx, Chunk.SIZE);
+        int dz = Math.floorDiv(lz, Chunk.SIZE);
+        if (dx < -1 || dx > 1 || dz < -1 || dz > 1) return null;
+        return grid[(dz + 1) * 3 + dx + 1];
+    }
+}
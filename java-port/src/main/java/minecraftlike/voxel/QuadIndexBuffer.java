@@ -0,0 +1,74 @@
+package minecraftlike.voxel;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Shared element buffers for quad meshes: quad q uses vertices 4q..4q+3 as (0,1,2) (0,2,3).
+ * Every ChunkMesh binds one of these into its VAO instead of storing 6 vertices per quad.
+ * Meshes with up to 65536 vertices use the 16-bit buffer; larger ones the 32-bit buffer, which grows
+ * on demand (re-specifying the same buffer object keeps existing VAOs valid). Render thread only.
+ */
+final class QuadIndexBuffer {
+    static final int INDICES_PER_QUAD = 6;
+    private static final int MAX_SHORT_QUADS = 65536 / 4;
+
+    private static int shortEbo;
+    private static int intEbo;
+    private static int intQuads;
+
+    private QuadIndexBuffer() {}
+
+    // Binds a shared index buffer covering quadCount quads to GL_ELEMENT_ARRAY_BUFFER (call with the
+    // target VAO bound). Returns the index type to pass to glDrawElements.
+    static int bind(int quadCount) {
+        if (quadCount <= MAX_SHORT_QUADS) {
+            if (shortEbo == 0) {
+                shortEbo = glGenBuffers();
+                glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, shortEbo);
+                upload(MAX_SHORT_QUADS, Short.BYTES);
+            } else {
+                glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, shortEbo);
+            }
+            return GL_UNSIGNED_SHORT;
+        }
+
+        if (intEbo == 0) intEbo = glGenBuffers();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, intEbo);
+        if (quadCount > intQuads) {
+            int quads = Math.max(MAX_SHORT_QUADS * 2, intQuads);
+            while (quads < quadCount) quads *= 2;
+            upload(quads, Integer.BYTES);
+            intQuads = quads;
+        }
+        return GL_UNSIGNED_INT;
+    }
+
+    static void release() {
+        if (shortEbo != 0) glDeleteBuffers(shortEbo);
+        if (intEbo != 0) glDeleteBuffers(intEbo);
+        shortEbo = 0;
+        intEbo = 0;
+        intQuads = 0;
+    }
+
+    private static void upload(int quads, int indexBytes) {
+        ByteBuffer bb = MemoryUtil.memAlloc(quads * INDICES_PER_QUAD * indexBytes);
+        for (int q = 0; q < quads; q++) {
+            int v = q * 4;
+            if (indexBytes == Short.BYTES) {
+                bb.putShort((short) v).putShort((short) (v + 1)).putShort((short) (v + 2));
+                bb.putShort((short) v).putShort((short) (v + 2)).putShort((short) (v + 3));
+            } else {
+                bb.putInt(v).putInt(v + 1).putInt(v + 2);
+                bb.putInt(v).putInt(v + 2).putInt(v + 3);
+            }
+        }
+        bb.flip();
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, bb, GL_STATIC_DRAW);
+        MemoryUtil.memFree(bb);
+    }
+}
@@ -46,9 +46,45 @@ public final class Raycast {
 
         float t = 0f;
         while (t <= maxDist) {
-            BlockType b = BlockType.DIRT;
-            if (b != BlockType.AIR) {
-                return new RaycastHit(x, y, z, nx, ny, nz);
+            if (y >= 0 && y < Chunk.HEIGHT) {
+                int cx = Math.floorDiv(x, Chunk.SIZE);
+                int cz = Math.floorDiv(z, Chunk.SIZE);
+                int sy = y >> 4;
+                Chunk chunk = world.getChunk(cx, cz);
+                if (chunk == null || chunk.isSectionEmpty(sy)) {
+                    // Empty 16^3 section (or unloaded chunk): jump straight to where the ray leaves it.
+                    int minX = cx * Chunk.SIZE, minY = sy * Chunk.SIZE, minZ = cz * Chunk.SIZE;
+                    float exitX = dx > 0 ? (minX + Chunk.SIZE - ox) / dx : (dx < 0 ? (minX - ox) / dx : Float.POSITIVE_INFINITY);
+                    float exitY = dy > 0 ? (minY + Chunk.SIZE - oy) / dy : (dy < 0 ? (minY - oy) / dy : Float.POSITIVE_INFINITY);
+                    float exitZ = dz > 0 ? (minZ + Chunk.SIZE - oz) / dz : (dz < 0 ? (minZ - oz) / dz : Float.POSITIVE_INFINITY);
+                    float tExit = Math.min(exitX, Math.min(exitY, exitZ));
+                    if (tExit > maxDist) return null;
+
+                    // Voxel just inside the section boundary at tExit; the crossed axis is stepped explicitly.
+                    x = clamp((int) Math.floor(ox + dx * tExit), minX, minX + Chunk.SIZE - 1);
+                    y = clamp((int) Math.floor(oy + dy * tExit), minY, minY + Chunk.SIZE - 1);
+                    z = clamp((int) Math.floor(oz + dz * tExit), minZ, minZ + Chunk.SIZE - 1);
+                    if (tExit == exitX) {
+                        x = dx > 0 ? minX + Chunk.SIZE : minX - 1;
+                        nx = -stepX; ny = 0; nz = 0;
+                    } else if (tExit == exitY) {
+                        y = dy > 0 ? minY + Chunk.SIZE : minY - 1;
+                        nx = 0; ny = -stepY; nz = 0;
+                    } else {
+                        z = dz > 0 ? minZ + Chunk.SIZE : minZ - 1;
+                        nx = 0; ny = 0; nz = -stepZ;
+                    }
+                    t = tExit;
+                    tMaxX = dx != 0 ? (x + (dx > 0 ? 1f : 0f) - ox) / dx : Float.POSITIVE_INFINITY;
+                    tMaxY = dy != 0 ? (y + (dy > 0 ? 1f : 0f) - oy) / dy : Float.POSITIVE_INFINITY;
+                    tMaxZ = dz != 0 ? (z + (dz > 0 ? 1f : 0f) - oz) / dz : Float.POSITIVE_INFINITY;
+                    continue;
+                }
+
+                BlockType b = chunk.get(x - cx * Chunk.SIZE, y, z - cz * Chunk.SIZE);
+                if (b != BlockType.AIR) {
+                    return new RaycastHit(x, y, z, nx, ny, nz);
+                }
             }
 
             if (tMaxX < tMaxY) {
@@ -80,4 +116,8 @@ public final class Raycast {
 
         return null;
     }
+
+    private static int clamp(int v, int min, int max) {
+        return v < min ? min : (v > max ? max : v);
+    }
 }
@@ -0,0 +1,186 @@
+package minecraftlike.voxel;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One file holding the saved chunks of a SIZE x SIZE chunk area (see ChunkStore).
+ *
+ * The file is a sequence of SECTOR_BYTES sectors. Sector 0 is the header: per chunk (index
+ * localZ * SIZE + localX) one int, first sector << 8 | sector count, 0 = not saved. A chunk record is
+ * its byte length (int), a compression byte (COMPRESSION_ZLIB) and the ChunkCodec bytes.
+ *
+ * Records are copy-on-write, so a crash mid-write never damages the last good copy: a new record goes
+ * to the first free run that fits (or after the last record), is forced to disk, and only then does the
+ * header entry point at it. The old copy's sectors are retired, not freed: they are reused only after
+ * the header change is on disk too (force(), or once RETIRE_BATCH sectors have piled up). A crash
+ * therefore leaves the header pointing at either copy, both complete.
+ *
+ * The whole file is memory-mapped and both reads and writes go through the mapping: a read inflates the
+ * record straight out of the page cache, without copying it into the heap first. The file grows in
+ * GROW_SECTORS steps (the mapping is replaced then), so it may end in unused zero sectors.
+ *
+ * Thread-safe: reads share a read lock, writes take the write lock.
+ */
+final class RegionFile implements AutoCloseable {
+    static final int SHIFT = 5;
+    static final int SIZE = 1 << SHIFT;
+    static final int SECTOR_BYTES = 4096;
+    static final int MAX_SECTORS = 255;
+    static final int GROW_SECTORS = 64;
+    static final int RETIRE_BATCH = 256;
+    static final byte COMPRESSION_ZLIB = 1;
+    private static final int RECORD_HEADER = 5;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int[] entries = new int[SIZE * SIZE];
+    private final BitSet used = new BitSet();
+    private final BitSet retired = new BitSet(); // still set in used, see class comment
+    private int retiredCount;
+    private MappedByteBuffer map;
+    private int sectorCount; // end of the last record, in sectors
+
+    RegionFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            // A crash can leave a partly written last sector: round up (mapping past the end grows the file).
+            int fileSectors = (int) Math.max(1L, (size + SECTOR_BYTES - 1) / SECTOR_BYTES);
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0L, (long) fileSectors * SECTOR_BYTES);
+            used.set(0);
+            sectorCount = 1;
+            for (int i = 0; i < entries.length; i++) {
+                int e = map.getInt(4 * i);
+                int first = e >>> 8;
+                int count = e & 0xFF;
+                // Entries pointing outside the file (e.g. truncated by a crash) are dropped.
+                if (e == 0 || first == 0 || count == 0 || first + count > fileSectors) continue;
+                entries[i] = e;
+                used.set(first, first + count);
+                sectorCount = Math.max(sectorCount, first + count);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static int index(int cx, int cz) {
+        return (cz & (SIZE - 1)) * SIZE + (cx & (SIZE - 1));
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Inflates a chunk's record from the mapping into the codec (see ChunkCodec.decodeInflated) and
+     * returns its compressed size in bytes, or -1 if the chunk was never saved.
+     */
+    int read(int index, ChunkCodec codec) throws IOException {
+        lock.readLock().lock();
+        try {
+            int e = entries[index];
+            if (e == 0) return -1;
+            int pos = (e >>> 8) * SECTOR_BYTES;
+            int length = map.getInt(pos);
+            byte compression = map.get(pos + 4);
+            if (length < 0 || length > (e & 0xFF) * SECTOR_BYTES - RECORD_HEADER) {
+                throw new IOException(path + ": bad record length " + length + " at chunk " + index);
+            }
+            if (compression != COMPRESSION_ZLIB) throw new IOException(path + ": unknown compression " + compression);
+            codec.inflate(map.slice(pos + RECORD_HEADER, length));
+            return length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Writes data[0, length) as the new copy of a chunk's record (see class comment).
+    void write(int index, byte[] data, int length) throws IOException {
+        int needed = (length + RECORD_HEADER + SECTOR_BYTES - 1) / SECTOR_BYTES;
+        if (needed > MAX_SECTORS) throw new IOException(path + ": chunk record too large (" + length + " bytes)");
+        lock.writeLock().lock();
+        try {
+            int first = allocate(needed);
+            used.set(first, first + needed);
+            ensureMapped(first + needed);
+            sectorCount = Math.max(sectorCount, first + needed);
+
+            int pos = first * SECTOR_BYTES;
+            map.putInt(pos, length);
+            map.put(pos + 4, COMPRESSION_ZLIB);
+            map.put(pos + RECORD_HEADER, data, 0, length);
+            // The copy must be on disk before the header can reach it (the OS writes pages back in any order).
+            map.force(pos, needed * SECTOR_BYTES);
+
+            int old = entries[index];
+            int e = first << 8 | needed;
+            entries[index] = e;
+            map.putInt(4 * index, e);
+            if (old != 0) {
+                retired.set(old >>> 8, (old >>> 8) + (old & 0xFF));
+                retiredCount += old & 0xFF;
+                if (retiredCount >= RETIRE_BATCH) forceAndRelease();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Grows the file (and its mapping) to hold `sectors` sectors. Write lock held.
+    private void ensureMapped(int sectors) throws IOException {
+        if ((long) sectors * SECTOR_BYTES <= map.capacity()) return;
+        int grown = (sectors + GROW_SECTORS - 1) / GROW_SECTORS * GROW_SECTORS;
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0L, (long) grown * SECTOR_BYTES);
+    }
+
+    // First run of `count` free sectors; after the last record if there is none.
+    private int allocate(int count) {
+        int start = used.nextClearBit(1);
+        while (start < sectorCount) {
+            int end = used.nextSetBit(start);
+            if (end < 0 || end - start >= count) return start;
+            start = used.nextClearBit(end);
+        }
+        return start;
+    }
+
+    // Writes the dirty pages of the mapping back to the file, then frees the retired sectors.
+    void force() {
+        lock.writeLock().lock();
+        try {
+            forceAndRelease();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Write lock held. Once the header is on disk no entry points at a retired sector any more.
+    private void forceAndRelease() {
+        map.force();
+        used.andNot(retired);
+        retired.clear();
+        retiredCount = 0;
+    }
+
+    // The mapping itself is released by the GC.
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            map.force();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
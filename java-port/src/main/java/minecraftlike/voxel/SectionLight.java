@@ -0,0 +1,46 @@
+package minecraftlike.voxel;
+
+import java.util.Arrays;
+
+// Light levels of one 16x16x16 section: one byte per cell, sky light in the high nibble and block
+// light in the low nibble (0..15 each, see LightEngine). Sections whose cells all hold the same value
+// (open sky, solid rock) are never allocated; Chunk keeps that value in lightFill instead.
+final class SectionLight {
+    private final byte[] levels;
+    // Same copy-on-write rule as ChunkSection.shared. Main thread only.
+    boolean shared;
+
+    SectionLight(int fill) {
+        levels = new byte[ChunkSection.VOLUME];
+        if (fill != 0) Arrays.fill(levels, (byte) fill);
+    }
+
+    private SectionLight(SectionLight src) {
+        levels = src.levels.clone();
+    }
+
+    SectionLight copy() {
+        return new SectionLight(this);
+    }
+
+    int get(int index) {
+        return levels[index] & 0xFF;
+    }
+
+    void set(int index, int packed) {
+        levels[index] = (byte) packed;
+    }
+
+    // The packed value every cell holds, or -1 if they differ.
+    int uniformValue() {
+        byte first = levels[0];
+        for (byte b : levels) {
+            if (b != first) return -1;
+        }
+        return first & 0xFF;
+    }
+
+    long memoryBytes() {
+        return 16 + 16 + levels.length;
+    }
+}
@@ -43,19 +43,7 @@ public final class TextureAtlas {
         int grid = 5;
         int pad = 16; // padding around each tile to prevent mipmap bleeding (needs to be bigger for large tiles)
 
-        // Keep stable ordering (important because UVs depend on index).
-        LinkedHashMap<String, String> tiles = new LinkedHashMap<>();
-        tiles.put("dirt", "dirt.png");
-        tiles.put("grass_top", "grass_block_top.png");
-        tiles.put("grass_side", "grass_block_side.png");
-        tiles.put("stone", "stone.jpg");
-        tiles.put("planks", "oak_planks.png");
-        tiles.put("log_top", "oak_log_top.jpg");
-        tiles.put("log_side", "oak_log_side.jpg");
-        tiles.put("cobblestone", "cobblestone.png");
-        tiles.put("leaves", "oak_leaves.png");
-        tiles.put("torch", "torch.png");
-        tiles.put("tall_grass", "tall_grass.png");
+        LinkedHashMap<String, String> tiles = defaultTiles();
 
         if (tiles.size() > grid * grid) {
             throw new IllegalStateException("Too many tiles for atlas grid");
@@ -101,6 +89,32 @@ public final class TextureAtlas {
         return new TextureAtlas(tileSize, pad, grid, indexByName, glTex);
     }
 
+    // Same tile layout as buildDefault(), without loading images or creating a GL texture.
+    // For headless tools (benchmarks/checks) that only need UVs.
+    public static TextureAtlas defaultLayout() {
+        Map<String, Integer> indexByName = new LinkedHashMap<>();
+        int idx = 0;
+        for (String name : defaultTiles().keySet()) indexByName.put(name, idx++);
+        return new TextureAtlas(1024, 16, 5, indexByName, null);
+    }
+
+    private static LinkedHashMap<String, String> defaultTiles() {
+        // Keep stable ordering (important because UVs depend on index).
+        LinkedHashMap<String, String> tiles = new LinkedHashMap<>();
+        tiles.put("dirt", "dirt.png");
+        tiles.put("grass_top", "grass_block_top.png");
+        tiles.put("grass_side", "grass_block_side.png");
+        tiles.put("stone", "stone.jpg");
+        tiles.put("planks", "oak_planks.png");
+        tiles.put("log_top", "oak_log_top.jpg");
+        tiles.put("log_side", "oak_log_side.jpg");
+        tiles.put("cobblestone", "cobblestone.png");
+        tiles.put("leaves", "oak_leaves.png");
+        tiles.put("torch", "torch.png");
+        tiles.put("tall_grass", "tall_grass.png");
+        return tiles;
+    }
+
     // Scratch fields populated by loadImageRgba
     private static int lastW;
     private static int lastH;
@@ -195,6 +209,13 @@ public final class TextureAtlas {
         return idx;
     }
 
+    // Inverse of uvForTile: index of the tile whose cell contains (u, v).
+    public int tileIndexAt(float u, float v) {
+        int tx = Math.min(grid - 1, Math.max(0, (int) (u * width / cellSize)));
+        int ty = Math.min(grid - 1, Math.max(0, (int) (v * height / cellSize)));
+        return ty * grid + tx;
+    }
+
     public UvRect uvForTile(int tileIndex) {
         int tx = tileIndex % grid;
         int ty = tileIndex / grid;
@@ -1,10 +1,82 @@
 package minecraftlike.voxel;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.function.Consumer;
 
 public final class World {
-    private final Map<Long, Chunk> chunks = new HashMap<>();
+    private final LongObjectMap<Chunk> chunks = new LongObjectMap<>(256);
 
-    // ...existing code...
+    // One-entry cache: per-block access (collision, mesher border scans) nearly always hits the same chunk.
+    private Chunk lastChunk;
+
+    public Chunk getChunk(int cx, int cz) {
+        Chunk c = lastChunk;
+        if (c != null && c.cx == cx && c.cz == cz) return c;
+        c = chunks.get(key(cx, cz));
+        if (c != null) lastChunk = c;
+        return c;
+    }
+
+    public Chunk getOrCreateChunk(int cx, int cz) {
+        Chunk c = getChunk(cx, cz);
+        if (c == null) {
+            c = new Chunk(cx, cz);
+            putChunk(c);
+        }
+        return c;
+    }
+
+    public void putChunk(Chunk chunk) {
+        chunks.put(key(chunk.cx, chunk.cz), chunk);
+        lastChunk = chunk;
+    }
+
+    public Chunk removeChunk(int cx, int cz) {
+        Chunk c = chunks.remove(key(cx, cz));
+        if (c != null && c == lastChunk) lastChunk = null;
+        return c;
+    }
+
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    // Visits every loaded chunk. The action must not add or remove chunks.
+    public void forEachChunk(Consumer<Chunk> action) {
+        for (int i = 0; i < chunks.capacity(); i++) {
+            Chunk c = chunks.valueAt(i);
+            if (c != null) action.accept(c);
+        }
+    }
+
+    public BlockType getBlock(int wx, int wy, int wz) {
+        if (wy < 0 || wy >= Chunk.HEIGHT) return BlockType.AIR;
+        int cx = wx >> 4;
+        int cz = wz >> 4;
+        Chunk c = getChunk(cx, cz);
+        if (c == null) return BlockType.AIR;
+        return c.get(wx & 15, wy, wz & 15);
+    }
+
+    // y of the highest non-air block at (wx, wz), -1 if the column is empty or not loaded. O(1).
+    public int surfaceY(int wx, int wz) {
+        Chunk c = getChunk(wx >> 4, wz >> 4);
+        return c != null ? c.surfaceY(wx & 15, wz & 15) : -1;
+    }
+
+    // y of the highest block at (wx, wz) that stops direct skylight, -1 if none or not loaded. O(1).
+    public int skyBlockerY(int wx, int wz) {
+        Chunk c = getChunk(wx >> 4, wz >> 4);
+        return c != null ? c.skyBlockerY(wx & 15, wz & 15) : -1;
+    }
+
+    public void setBlock(int wx, int wy, int wz, BlockType t) {
+        if (wy < 0 || wy >= Chunk.HEIGHT) return;
+        Chunk c = getChunk(wx >> 4, wz >> 4);
+        if (c == null) return;
+        c.set(wx & 15, wy, wz & 15, t);
+    }
+
+    public static long key(int cx, int cz) {
+        return (((long) cx) << 32) ^ (cz & 0xffffffffL);
+    }
 }
@@ -17,6 +17,8 @@ public final class WorldGen {
         int baseZ = chunk.cz * Chunk.SIZE;
 
         int[] heightMap = new int[Chunk.SIZE * Chunk.SIZE];
+        boolean[] rockyMap = new boolean[Chunk.SIZE * Chunk.SIZE];
+        int minH = Chunk.HEIGHT;
 
         for (int lx = 0; lx < Chunk.SIZE; lx++) {
             for (int lz = 0; lz < Chunk.SIZE; lz++) {
@@ -25,34 +27,46 @@ public final class WorldGen {
 
                 int h = terrainHeight(wx, wz);
                 heightMap[lx + lz * Chunk.SIZE] = h;
+                rockyMap[lx + lz * Chunk.SIZE] = isRocky(wx, wz, h);
+                minH = Math.min(minH, h);
+            }
+        }
 
-                // Simple slope estimate (world-space height differences) for rocky mountains.
-                int hX1 = terrainHeight(wx + 1, wz);
-                int hZ1 = terrainHeight(wx, wz + 1);
-                int slope = Math.max(Math.abs(h - hX1), Math.abs(h - hZ1));
+        // Sections entirely below the lowest dirt layer are solid stone: fill them in one go.
+        // Sections above the surface stay empty (null) - AIR is never written.
+        int solidSections = Math.max(0, minH - 4) / Chunk.SIZE;
+        for (int sy = 0; sy < solidSections; sy++) {
+            chunk.fillSection(sy, BlockType.STONE);
+        }
+        int firstY = solidSections * Chunk.SIZE;
 
-                boolean rocky = (h >= 58 && slope >= 4) || (h >= 70);
+        for (int lx = 0; lx < Chunk.SIZE; lx++) {
+            for (int lz = 0; lz < Chunk.SIZE; lz++) {
+                int h = heightMap[lx + lz * Chunk.SIZE];
+                boolean rocky = rockyMap[lx + lz * Chunk.SIZE];
 
-                for (int y = 0; y < Chunk.HEIGHT; y++) {
+                for (int y = firstY; y <= h && y < Chunk.HEIGHT; y++) {
                     BlockType t;
-                    if (y > h) {
-                        t = BlockType.AIR;
-                    } else if (y == h) {
+                    if (y == h) {
                         t = rocky ? BlockType.COBBLESTONE : BlockType.GRASS;
                     } else if (y >= h - 4) {
                         t = rocky ? BlockType.STONE : BlockType.DIRT;
                     } else {
                         t = BlockType.STONE;
                     }
-                    if (lx >= 0 && lx < Chunk.SIZE && lz >= 0 && lz < Chunk.SIZE && y >= 0 && y < Chunk.HEIGHT) {
-                        chunk.set(lx, y, lz, t);
-                    }
+                    chunk.set(lx, y, lz, t);
                 }
                 // Trees (rare)
                 // Trees are generated in a second pass (world-space, cross-chunk safe).
             }
         }
-        // ...existing code...
+
+        carveCaves(chunk, baseX, baseZ, heightMap);
+        generateTreesForChunk(chunk, baseX, baseZ);
+        scatterTallGrass(chunk, heightMap, baseX, baseZ);
+
+        // Cave carving can leave sections uniform again (or empty); shrink them back.
+        chunk.trimSections();
     }
 
     // Now at class level, using heightMap
@@ -61,7 +75,9 @@ public final class WorldGen {
             for (int lz = 0; lz < Chunk.SIZE; lz++) {
                 int h = heightMap[lx + lz * Chunk.SIZE];
                 if (h < 1 || h >= Chunk.HEIGHT) continue;
-                if (chunk.get(lx, h, lz) == BlockType.GRASS && chunk.get(lx, h + 1, lz) == BlockType.AIR && Math.random() < 0.15) {
+                // Deterministic per-column roll (Math.random() is a shared, contended generator across gen threads).
+                boolean roll = hash01(baseX + lx, h + 0x5EED, baseZ + lz) < 0.15;
+                if (chunk.get(lx, h, lz) == BlockType.GRASS && chunk.get(lx, h + 1, lz) == BlockType.AIR && roll) {
                     chunk.set(lx, h + 1, lz, BlockType.TALL_GRASS);
                 }
             }
@@ -292,7 +308,19 @@ public final class WorldGen {
         chunk.set(lx, wy, lz, t);
     }
 
-    private int terrainHeight(int x, int z) {
+    // Rocky surface (cobblestone top, stone below) instead of grass over dirt: steep or high ground.
+    // h must be terrainHeight(x, z).
+    public boolean isRocky(int x, int z, int h) {
+        // Simple slope estimate (world-space height differences) for rocky mountains.
+        int hX1 = terrainHeight(x + 1, z);
+        int hZ1 = terrainHeight(x, z + 1);
+        int slope = Math.max(Math.abs(h - hX1), Math.abs(h - hZ1));
+        return (h >= 58 && slope >= 4) || (h >= 70);
+    }
+
+    // Height of the topmost terrain block of column (x, z), before caves and trees. Pure function of the
+    // seed, so it can be sampled anywhere without generating chunks (see FarTerrainTiles).
+    public int terrainHeight(int x, int z) {
         // Less perfect terrain: low-frequency biome blending + fractal noise.
         // Biome blend: plains -> hills -> mountains.
         double biome = fbm2(x * 0.0026, z * 0.0026);
@@ -0,0 +1,51 @@
+#version 330 core
+
+in vec3 vWorldPos;
+in vec3 vNormal;
+in float vRock;
+in float vViewZ;
+
+out vec4 FragColor;
+
+uniform sampler2D uTex;
+uniform vec2 uTileSpan;  // atlas-space size of one tile
+uniform vec2 uGrassTile; // atlas origin of the grass top
+uniform vec2 uRockTile;  // atlas origin of the rock (cobblestone) top
+uniform vec3 uNearArea;  // centre xz, half size: drawn as chunks, left out here
+
+uniform vec3 uLightDir;  // direction the light rays travel (sun -> world), normalized
+uniform float uAmbient;  // 0..1
+uniform float uSun;      // 0..2
+
+uniform vec3 uFogColor;
+uniform float uFogNear;
+uniform float uFogFar;
+uniform float uBrightness;
+uniform float uGamma;
+uniform int uFogEnabled;
+
+void main() {
+    vec2 d = abs(vWorldPos.xz - uNearArea.xy);
+    if (max(d.x, d.y) < uNearArea.z) discard;
+
+    // One texture repeat per block, like the chunk tops; gradients from the unwrapped uv (see voxel.frag).
+    vec2 rep = vWorldPos.xz * uTileSpan;
+    vec2 uvDx = dFdx(rep);
+    vec2 uvDy = dFdy(rep);
+    vec2 wrapped = mod(rep, uTileSpan);
+    vec3 grass = textureGrad(uTex, uGrassTile + wrapped, uvDx, uvDy).rgb;
+    vec3 rock = textureGrad(uTex, uRockTile + wrapped, uvDx, uvDy).rgb;
+    vec3 albedo = mix(grass, rock, clamp(vRock, 0.0, 1.0));
+
+    vec3 n = normalize(vNormal);
+    float ndl = max(dot(n, normalize(-uLightDir)), 0.0);
+    vec3 base = albedo * clamp(uAmbient + ndl * uSun, 0.0, 4.0);
+    base *= uBrightness;
+    base = pow(max(base, vec3(0.0)), vec3(1.0 / max(uGamma, 0.001)));
+
+    float fog = 0.0;
+    if (uFogEnabled != 0) {
+        fog = clamp((vViewZ - uFogNear) / (uFogFar - uFogNear), 0.0, 1.0);
+    }
+    FragColor = vec4(mix(base, uFogColor, fog), 1.0);
+}
@@ -0,0 +1,22 @@
+#version 330 core
+
+// Far-terrain heightfield tiles (FarTerrainTiles): world-space position, surface normal + material.
+layout (location = 0) in vec3 aPos;
+layout (location = 1) in vec4 aNormalMaterial; // xyz normal, w 0 = grass .. 1 = rock
+
+uniform mat4 uProj;
+uniform mat4 uView;
+
+out vec3 vWorldPos;
+out vec3 vNormal;
+out float vRock;
+out float vViewZ;
+
+void main() {
+    vec4 viewPos = uView * vec4(aPos, 1.0);
+    vViewZ = -viewPos.z;
+    gl_Position = uProj * viewPos;
+    vWorldPos = aPos;
+    vNormal = aNormalMaterial.xyz;
+    vRock = aNormalMaterial.w;
+}
@@ -2,13 +2,18 @@
 
 layout (location = 0) in vec3 aPos;
 
+// Chunk meshes: aPos is u16 in 1/256 block, relative to uChunkOrigin (see voxel.vert).
+uniform int uChunkVertex;
+uniform vec3 uChunkOrigin;
+
 uniform mat4 uLightVP;
 uniform mat4 uModel;
 
 out vec3 vWorldPos;
 
 void main() {
-    vec4 wp = uModel * vec4(aPos, 1.0);
+    vec3 pos = (uChunkVertex != 0) ? aPos * (1.0 / 256.0) + uChunkOrigin : aPos;
+    vec4 wp = uModel * vec4(pos, 1.0);
     vWorldPos = wp.xyz;
     gl_Position = uLightVP * wp;
 }
@@ -1,12 +1,15 @@
 #version 330 core
 
 in vec2 vUv;
+in vec2 vTile;
 
 uniform sampler2D uTex;
+uniform vec2 uTileSpan; // see voxel.frag
 
 void main() {
     // Depth-only pass with cutout alpha.
     // This ensures vegetation like tall grass doesn't cast full-quad shadows.
-    float a = texture(uTex, vUv).a;
+    vec2 uv = (uTileSpan.x > 0.0) ? vTile + mod(vUv - vTile, uTileSpan) : vUv;
+    float a = textureGrad(uTex, uv, dFdx(vUv), dFdy(vUv)).a;
     if (a < 0.5) discard;
 }
@@ -3,12 +3,29 @@
 layout (location = 0) in vec3 aPos;
 layout (location = 1) in vec2 aUv;
 
+// Packed chunk vertices, see voxel.vert.
+layout (location = 6) in uvec2 aTileFlags;
+uniform int uChunkVertex;
+uniform vec3 uChunkOrigin;
+uniform vec2 uAtlasLayout;
+uniform vec2 uAtlasInset;
+uniform vec2 uTileSpan;
+
 uniform mat4 uLightVP;
 uniform mat4 uModel;
 
 out vec2 vUv;
+out vec2 vTile;
 
 void main() {
+    vec3 pos = aPos;
     vUv = aUv;
-    gl_Position = uLightVP * (uModel * vec4(aPos, 1.0));
+    vTile = aUv;
+    if (uChunkVertex != 0) {
+        pos = aPos * (1.0 / 256.0) + uChunkOrigin;
+        float tile = float(aTileFlags.x);
+        vTile = vec2(mod(tile, uAtlasLayout.x), floor(tile / uAtlasLayout.x)) * uAtlasLayout.y + uAtlasInset;
+        vUv = vTile + aUv * uTileSpan;
+    }
+    gl_Position = uLightVP * (uModel * vec4(pos, 1.0));
 }
@@ -1,25 +1,30 @@
 #version 330 core
 
 in vec2 vUv;
+in vec2 vTile;
 in vec3 vWorldPos;
 in vec3 vNormal;
 in float vViewZ;
-in vec4 vShadowPos;
 in float vSky;
+in float vBlockLight;
 in float vEmissive;
+in float vAo;
 
 out vec4 FragColor;
 
 uniform sampler2D uTex;
 uniform int uPixelSnap; // 0/1
+uniform vec2 uTileSpan; // atlas-space size of one tile (0 = uvs are not wrapped)
 
 // Simple directional sunlight
 uniform vec3 uLightDir;   // direction the light rays travel (sun -> world), normalized
 uniform float uAmbient;   // 0..1
 uniform float uSun;       // 0..2
 
-// Shadows
-uniform sampler2DShadow uShadowMap;
+// Shadows: sun cascades (CascadedShadowMap), cascade 0 nearest.
+uniform sampler2DArrayShadow uShadowCascades;
+uniform mat4 uCascadeVP[4];
+uniform int uCascadeCount;
 uniform int uShadowsEnabled;
 uniform float uShadowStrength; // 0..1
 uniform float uShadowSoftness; // 0.5..4
@@ -27,28 +32,60 @@ uniform float uShadowSoftness; // 0.5..4
 // Extra multiplier for skylight. Chunks use 1.0; entities can reduce this.
 uniform float uSkyMul; // 0..1
 
-// Torch/point lights (simple dynamic lights)
-uniform int uPointLightCount;
-uniform vec3 uPointLightPos[32];
-uniform float uPointLightStrength[32];
-uniform float uPointLightRadius[32];
-
-// Point-light shadows (cubemap). We apply this to a single torch light for performance.
+// Torch light baked into chunk vertices by LightEngine's flood fill (0 = off). Placed torches only need
+// the clustered point lights below for their shadows; the baked light costs nothing per torch.
+uniform float uBlockLightStrength;
+
+// Torch/point lights, clustered (ClusteredLights): the screen is split into uClusterGrid.xy tiles and
+// uClusterGrid.z depth slices; each cluster lists the lights that can reach it.
+uniform int uPointLightCount;       // 0 = no point lights
+uniform usamplerBuffer uClusterTable;  // per cluster: offset, count
+uniform usamplerBuffer uClusterLights; // light indices
+uniform samplerBuffer uLightData;      // per light: (pos, radius), (strength, shadow slot, -, -)
+uniform vec3 uClusterGrid;
+uniform vec2 uClusterDepth;         // slice = log(viewDepth) * x + y
+uniform vec2 uViewportSize;
+
+// Point-light shadows for the nearest torches (PointShadowAtlas): 6 cube faces per slot in a texture
+// array, layer = slot * 6 + face. A light's slot comes from uLightData (-1 = no shadow).
 uniform int uPointShadowsEnabled;
-uniform samplerCube uPointShadowMap;
-uniform int uPointShadowIndex;
-uniform vec3 uPointShadowPos;
-uniform float uPointShadowFar;
+uniform sampler2DArray uPointShadowAtlas;
+uniform vec3 uPointShadowPos[8];
+uniform float uPointShadowFar[8];
 uniform float uPointShadowStrength; // 0..1
 
-float pointShadowPCF(vec3 worldPos, vec3 n) {
-    vec3 toFrag = worldPos - uPointShadowPos;
+// Cube map lookup by hand (same face orientation as GL cube maps / PointShadowAtlas.faceViewProj).
+float pointShadowDepth(int slot, vec3 dir) {
+    vec3 a = abs(dir);
+    int face;
+    float ma;
+    vec2 sc;
+    if (a.x >= a.y && a.x >= a.z) {
+        face = dir.x > 0.0 ? 0 : 1;
+        ma = a.x;
+        sc = vec2(dir.x > 0.0 ? -dir.z : dir.z, -dir.y);
+    } else if (a.y >= a.z) {
+        face = dir.y > 0.0 ? 2 : 3;
+        ma = a.y;
+        sc = vec2(dir.x, dir.y > 0.0 ? dir.z : -dir.z);
+    } else {
+        face = dir.z > 0.0 ? 4 : 5;
+        ma = a.z;
+        sc = vec2(dir.z > 0.0 ? dir.x : -dir.x, -dir.y);
+    }
+    vec2 uv = sc / max(ma, 0.00001) * 0.5 + 0.5;
+    return texture(uPointShadowAtlas, vec3(uv, float(slot * 6 + face))).r;
+}
+
+float pointShadowPCF(int slot, vec3 worldPos, vec3 n) {
+    vec3 lightPos = uPointShadowPos[slot];
+    vec3 toFrag = worldPos - lightPos;
     float dist = length(toFrag);
-    float farP = max(uPointShadowFar, 0.0001);
+    float farP = max(uPointShadowFar[slot], 0.0001);
     float cur = dist / farP;
     if (cur >= 1.0) return 1.0;
 
-    vec3 ldir = (dist > 0.0001) ? ((uPointShadowPos - worldPos) / dist) : vec3(0.0, 1.0, 0.0);
+    vec3 ldir = (dist > 0.0001) ? ((lightPos - worldPos) / dist) : vec3(0.0, 1.0, 0.0);
     float ndl = max(dot(n, ldir), 0.0);
 
     // Bias in *normalized* depth units.
@@ -67,7 +104,7 @@ float pointShadowPCF(vec3 worldPos, vec3 n) {
     );
 
     for (int i = 0; i < 8; i++) {
-        float closest = texture(uPointShadowMap, dir + offs[i] * disk).r;
+        float closest = pointShadowDepth(slot, dir + offs[i] * disk);
         sum += ((cur - bias) > closest) ? 0.0 : 1.0;
         count++;
     }
@@ -75,25 +112,33 @@ float pointShadowPCF(vec3 worldPos, vec3 n) {
     return sum / float(count);
 }
 
-float shadowPCF(vec4 shadowPos, vec3 n) {
-    // Project to [0,1]
-    vec3 proj = shadowPos.xyz / max(shadowPos.w, 0.00001);
-    proj = proj * 0.5 + 0.5;
-
-    // Outside shadow map => lit.
-    if (proj.z > 1.0) return 1.0;
-    if (proj.x < 0.0 || proj.x > 1.0 || proj.y < 0.0 || proj.y > 1.0) return 1.0;
-
-    vec2 texel = 1.0 / vec2(textureSize(uShadowMap, 0));
+float shadowPCF(vec3 worldPos, vec3 n) {
+    vec2 texel = 1.0 / vec2(textureSize(uShadowCascades, 0).xy);
     float radius = max(uShadowSoftness, 0.5);
 
     // Use a bigger kernel for softer shadows (helps jaggy edges).
     int taps = (radius > 2.0) ? 2 : 1; // 1 => 3x3, 2 => 5x5
 
+    // First (finest) cascade that contains the point with room for the filter kernel.
+    vec2 margin = texel * radius * float(taps + 1);
+    vec3 proj = vec3(0.0);
+    int cascade = -1;
+    for (int i = 0; i < uCascadeCount; i++) {
+        vec4 p = uCascadeVP[i] * vec4(worldPos, 1.0);
+        proj = (p.xyz / max(p.w, 0.00001)) * 0.5 + 0.5;
+        if (all(greaterThanEqual(proj.xy, margin)) && all(lessThanEqual(proj.xy, 1.0 - margin))) {
+            cascade = i;
+            break;
+        }
+    }
+
+    // Outside every cascade => lit.
+    if (cascade < 0 || proj.z > 1.0) return 1.0;
+
     // Bias: scale with texel size; strong enough to avoid acne/striping on large flat surfaces.
     vec3 l = normalize(-uLightDir);
     float ndl = max(dot(normalize(n), l), 0.0);
-    float texelSz = 1.0 / float(textureSize(uShadowMap, 0).x);
+    float texelSz = texel.x;
     float bias = max(texelSz * (3.0 * (1.0 - ndl)), texelSz * 1.25);
 
     float sum = 0.0;
@@ -101,7 +146,7 @@ float shadowPCF(vec4 shadowPos, vec3 n) {
     for (int y = -taps; y <= taps; y++) {
         for (int x = -taps; x <= taps; x++) {
             vec2 o = vec2(x, y) * texel * radius;
-            sum += texture(uShadowMap, vec3(proj.xy + o, proj.z - bias));
+            sum += texture(uShadowCascades, vec4(proj.xy + o, float(cascade), proj.z - bias));
             count++;
         }
     }
@@ -119,12 +164,19 @@ uniform float uGamma;      // 2.2 = default-ish
 uniform int uFogEnabled;   // 0/1
 
 void main() {
+    // Merged (greedy) quads repeat their tile once per block: wrap uv back into the tile.
+    // Gradients come from the unwrapped uv so the mip level doesn't jump at the repeat seams.
     vec2 uv = vUv;
+    vec2 uvDx = dFdx(vUv);
+    vec2 uvDy = dFdy(vUv);
+    if (uTileSpan.x > 0.0) {
+        uv = vTile + mod(vUv - vTile, uTileSpan);
+    }
     if (uPixelSnap != 0) {
         vec2 ts = vec2(textureSize(uTex, 0));
         uv = (floor(uv * ts) + 0.5) / ts;
     }
-    vec4 tex = texture(uTex, uv);
+    vec4 tex = textureGrad(uTex, uv, uvDx, uvDy);
     // Cutout for textures like tall_grass etc.
     if (tex.a < 0.5) discard;
 
@@ -136,35 +188,47 @@ void main() {
 
     float shadow = 1.0;
     if (uShadowsEnabled != 0 && sky > 0.5) {
-        shadow = shadowPCF(vShadowPos, n);
+        shadow = shadowPCF(vWorldPos, n);
     }
     float shadowMix = mix(1.0 - clamp(uShadowStrength, 0.0, 1.0), 1.0, shadow);
 
     float sunTerm = ndl * uSun * shadowMix * sky;
-    float light = clamp(uAmbient + sunTerm, 0.0, 4.0);
+    // Baked vertex AO darkens corners and crevices for sky and sun alike (the sun term is still shadowed).
+    float light = clamp(uAmbient + sunTerm, 0.0, 4.0) * vAo;
 
-    // Simple point lights (e.g. torches). No shadowing, but good enough for caves.
+    // Point lights (e.g. torches): only the ones listed for this fragment's cluster.
     float point = 0.0;
-    int nLights = clamp(uPointLightCount, 0, 32);
-    for (int i = 0; i < nLights; i++) {
-        vec3 toL = uPointLightPos[i] - vWorldPos;
-        float dist = length(toL);
-        float r = max(uPointLightRadius[i], 0.001);
-        float t = clamp(1.0 - dist / r, 0.0, 1.0);
-        // Add some directional shading so the world doesn't look "flat".
-        vec3 lp = (dist > 0.0001) ? (toL / dist) : vec3(0.0, 1.0, 0.0);
-        float ndlP = max(dot(n, lp), 0.0);
-
-        // Softer falloff + a bit of ambient from the torch.
-        float diff = (0.25 + 0.75 * ndlP);
-
-        float sh = 1.0;
-        if (uPointShadowsEnabled != 0 && uPointShadowIndex == i) {
-            sh = mix(1.0 - clamp(uPointShadowStrength, 0.0, 1.0), 1.0, pointShadowPCF(vWorldPos, n));
+    if (uPointLightCount > 0) {
+        ivec3 grid = ivec3(uClusterGrid);
+        ivec2 tileXY = clamp(ivec2(gl_FragCoord.xy / uViewportSize * vec2(grid.xy)), ivec2(0), grid.xy - 1);
+        int slice = clamp(int(floor(log(max(vViewZ, 0.000001)) * uClusterDepth.x + uClusterDepth.y)), 0, grid.z - 1);
+        uvec2 cluster = texelFetch(uClusterTable, (slice * grid.y + tileXY.y) * grid.x + tileXY.x).xy;
+        for (uint k = 0u; k < cluster.y; k++) {
+            int i = int(texelFetch(uClusterLights, int(cluster.x + k)).r);
+            vec4 posRadius = texelFetch(uLightData, i * 2);
+            vec4 params = texelFetch(uLightData, i * 2 + 1);
+            vec3 toL = posRadius.xyz - vWorldPos;
+            float dist = length(toL);
+            float r = max(posRadius.w, 0.001);
+            float t = clamp(1.0 - dist / r, 0.0, 1.0);
+            if (t <= 0.0) continue;
+            // Add some directional shading so the world doesn't look "flat".
+            vec3 lp = (dist > 0.0001) ? (toL / dist) : vec3(0.0, 1.0, 0.0);
+            float ndlP = max(dot(n, lp), 0.0);
+
+            // Softer falloff + a bit of ambient from the torch.
+            float diff = (0.25 + 0.75 * ndlP);
+
+            float sh = 1.0;
+            int slot = int(params.y);
+            if (uPointShadowsEnabled != 0 && slot >= 0) {
+                sh = mix(1.0 - clamp(uPointShadowStrength, 0.0, 1.0), 1.0, pointShadowPCF(slot, vWorldPos, n));
+            }
+
+            point += params.x * (t * t) * diff * sh;
         }
-
-        point += uPointLightStrength[i] * (t * t) * diff * sh;
     }
+    point += uBlockLightStrength * vBlockLight * vAo;
     // Don't double-light emissive surfaces (torch mesh is emissive and sits inside its own light).
     point *= (1.0 - clamp(vEmissive, 0.0, 1.0));
     point = clamp(point, 0.0, 2.0);
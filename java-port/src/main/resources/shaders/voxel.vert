@@ -1,31 +1,78 @@
 #version 330 core
 
+// Float meshes: model-space position, atlas uv, normal, light.
+// Chunk meshes: aPos is u16 in 1/256 block (chunk-relative), aUv is u8 tile repeats.
 layout (location = 0) in vec3 aPos;
 layout (location = 1) in vec2 aUv;
 layout (location = 2) in vec3 aNormal;
 layout (location = 3) in float aSky;
 layout (location = 4) in float aEmissive;
+// Packed chunk vertices (ChunkVertexBuilder): only used while uChunkVertex != 0.
+layout (location = 6) in uvec2 aTileFlags; // atlas tile index, flags (bits 0-2 face, bit 3 wind, bits 4-5 AO)
+layout (location = 7) in uvec2 aLight;     // packed light (sky << 4 | block, 0..15 each), emissive (0..255)
+
+uniform int uChunkVertex;   // 1 while ChunkRenderer draws chunk meshes
+uniform vec3 uChunkOrigin;  // world position of the chunk's (0,0,0)
+uniform vec2 uAtlasLayout;  // tiles per row, cell size (atlas uv)
+uniform vec2 uAtlasInset;   // tile origin inside its cell (atlas uv)
+uniform vec2 uTileSpan;     // atlas-space size of one tile
 
 uniform mat4 uProj;
 uniform mat4 uView;
 uniform mat4 uModel;
-uniform mat4 uLightVP;
 uniform float uTime;
 uniform float uWindStrength;
 
 out vec2 vUv;
+out vec2 vTile;
 out vec3 vWorldPos;
 out vec3 vNormal;
 out float vViewZ;
-out vec4 vShadowPos;
 out float vSky;
+out float vBlockLight;
 out float vEmissive;
+out float vAo;
+
+const vec3 FACE_NORMALS[6] = vec3[6](
+    vec3( 1.0, 0.0, 0.0), vec3(-1.0, 0.0, 0.0),
+    vec3( 0.0, 1.0, 0.0), vec3( 0.0,-1.0, 0.0),
+    vec3( 0.0, 0.0, 1.0), vec3( 0.0, 0.0,-1.0)
+);
+
+// Baked corner AO level (ChunkMesher, 0 = both sides blocked .. 3 = open) to a light factor.
+const float AO_CURVE[4] = float[4](0.45, 0.62, 0.8, 1.0);
+
+// Flood-fill light level (LightEngine, 0..15) to brightness: steep falloff near the source, dim tail.
+float lightLevel(uint level) {
+    float f = float(level) / 15.0;
+    return f / (4.0 - 3.0 * f);
+}
 
 void main() {
     vec3 pos = aPos;
+    vec3 normal = aNormal;
+    vec2 uv = aUv;
+    vec2 tileOrigin = aUv;
+    float sky = aSky;
+    float emissive = aEmissive;
+    float blockLight = 0.0;
+    float ao = 1.0;
+    if (uChunkVertex != 0) {
+        pos = aPos * (1.0 / 256.0) + uChunkOrigin;
+        uint flags = aTileFlags.y;
+        normal = FACE_NORMALS[int(flags & 7u)];
+        float tile = float(aTileFlags.x);
+        vec2 cell = vec2(mod(tile, uAtlasLayout.x), floor(tile / uAtlasLayout.x));
+        tileOrigin = cell * uAtlasLayout.y + uAtlasInset;
+        uv = tileOrigin + aUv * uTileSpan;
+        sky = lightLevel(aLight.x >> 4);
+        blockLight = lightLevel(aLight.x & 15u);
+        emissive = ((flags & 8u) != 0u) ? -1.0 : float(aLight.y) / 255.0;
+        ao = AO_CURVE[int((flags >> 4) & 3u)];
+    }
 
-    // Wind animation for cutout vegetation (tall grass): we tag these vertices with aEmissive < 0.
-    if (aEmissive < 0.0) {
+    // Wind animation for cutout vegetation (tall grass): these vertices carry emissive < 0.
+    if (emissive < 0.0) {
         float y01 = fract(pos.y);
         // Stronger sway near the top.
         float bend = y01 * y01;
@@ -48,13 +95,15 @@ void main() {
     vViewZ = -viewPos.z;
     gl_Position = uProj * viewPos;
 
-    vUv = aUv;
+    vUv = uv;
+    vTile = tileOrigin;
     vec4 worldPos4 = uModel * vec4(pos, 1.0);
     vWorldPos = worldPos4.xyz;
     // Model is identity for chunks, but keep correct if changed.
-    vNormal = mat3(uModel) * aNormal;
+    vNormal = mat3(uModel) * normal;
 
-    vShadowPos = uLightVP * worldPos4;
-    vSky = aSky;
-    vEmissive = aEmissive;
+    vSky = sky;
+    vBlockLight = blockLight;
+    vEmissive = emissive;
+    vAo = ao;
 }